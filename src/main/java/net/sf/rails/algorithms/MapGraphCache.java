@@ -0,0 +1,101 @@
+package net.sf.rails.algorithms;
+
+import java.util.Set;
+
+import net.sf.rails.game.MapHex;
+import net.sf.rails.game.RailsRoot;
+import net.sf.rails.game.state.Observable;
+import net.sf.rails.game.state.Observer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+/**
+ * MapGraphCache keeps the track graph of the map of a RailsRoot.
+ * <p>
+ * The track graph is created once, afterwards only the hexes that have changed
+ * (tile, rotation or stops) are rebuilt. The changed hexes are reported by observers
+ * of the MapHexes, which are updated after each action, undo and redo.
+ * <p>
+ * Map graphs are delivered as copies with the map graph modifiers applied,
+ * as the creation of route graphs changes both the map graph and its vertices.
+ */
+public final class MapGraphCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MapGraphCache.class);
+
+    private final RailsRoot root;
+
+    private NetworkGraph trackGraph;
+    private final Set<MapHex> changedHexes = Sets.newHashSet();
+
+    private MapGraphCache(RailsRoot root) {
+        this.root = root;
+    }
+
+    /**
+     * Creates the cache and registers the observers of the MapHexes,
+     * requires that the MapManager is configured
+     */
+    public static MapGraphCache create(RailsRoot root) {
+        MapGraphCache cache = new MapGraphCache(root);
+        for (MapHex hex : root.getMapManager().getHexes()) {
+            hex.addObserver(cache.new HexObserver(hex));
+        }
+        return cache;
+    }
+
+    /**
+     * @return a new map graph, which can be changed by the caller
+     */
+    public synchronized NetworkGraph getMapGraph() {
+        if (trackGraph == null) {
+            trackGraph = NetworkGraph.createTrackGraph(root);
+            changedHexes.clear();
+            log.debug("TrackGraph created");
+        } else if (!changedHexes.isEmpty()) {
+            trackGraph.updateHexes(root.getMapManager(), ImmutableSet.copyOf(changedHexes));
+            changedHexes.clear();
+            log.debug("TrackGraph updated");
+        }
+        return NetworkGraph.createMapGraph(trackGraph, root);
+    }
+
+    /**
+     * Discards the track graph, the next request creates a new one
+     */
+    public synchronized void invalidate() {
+        trackGraph = null;
+        changedHexes.clear();
+    }
+
+    private synchronized void hexChanged(MapHex hex) {
+        // without track graph there is nothing to update
+        if (trackGraph != null) {
+            changedHexes.add(hex);
+        }
+    }
+
+    private class HexObserver implements Observer {
+
+        private final MapHex hex;
+
+        private HexObserver(MapHex hex) {
+            this.hex = hex;
+        }
+
+        @Override
+        public void update(String text) {
+            hexChanged(hex);
+        }
+
+        @Override
+        public Observable getObservable() {
+            return hex;
+        }
+    }
+
+}
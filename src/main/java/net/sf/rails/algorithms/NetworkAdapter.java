@@ -35,7 +35,7 @@ public class NetworkAdapter {
     }
 
     public NetworkGraph getMapGraph() {
-        mapGraph = NetworkGraph.createMapGraph(root);
+        mapGraph = root.getMapGraphCache().getMapGraph();
         log.info("MapGraph created");
         return mapGraph;
     }
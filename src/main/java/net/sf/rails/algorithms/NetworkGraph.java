@@ -179,94 +179,208 @@ public class NetworkGraph {
         }
     }
 
+    /**
+     * creates the graph of the track on the map without the map graph modifiers
+     */
+    static NetworkGraph createTrackGraph(RailsRoot root) {
+        NetworkGraph graph = new NetworkGraph();
+        graph.generateTrackGraph(root.getMapManager());
+        return graph;
+    }
+
+    /**
+     * creates a map graph from a copy of the track graph and applies the map graph modifiers
+     */
+    static NetworkGraph createMapGraph(NetworkGraph trackGraph, RailsRoot root) {
+        NetworkGraph graph = trackGraph.copyGraph();
+        graph.activateMapGraphModifiers(root);
+        return graph;
+    }
+
+    /**
+     * creates a copy with new vertex and edge objects,
+     * thus the copy can be modified without changes to this graph
+     */
+    NetworkGraph copyGraph() {
+        NetworkGraph newGraph = new NetworkGraph();
+        Map<NetworkVertex, NetworkVertex> copies = Maps.newHashMap();
+        for (NetworkVertex vertex : graph.vertexSet()) {
+            NetworkVertex newVertex = vertex.copyVertex();
+            newGraph.graph.addVertex(newVertex);
+            newGraph.vertices.put(newVertex.getIdentifier(), newVertex);
+            copies.put(vertex, newVertex);
+        }
+        for (NetworkEdge edge : graph.edgeSet()) {
+            NetworkVertex source = copies.get(edge.getSource());
+            NetworkVertex target = copies.get(edge.getTarget());
+            List<NetworkVertex> hiddenVertices = new ArrayList<NetworkVertex>();
+            for (NetworkVertex hidden : edge.getHiddenVertices()) {
+                hiddenVertices.add(copies.containsKey(hidden) ? copies.get(hidden) : hidden);
+            }
+            newGraph.graph.addEdge(source, target,
+                    new NetworkEdge(source, target, edge.isGreedy(), edge.getDistance(), hiddenVertices));
+        }
+        return newGraph;
+    }
+
     private void generateMapGraph(RailsRoot root) {
-        MapManager mapManager = root.getMapManager();
+        generateTrackGraph(root.getMapManager());
+        activateMapGraphModifiers(root);
+    }
+
+    private void activateMapGraphModifiers(RailsRoot root) {
         RevenueManager revenueManager = root.getRevenueManager();
-        for (MapHex hex : mapManager.getHexes()) {
-            // get Tile
-            Tile tile = hex.getCurrentTile();
-
-            // then get stations
-            Collection<Station> stations = tile.getStations();
-            // and add those to the mapGraph
-            for (Station station : stations) {
-                NetworkVertex stationVertex = new NetworkVertex(hex, station);
-                graph.addVertex(stationVertex);
-                vertices.put(stationVertex.getIdentifier(), stationVertex);
-                log.info("Added {}", stationVertex);
-            }
+        if (revenueManager != null) {
+            revenueManager.activateMapGraphModifiers(this);
+        }
+    }
 
-            // get tracks per side to add that vertex
-            for (HexSide side : HexSide.all())
-                if (tile.hasTracks(side)) {
-                    HexSide rotated = side.rotate(hex.getCurrentTileRotation());
-                    NetworkVertex sideVertex = new NetworkVertex(hex, rotated);
-                    graph.addVertex(sideVertex);
-                    vertices.put(sideVertex.getIdentifier(), sideVertex);
-                    log.info("Added {}", sideVertex);
-                }
+    private void generateTrackGraph(MapManager mapManager) {
+        for (MapHex hex : mapManager.getHexes()) {
+            addHexVertices(hex);
         }
 
         // loop over all hex and add tracks
         for (MapHex hex : mapManager.getHexes()) {
-            // get Tile
-            Tile tile = hex.getCurrentTile();
-            // get Tracks
-            Set<Track> tracks = tile.getTracks();
-
-            for (Track track : tracks) {
-                NetworkVertex startVertex = getVertexRotated(hex, track.getStart());
-                NetworkVertex endVertex = getVertexRotated(hex, track.getEnd());
-                log.info("Track: {}", track);
-                NetworkEdge edge = new NetworkEdge(startVertex, endVertex, false);
-                if (startVertex == endVertex) {
-                    log.error("Track {} on hex {}has identical start/end", track, hex);
-                } else {
-                    graph.addEdge(startVertex, endVertex, edge);
-                    log.info("Added non-greedy edge {}", edge.getConnection());
-                }
-            }
-
-            // TODO: Rewrite this by employing the features of Trackpoint
+            addHexTracks(hex);
             // and connect to neighbouring hexes (for sides 0-2)
             for (HexSide side : HexSide.head()) {
+                connectHexes(mapManager, hex, side);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the vertices and edges of the hexes given, all other hexes keep their vertices.
+     * Deadend vertices of neighbouring hexes are removed or added if required.
+     */
+    void updateHexes(MapManager mapManager, Set<MapHex> hexes) {
+        // remove all vertices (and thus edges) of the changed hexes
+        List<NetworkVertex> verticesToRemove = new ArrayList<NetworkVertex>();
+        for (NetworkVertex vertex : graph.vertexSet()) {
+            if (hexes.contains(vertex.getHex())) {
+                verticesToRemove.add(vertex);
+            }
+        }
+        removeVertices(verticesToRemove);
+
+        // remove deadend vertices of neighbours that have lost their connection
+        verticesToRemove.clear();
+        for (MapHex hex : hexes) {
+            for (HexSide side : HexSide.all()) {
                 MapHex neighborHex = mapManager.getNeighbour(hex, side);
-                if (neighborHex == null) {
-                    log.info("No connection for Hex {} at {}, No Neighbor", hex.getId(), hex.getOrientationName(side));
-                    continue;
+                if (neighborHex == null || hexes.contains(neighborHex)) continue;
+                NetworkVertex otherVertex = getVertex(neighborHex, side.opposite());
+                if (otherVertex != null && graph.degreeOf(otherVertex) == 0) {
+                    verticesToRemove.add(otherVertex);
                 }
-                NetworkVertex vertex = getVertex(hex, side);
-                HexSide rotated = side.opposite();
-                NetworkVertex otherVertex = getVertex(neighborHex, rotated);
-                if (vertex == null && otherVertex == null) {
-                    log.info("Hex {} has no track at {}", hex.getId(), hex.getOrientationName(side));
-                    log.info("And Hex {} has no track at {}", neighborHex.getId(), neighborHex.getOrientationName(rotated));
-                    continue;
-                } else if (vertex == null && otherVertex != null) {
-                    log.info("Deadend connection for Hex {} at {}, NeighborHex {} has no track at side {}", neighborHex.getId(), neighborHex.getOrientationName(rotated), hex.getId(), hex.getOrientationName(side));
-                    vertex = new NetworkVertex(hex, side);
-                    graph.addVertex(vertex);
-                    vertices.put(vertex.getIdentifier(), vertex);
-                    log.info("Added deadend vertex {}", vertex);
-                } else if (otherVertex == null) {
-                    log.info("Deadend connection for Hex {} at {}, NeighborHex {} has no track at side {}", hex.getId(), hex.getOrientationName(side), neighborHex.getId(), neighborHex.getOrientationName(rotated));
-                    otherVertex = new NetworkVertex(neighborHex, rotated);
-                    graph.addVertex(otherVertex);
-                    vertices.put(otherVertex.getIdentifier(), otherVertex);
-                    log.info("Added deadend vertex {}", otherVertex);
+            }
+        }
+        removeVertices(verticesToRemove);
+
+        // add vertices, tracks and connections of the changed hexes
+        for (MapHex hex : hexes) {
+            addHexVertices(hex);
+        }
+        for (MapHex hex : hexes) {
+            addHexTracks(hex);
+            for (HexSide side : HexSide.all()) {
+                if (HexSide.head().contains(side)) {
+                    connectHexes(mapManager, hex, side);
+                } else {
+                    // tail sides are connected from the neighbour, changed neighbours do this themselves
+                    MapHex neighborHex = mapManager.getNeighbour(hex, side);
+                    if (neighborHex == null || hexes.contains(neighborHex)) continue;
+                    connectHexes(mapManager, neighborHex, side.opposite());
                 }
-                NetworkEdge edge = new NetworkEdge(vertex, otherVertex, true);
-                graph.addEdge(vertex, otherVertex,
-                        edge);
-                log.info("Added greedy edge {}", edge.getConnection());
             }
         }
+        log.debug("Updated hexes {}", hexes);
+    }
 
-        // add graph modifiers
-        if (revenueManager != null) {
-            revenueManager.activateMapGraphModifiers(this);
+    private void removeVertices(Collection<NetworkVertex> verticesToRemove) {
+        for (NetworkVertex vertex : verticesToRemove) {
+            vertices.remove(vertex.getIdentifier());
         }
+        graph.removeAllVertices(verticesToRemove);
+    }
 
+    private void addHexVertices(MapHex hex) {
+        // get Tile
+        Tile tile = hex.getCurrentTile();
+
+        // then get stations
+        Collection<Station> stations = tile.getStations();
+        // and add those to the mapGraph
+        for (Station station : stations) {
+            NetworkVertex stationVertex = new NetworkVertex(hex, station);
+            graph.addVertex(stationVertex);
+            vertices.put(stationVertex.getIdentifier(), stationVertex);
+            log.info("Added {}", stationVertex);
+        }
+
+        // get tracks per side to add that vertex
+        for (HexSide side : HexSide.all())
+            if (tile.hasTracks(side)) {
+                HexSide rotated = side.rotate(hex.getCurrentTileRotation());
+                NetworkVertex sideVertex = new NetworkVertex(hex, rotated);
+                graph.addVertex(sideVertex);
+                vertices.put(sideVertex.getIdentifier(), sideVertex);
+                log.info("Added {}", sideVertex);
+            }
+    }
+
+    private void addHexTracks(MapHex hex) {
+        // get Tile
+        Tile tile = hex.getCurrentTile();
+        // get Tracks
+        Set<Track> tracks = tile.getTracks();
+
+        for (Track track : tracks) {
+            NetworkVertex startVertex = getVertexRotated(hex, track.getStart());
+            NetworkVertex endVertex = getVertexRotated(hex, track.getEnd());
+            log.info("Track: {}", track);
+            NetworkEdge edge = new NetworkEdge(startVertex, endVertex, false);
+            if (startVertex == endVertex) {
+                log.error("Track {} on hex {}has identical start/end", track, hex);
+            } else {
+                graph.addEdge(startVertex, endVertex, edge);
+                log.info("Added non-greedy edge {}", edge.getConnection());
+            }
+        }
+    }
+
+    // TODO: Rewrite this by employing the features of Trackpoint
+    private void connectHexes(MapManager mapManager, MapHex hex, HexSide side) {
+        MapHex neighborHex = mapManager.getNeighbour(hex, side);
+        if (neighborHex == null) {
+            log.info("No connection for Hex {} at {}, No Neighbor", hex.getId(), hex.getOrientationName(side));
+            return;
+        }
+        NetworkVertex vertex = getVertex(hex, side);
+        HexSide rotated = side.opposite();
+        NetworkVertex otherVertex = getVertex(neighborHex, rotated);
+        if (vertex == null && otherVertex == null) {
+            log.info("Hex {} has no track at {}", hex.getId(), hex.getOrientationName(side));
+            log.info("And Hex {} has no track at {}", neighborHex.getId(), neighborHex.getOrientationName(rotated));
+            return;
+        } else if (vertex == null && otherVertex != null) {
+            log.info("Deadend connection for Hex {} at {}, NeighborHex {} has no track at side {}", neighborHex.getId(), neighborHex.getOrientationName(rotated), hex.getId(), hex.getOrientationName(side));
+            vertex = new NetworkVertex(hex, side);
+            graph.addVertex(vertex);
+            vertices.put(vertex.getIdentifier(), vertex);
+            log.info("Added deadend vertex {}", vertex);
+        } else if (otherVertex == null) {
+            log.info("Deadend connection for Hex {} at {}, NeighborHex {} has no track at side {}", hex.getId(), hex.getOrientationName(side), neighborHex.getId(), neighborHex.getOrientationName(rotated));
+            otherVertex = new NetworkVertex(neighborHex, rotated);
+            graph.addVertex(otherVertex);
+            vertices.put(otherVertex.getIdentifier(), otherVertex);
+            log.info("Added deadend vertex {}", otherVertex);
+        }
+        NetworkEdge edge = new NetworkEdge(vertex, otherVertex, true);
+        graph.addEdge(vertex, otherVertex,
+                edge);
+        log.info("Added greedy edge {}", edge.getConnection());
     }
 
     public void optimizeGraph() {
@@ -90,6 +90,29 @@ public final class NetworkVertex implements Comparable<NetworkVertex> {
         this.virtualId = name;
     }
 
+    /** constructor for copies, keeps the references to the rails objects */
+    private NetworkVertex(NetworkVertex vertex) {
+        this.type = vertex.type;
+        this.hex = vertex.hex;
+        this.trackPoint = vertex.trackPoint;
+        this.stop = vertex.stop;
+
+        this.virtual = vertex.virtual;
+        this.virtualId = vertex.virtualId;
+
+        this.stationType = vertex.stationType;
+        this.value = vertex.value;
+        this.sink = vertex.sink;
+        this.stopName = vertex.stopName;
+    }
+
+    /**
+     * creates a new vertex with identical properties (but without links)
+     */
+    NetworkVertex copyVertex() {
+        return new NetworkVertex(this);
+    }
+
     /** factory method for virtual vertex
      */
     public static NetworkVertex getVirtualVertex(VertexType type, String name) {
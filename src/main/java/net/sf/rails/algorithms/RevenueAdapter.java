@@ -10,8 +10,11 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 
+import net.sf.rails.common.Config;
 import net.sf.rails.common.LocalText;
 import net.sf.rails.game.MapHex;
 import net.sf.rails.game.Phase;
@@ -20,6 +23,8 @@ import net.sf.rails.game.RailsRoot;
 import net.sf.rails.game.Train;
 import net.sf.rails.ui.swing.hexmap.HexMap;
 
+import com.google.common.hash.HashCode;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.jgrapht.Graph;
@@ -33,6 +38,19 @@ import org.jgrapht.graph.SimpleGraph;
 public final class RevenueAdapter implements Runnable {
     private static final Logger log = LoggerFactory.getLogger(RevenueAdapter.class);
 
+    // configuration of the RevenueCache
+    public static final String CONFIG_CACHE_ENABLED = "revenue.cache.enabled";
+
+    // configuration of the parallel revenue search
+    public static final String CONFIG_PARALLEL_ENABLED = "revenue.parallel.enabled";
+    public static final String CONFIG_PARALLEL_THREADS = "revenue.parallel.threads";
+
+    // configuration of the search reductions (identical trains and warm start)
+    public static final String CONFIG_REDUCTIONS_ENABLED = "revenue.reductions.enabled";
+
+    // configuration of the primitive calls of dynamic modifiers (see RevenuePrimitiveModifier)
+    public static final String CONFIG_PRIMITIVE_ENABLED = "revenue.primitive.enabled";
+
     // define VertexVisitSet
     public static class VertexVisit {
         public Set<NetworkVertex> set;
@@ -77,9 +95,11 @@ public final class RevenueAdapter implements Runnable {
     private List<NetworkEdge> rcEdges;
     private List<RevenueTrainRun> optimalRun;
     private boolean hasDynamicModifiers;
+    private RevenueStatistics statistics;
 
     // revenue listener to communicate results
-    private RevenueListener revenueListener;
+    private volatile RevenueListener revenueListener;
+    private volatile boolean cancelled;
 
     public RevenueAdapter(RailsRoot root, NetworkAdapter networkAdapter,
             PublicCompany company, Phase phase){
@@ -130,6 +150,13 @@ public final class RevenueAdapter implements Runnable {
         return rcGraph;
     }
 
+    /**
+     * @return the vertices of the revenue calculator, indexed by their id
+     */
+    public List<NetworkVertex> getRCVertices() {
+        return Collections.unmodifiableList(rcVertices);
+    }
+
     public int getRCVertexId(NetworkVertex vertex) {
         return rcVertices.indexOf(vertex);
     }
@@ -524,8 +551,38 @@ public final class RevenueAdapter implements Runnable {
             }
         }
 
-        // activate dynamic modifiers
-        rc.setDynamicModifiers(hasDynamicModifiers);
+        // set identical trains (requires vertex values and bonuses)
+        boolean useReductions = Config.getBoolean(CONFIG_REDUCTIONS_ENABLED, true);
+        rc.setSearchReductions(useReductions);
+        if (useReductions) {
+            for (int trainId=1; trainId < trains.size(); trainId++) {
+                for (int previousId = trainId - 1; previousId >= 0; previousId--) {
+                    if (isIdenticalTrain(trains.get(trainId), trains.get(previousId))) {
+                        rc.setIdenticalTrain(trainId, previousId);
+                        break;
+                    }
+                }
+            }
+        }
+
+        // activate dynamic modifiers, list based calls only for those without primitive calls
+        if (hasDynamicModifiers) {
+            if (Config.getBoolean(CONFIG_PRIMITIVE_ENABLED, true)) {
+                rc.setPrimitiveModifiers(revenueManager.initPrimitiveModifiers(this));
+            }
+            rc.setDynamicModifiers(revenueManager.hasListDynamicModifiers());
+        }
+
+        // activate parallel search
+        int nbThreads = Config.getInt(CONFIG_PARALLEL_THREADS, Runtime.getRuntime().availableProcessors());
+        rc.setParallelSearch(Config.getBoolean(CONFIG_PARALLEL_ENABLED, false), nbThreads);
+    }
+
+    // trains of the same type with the same attributes, dynamic modifiers cannot distinguish those
+    private static boolean isIdenticalTrain(NetworkTrain train, NetworkTrain other) {
+        return Objects.equals(train.getTrainName(), other.getTrainName())
+                && train.getRailsTrainType() == other.getRailsTrainType()
+                && train.attributes().equals(other.attributes());
     }
 
     public int getVertexValue(NetworkVertex vertex, NetworkTrain train, Phase phase) {
@@ -602,12 +659,68 @@ public final class RevenueAdapter implements Runnable {
         }
         // the optimal run might change
         optimalRun = null;
+
+        // check for a stored result of an identical calculation
+        RevenueCache revenueCache = root.getRevenueCache();
+        HashCode fingerprint = null;
+        if (revenueCache != null && Config.getBoolean(CONFIG_CACHE_ENABLED, true)) {
+            List<?> activeModifiers = revenueManager == null ? Collections.emptyList()
+                    : revenueManager.getActiveModifiers();
+            fingerprint = RevenueCache.fingerprint(this, startTrain, finalTrain, activeModifiers);
+        }
+        if (fingerprint != null) {
+            RevenueCache.CachedRun cachedRun = revenueCache.get(fingerprint);
+            if (cachedRun != null) {
+                optimalRun = cachedRun.getOptimalRun();
+                recordStatistics(cachedRun.getValue(), true, 0, 0);
+                notifyRevenueListener(cachedRun.getValue(), true);
+                return cachedRun.getValue();
+            }
+        }
+
+        long start = System.nanoTime();
         rc.initRuns(startTrain, finalTrain);
         rc.executePredictions(startTrain, finalTrain);
+        long predictionNanos = System.nanoTime() - start;
         int value = rc.calculateRevenue(startTrain, finalTrain);
+        recordStatistics(value, false, predictionNanos, System.nanoTime() - start);
+
+        // runs without value are not stored, as their conversion can fail
+        if (fingerprint != null && value > 0) {
+            revenueCache.put(fingerprint, value, getOptimalRun());
+        }
         return value;
     }
 
+    private void recordStatistics(int value, boolean cached, long predictionNanos, long nanos) {
+        List<String> trainNames = new ArrayList<>();
+        for (NetworkTrain train:trains) {
+            trainNames.add(train.toString());
+        }
+        List<String> modifierNames = new ArrayList<>();
+        if (revenueManager != null) {
+            for (Object modifier:revenueManager.getActiveModifiers()) {
+                modifierNames.add(modifier.getClass().getSimpleName());
+            }
+        }
+        statistics = new RevenueStatistics(root.getGameName(), company.getId(),
+                phase == null ? null : phase.getId(), trainNames, modifierNames, useMultiGraph,
+                getGraph().vertexSet().size(), getGraph().edgeSet().size(),
+                rcVertices.size(), rcEdges.size(), cached, value,
+                cached ? 0 : rc.getNumberOfNodes(), cached ? 0 : rc.getNumberOfPrunes(),
+                cached ? 0 : rc.getNumberOfPredictions(), cached ? 0 : rc.getNumberOfEvaluations(),
+                cached ? 0 : rc.getNumberOfEdgesTravelled(), predictionNanos, nanos);
+        RevenueMonitor.getInstance().record(statistics);
+        log.debug("RA: {}", statistics);
+    }
+
+    /**
+     * @return statistics of the last revenue calculation, null if there was none
+     */
+    public RevenueStatistics getStatistics() {
+        return statistics;
+    }
+
     public  List<RevenueTrainRun> getOptimalRun() {
         if (optimalRun == null) {
             optimalRun = convertRcRun(rc.getOptimalRun());
@@ -649,19 +762,41 @@ public final class RevenueAdapter implements Runnable {
     }
 
     void notifyRevenueListener(final int revenue, final boolean finalResult) {
-        if (revenueListener == null) return;
+        if (revenueListener == null || cancelled) return;
 
         EventQueue.invokeLater(
                 new Runnable() {
                     public void run() {
-                        //listener could have deregistered himself in the meantime
-                        if (revenueListener != null) revenueListener.revenueUpdate(revenue, finalResult);
+                        //listener could have deregistered himself or the calculation got cancelled in the meantime
+                        RevenueListener listener = revenueListener;
+                        if (listener != null && !cancelled) listener.revenueUpdate(revenue, finalResult);
                     }
                 });
     }
 
     public void run() {
-        calculateRevenue(0, trains.size() -1);
+        if (cancelled) return;
+        try {
+            calculateRevenue(0, trains.size() -1);
+        } catch (CancellationException e) {
+            log.debug("Revenue calculation for {} cancelled", company);
+        }
+    }
+
+    /**
+     * Cancels a running calculation and drops all results not yet delivered to the listener.
+     * A cancelled adapter cannot be used again.
+     */
+    public void cancel() {
+        cancelled = true;
+        revenueListener = null;
+        if (rc != null) {
+            rc.cancel();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
     }
 
     public void removeRevenueListener() {
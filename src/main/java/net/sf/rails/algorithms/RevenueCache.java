@@ -0,0 +1,213 @@
+package net.sf.rails.algorithms;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.rails.game.Train;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * RevenueCache stores the results of revenue calculations of a RailsRoot.
+ * <p>
+ * The results are keyed by a fingerprint of the revenue adapter, which covers
+ * the company, the phase, the trains, the route graph (vertices with values and sinks, edges),
+ * the start vertices (tokens), visit sets, revenue bonuses and the classes of the active modifiers.
+ * Dynamic modifiers add their configuration and the state set by their preparation
+ * (see {@link RevenueDynamicModifier#getCacheKey()}),
+ * calculations with a dynamic modifier without cache key are not stored.
+ * <p>
+ * The number of entries is bounded, the least recently used entry is evicted first.
+ */
+public final class RevenueCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RevenueCache.class);
+
+    public static final int MAX_ENTRIES = 32;
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    static final class CachedRun {
+        private final int value;
+        private final List<RevenueTrainRun> optimalRun;
+
+        private CachedRun(int value, List<RevenueTrainRun> optimalRun) {
+            this.value = value;
+            this.optimalRun = optimalRun;
+        }
+
+        int getValue() {
+            return value;
+        }
+
+        List<RevenueTrainRun> getOptimalRun() {
+            return optimalRun;
+        }
+    }
+
+    private final Map<HashCode, CachedRun> entries = new LinkedHashMap<HashCode, CachedRun>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<HashCode, CachedRun> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private int hits;
+    private int misses;
+
+    private RevenueCache() {}
+
+    public static RevenueCache create() {
+        return new RevenueCache();
+    }
+
+    /**
+     * @return the stored result, null if there is none
+     */
+    synchronized CachedRun get(HashCode fingerprint) {
+        CachedRun cachedRun = entries.get(fingerprint);
+        if (cachedRun == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        log.debug("RevenueCache: {} for {}", cachedRun == null ? "miss" : "hit", fingerprint);
+        return cachedRun;
+    }
+
+    synchronized void put(HashCode fingerprint, int value, List<RevenueTrainRun> optimalRun) {
+        entries.put(fingerprint, new CachedRun(value, ImmutableList.copyOf(optimalRun)));
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Creates the fingerprint of a revenue adapter for the trains from startTrain to finalTrain.
+     * Sets of vertices, edges and bonuses are combined independent of their iteration order.
+     * @return null if an active dynamic modifier does not provide a cache key
+     */
+    static HashCode fingerprint(RevenueAdapter revenueAdapter, int startTrain, int finalTrain,
+            List<?> activeModifiers) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+
+        hasher.putUnencodedChars(revenueAdapter.getCompany().getId());
+        hasher.putUnencodedChars(revenueAdapter.getPhase().getId());
+        hasher.putInt(startTrain).putInt(finalTrain);
+
+        // trains (in sequence)
+        for (NetworkTrain train : revenueAdapter.getTrains()) {
+            hasher.putUnencodedChars(String.valueOf(train.getTrainName()));
+            hasher.putUnencodedChars(train.attributes());
+            hasher.putBoolean(train.isETrain());
+            Train railsTrain = train.getRailsTrain();
+            hasher.putUnencodedChars(railsTrain == null ? "" : railsTrain.getId());
+        }
+
+        // route graph
+        long vertexSum = 0;
+        for (NetworkVertex vertex : revenueAdapter.getVertices()) {
+            vertexSum += HASH_FUNCTION.newHasher()
+                    .putUnencodedChars(vertex.getIdentifier())
+                    .putInt(vertex.getValue())
+                    .putBoolean(vertex.isSink())
+                    .putBoolean(vertex.isMajor())
+                    .putBoolean(vertex.isMinor())
+                    .putUnencodedChars(String.valueOf(vertex.getStopName()))
+                    .hash().asLong();
+        }
+        long edgeSum = 0;
+        for (NetworkEdge edge : revenueAdapter.getEdges()) {
+            String source = edge.getSource().getIdentifier();
+            String target = edge.getTarget().getIdentifier();
+            boolean ordered = source.compareTo(target) <= 0;
+            Hasher edgeHasher = HASH_FUNCTION.newHasher()
+                    .putUnencodedChars(ordered ? source : target)
+                    .putUnencodedChars(ordered ? target : source)
+                    .putBoolean(edge.isGreedy())
+                    .putInt(edge.getDistance());
+            for (NetworkVertex hidden : edge.getHiddenVertices()) {
+                edgeHasher.putUnencodedChars(hidden.getIdentifier());
+            }
+            edgeSum += edgeHasher.hash().asLong();
+        }
+        hasher.putLong(vertexSum).putLong(edgeSum);
+
+        // start vertices (the tokens of the company)
+        hasher.putLong(identifierSum(revenueAdapter.getStartVertices()));
+
+        // visit sets and bonuses
+        long visitSum = 0;
+        for (RevenueAdapter.VertexVisit visit : revenueAdapter.getVertexVisitSets()) {
+            visitSum += HASH_FUNCTION.hashLong(identifierSum(visit.set)).asLong();
+        }
+        long bonusSum = 0;
+        for (RevenueBonus bonus : revenueAdapter.getRevenueBonuses()) {
+            Hasher bonusHasher = HASH_FUNCTION.newHasher()
+                    .putUnencodedChars(bonus.toString());
+            for (Train train : bonus.getTrains()) {
+                bonusHasher.putUnencodedChars(train.getId());
+            }
+            bonusSum += bonusHasher.hash().asLong();
+        }
+        hasher.putLong(visitSum).putLong(bonusSum);
+
+        // active modifiers
+        for (Object modifier : activeModifiers) {
+            // modifiers are configured by their class, their state is added by the cache key
+            hasher.putUnencodedChars(modifier.getClass().getName());
+            if (modifier instanceof RevenueDynamicModifier) {
+                String cacheKey = ((RevenueDynamicModifier) modifier).getCacheKey();
+                if (cacheKey == null) {
+                    log.debug("RevenueCache: no cache key for {}", modifier);
+                    return null;
+                }
+                hasher.putUnencodedChars(cacheKey);
+            }
+        }
+
+        return hasher.hash();
+    }
+
+    private static long identifierSum(Iterable<NetworkVertex> vertices) {
+        long sum = 0;
+        for (NetworkVertex vertex : vertices) {
+            sum += HASH_FUNCTION.hashUnencodedChars(vertex.getIdentifier()).asLong();
+        }
+        return sum;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("size", entries.size())
+                .add("hits", hits)
+                .add("misses", misses)
+                .toString();
+    }
+
+}
@@ -0,0 +1,91 @@
+package net.sf.rails.algorithms;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+
+/**
+ * RevenueCalculationService runs revenue calculations in the background
+ * on a bounded pool of threads.
+ * <p>
+ * Each requester (e.g. an ORPanel) has at most one current calculation:
+ * a new request cancels the previous one of the same requester,
+ * thus superseded calculations stop and their results are dropped.
+ * <p>
+ * This is a singleton class, as all requesters share the same pool.
+ */
+public final class RevenueCalculationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RevenueCalculationService.class);
+
+    private static RevenueCalculationService instance;
+
+    private final ExecutorService executor;
+
+    // current calculation for each requester
+    private final Map<Object, RevenueAdapter> requests = Maps.newHashMap();
+
+    private RevenueCalculationService() {
+        int nbThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        executor = Executors.newFixedThreadPool(nbThreads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "RevenueCalculation-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public static synchronized RevenueCalculationService getInstance() {
+        if (instance == null) instance = new RevenueCalculationService();
+        return instance;
+    }
+
+    /**
+     * Starts the calculation of the revenue adapter (which has to be initialized),
+     * a previous calculation of the requester is cancelled
+     */
+    public synchronized void submit(final Object requester, final RevenueAdapter revenueAdapter) {
+        cancel(requester);
+        requests.put(requester, revenueAdapter);
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    // cancelled requests waiting in the queue are skipped by the adapter
+                    revenueAdapter.run();
+                } catch (RuntimeException e) {
+                    log.error("Revenue calculation for {} failed", revenueAdapter.getCompany(), e);
+                } finally {
+                    finished(requester, revenueAdapter);
+                }
+            }
+        });
+        log.debug("Submitted revenue calculation for {}", revenueAdapter.getCompany());
+    }
+
+    /**
+     * Cancels the current calculation of the requester, if any
+     */
+    public synchronized void cancel(Object requester) {
+        RevenueAdapter previous = requests.remove(requester);
+        if (previous != null) {
+            previous.cancel();
+            log.debug("Cancelled revenue calculation for {}", previous.getCompany());
+        }
+    }
+
+    private synchronized void finished(Object requester, RevenueAdapter revenueAdapter) {
+        if (requests.get(requester) == revenueAdapter) {
+            requests.remove(requester);
+        }
+    }
+
+}
@@ -1,12 +1,29 @@
 package net.sf.rails.algorithms;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 abstract class RevenueCalculator {
 
+    // the search is only traced in the debug log if started with -Drevenue.trace=true
+    protected static final boolean TRACE = Boolean.getBoolean("revenue.trace");
+
+    // minimum number of vertexes for the greedy warm start
+    private static final int WARM_START_MIN_VERTEXES = 30;
+
     protected final int nbVertexes;
     protected final int nbTrains;
     protected final int nbEdges;
@@ -17,14 +34,24 @@ abstract class RevenueCalculator {
     protected final boolean[] vertexMajor;
     protected final boolean[] vertexMinor;
     protected final boolean[] vertexSink;
-    protected final int[] vertexNbNeighbors;
-    protected final int[] vertexNbVisitSets;
-    protected final int[] vertexNbBonusSets;
 
-    protected final int[][] vertexNeighbors;
-    protected final int[][] vertexEdges;
-    protected final int[][] vertexVisitSets; // vertex belongs to a visit set, dimension: nbVertex x maxVertexSets
-    protected final int[][] vertexBonusSets; // vertex belongs to a bonus set, dimension: nbVertex x nbBonuses
+    // vertex data during the setup, compacted by compactNetwork
+    private int[] vertexNbNeighbors;
+    private int[] vertexNbVisitSets;
+    private int[] vertexNbBonusSets;
+    private int[][] setupNeighbors;
+    private int[][] setupEdges;
+    private int[][] setupVisitSets; // vertex belongs to a visit set, dimension: nbVertex x maxVertexSets
+    private int[][] setupBonusSets; // vertex belongs to a bonus set, dimension: nbVertex x nbBonuses
+
+    // compacted vertex data: the entries of vertexId are at the positions from start[vertexId] to start[vertexId + 1] - 1
+    protected int[] vertexNeighborStart;
+    protected int[] vertexNeighbors;
+    protected int[] vertexEdges;
+    protected int[] vertexVisitSetStart;
+    protected int[] vertexVisitSets;
+    protected int[] vertexBonusSetStart;
+    protected int[] vertexBonusSets;
 
     // start vertexes
     protected int[] startVertexes;
@@ -40,18 +67,24 @@ abstract class RevenueCalculator {
     protected final boolean[] trainIgnoreMinors;
     protected final boolean[] trainIsH; // true => train is H-train
     protected final boolean[] trainIsE; // true => train is Express-train
+    protected final int[] trainIdenticalTo; // previous identical train, -1 if none
 
     // dynamic train data
     protected final int[] trainCurrentValue;
     protected final int[] trainMajors;
     protected final int[] trainMinors;
     protected final int[] trainBonuses; // counts the number of bonuses received
-    protected final boolean[][] trainVisited;
+    protected final int nbVisitedWords;
+    protected final long[] trainVisited; // bitset of visited vertices, nbVisitedWords per train
     protected final int[][] trainStack; // store either vertices or edges
     protected final int[] trainStackPos;
     protected final boolean [] trainBottomActive;
     protected final int [] trainStartEdge;
     protected final int[] trainDistance; // keeps track of distance travelled (for H-trains)
+    protected final int[][] trainVertices; // vertices of the current run in the order of arrival
+    protected final int[] trainVerticesPos;
+    protected final int[] trainBottomPos; // position of the first bottom vertex in trainVertices, -1 if none
+    protected final int[] trainStartIndex; // index of the current start vertex, nb of start vertexes if the train does not run
 
     // static bonus data
     protected final int [] bonusValue;
@@ -67,11 +100,29 @@ abstract class RevenueCalculator {
     protected int startTrain;
     protected int finalTrain;
     protected boolean useRevenuePrediction;
+    protected boolean useParallelSearch;
+    protected int nbParallelThreads;
+    protected boolean useSearchReductions;
+
+    // greedy warm start data (only used before the search, thus not copied to workers)
+    private boolean warmStart;
+    private boolean[] warmStartReplay;
+    private boolean[] warmStartFound;
+    private int[] warmStartValue;
+    private int[] warmStartLength;
+    private int[] warmStartBottom;
+    private int[][] warmStartRun;
 
     // current best run results
     protected int currentBestValue;
     protected final int [][] currentBestRun;
 
+    // best value shared between parallel workers (null if running sequentially)
+    protected AtomicInteger sharedBestValue;
+
+    // cancellation flag shared with the parallel workers
+    protected final AtomicBoolean cancelled;
+
     // prediction data
     protected int[] maxCumulatedTrainRevenues;
     protected int[][] maxMajorRevenues; // dimensions trainId x nb vertex;
@@ -84,13 +135,19 @@ abstract class RevenueCalculator {
     protected int nbEdgesTravelled;
     protected int nbEvaluations;
     protected int nbPredictions;
+    protected long nbNodes; // vertices entered
+    protected long nbPrunes; // predictions that terminated the run
 
     // revenue Adapter
     protected RevenueAdapter revenueAdapter;
 
-    // activate dynamic revenue modifiers
+    // activate dynamic revenue modifiers (list based calls)
     protected boolean callDynamicModifiers;
 
+    // dynamic revenue modifiers with primitive calls
+    protected RevenuePrimitiveModifier[] primitiveModifiers;
+    protected final RevenueRunState runState;
+
     // termination results
     protected static enum Terminated {
         WITH_EVALUATION,
@@ -100,6 +157,9 @@ abstract class RevenueCalculator {
 
     private static final Logger log = LoggerFactory.getLogger(RevenueCalculator.class);
 
+    // fork-join pools of the parallel search, shared by all calculations, one per number of threads
+    private static final ConcurrentMap<Integer, ForkJoinPool> pools = new ConcurrentHashMap<>();
+
 
     public RevenueCalculator (RevenueAdapter revenueAdapter, int nbVertexes, int nbEdges,
             int maxNeighbors, int maxVertexSets, int maxEdgeSets, int nbTrains, int nbBonuses) {
@@ -120,10 +180,10 @@ abstract class RevenueCalculator {
         vertexNbNeighbors = new int[nbVertexes];
         vertexNbVisitSets = new int[nbVertexes];
         vertexNbBonusSets = new int[nbVertexes];
-        vertexNeighbors = new int[nbVertexes][maxNeighbors];
-        vertexEdges = new int[nbVertexes][maxNeighbors];
-        vertexVisitSets = new int[nbVertexes][maxVertexSets];
-        vertexBonusSets = new int[nbVertexes][nbBonuses];
+        setupNeighbors = new int[nbVertexes][maxNeighbors];
+        setupEdges = new int[nbVertexes][maxNeighbors];
+        setupVisitSets = new int[nbVertexes][maxVertexSets];
+        setupBonusSets = new int[nbVertexes][nbBonuses];
 
         edgeGreedy = new boolean[nbEdges];
         edgeDistance = new int[nbEdges];
@@ -134,18 +194,25 @@ abstract class RevenueCalculator {
         trainIgnoreMinors = new boolean[nbTrains];
         trainIsH = new boolean[nbTrains];
         trainIsE = new boolean[nbTrains];
+        trainIdenticalTo = new int[nbTrains];
+        Arrays.fill(trainIdenticalTo, -1);
 
         trainCurrentValue = new int[nbTrains];
         trainMajors = new int[nbTrains];
         trainMinors = new int[nbTrains];
         trainBonuses = new int[nbTrains];
-        trainVisited = new boolean[nbTrains][nbVertexes];
+        nbVisitedWords = (nbVertexes + 63) >>> 6;
+        trainVisited = new long[nbTrains * nbVisitedWords];
         // increase necessary due to buttom train
         trainStack = new int[nbTrains][nbVertexes + 1];
         trainStackPos = new int[nbTrains];
         trainBottomActive = new boolean[nbTrains];
         trainStartEdge = new int[nbTrains];
         trainDistance = new int[nbTrains];
+        trainVertices = new int[nbTrains][nbVertexes + 1];
+        trainVerticesPos = new int[nbTrains];
+        trainBottomPos = new int[nbTrains];
+        trainStartIndex = new int[nbTrains];
         maxCumulatedTrainRevenues = new int[nbTrains];
 
         bonusValue = new int[nbBonuses];
@@ -156,8 +223,152 @@ abstract class RevenueCalculator {
         currentBestRun = new int[nbTrains][nbVertexes + 1];
 
         useRevenuePrediction = false;
+        useParallelSearch = false;
+        useSearchReductions = false;
 
         callDynamicModifiers = false;
+        primitiveModifiers = new RevenuePrimitiveModifier[0];
+        runState = new RevenueRunState(this);
+
+        cancelled = new AtomicBoolean(false);
+    }
+
+    /**
+     * Creates a worker copy for the parallel search:
+     * static data and prediction data are shared, dynamic data is copied
+     */
+    protected RevenueCalculator(RevenueCalculator template) {
+        this.revenueAdapter = template.revenueAdapter;
+        this.nbVertexes = template.nbVertexes;
+        this.nbEdges = template.nbEdges;
+        this.nbTrains = template.nbTrains;
+        this.nbBonuses = template.nbBonuses;
+
+        // static data
+        vertexValueByTrain = template.vertexValueByTrain;
+        vertexMajor = template.vertexMajor;
+        vertexMinor = template.vertexMinor;
+        vertexSink = template.vertexSink;
+        vertexNeighborStart = template.vertexNeighborStart;
+        vertexNeighbors = template.vertexNeighbors;
+        vertexEdges = template.vertexEdges;
+        vertexVisitSetStart = template.vertexVisitSetStart;
+        vertexVisitSets = template.vertexVisitSets;
+        vertexBonusSetStart = template.vertexBonusSetStart;
+        vertexBonusSets = template.vertexBonusSets;
+        startVertexes = template.startVertexes;
+
+        edgeGreedy = template.edgeGreedy;
+        edgeDistance = template.edgeDistance;
+
+        trainMaxMajors = template.trainMaxMajors;
+        trainMaxMinors = template.trainMaxMinors;
+        trainMaxBonuses = template.trainMaxBonuses;
+        trainIgnoreMinors = template.trainIgnoreMinors;
+        trainIsH = template.trainIsH;
+        trainIsE = template.trainIsE;
+        trainIdenticalTo = template.trainIdenticalTo;
+
+        bonusValue = template.bonusValue;
+        bonusRequiresVertices = template.bonusRequiresVertices;
+        bonusActiveForTrain = template.bonusActiveForTrain;
+
+        // dynamic data
+        trainCurrentValue = template.trainCurrentValue.clone();
+        trainMajors = template.trainMajors.clone();
+        trainMinors = template.trainMinors.clone();
+        trainBonuses = template.trainBonuses.clone();
+        nbVisitedWords = template.nbVisitedWords;
+        trainVisited = template.trainVisited.clone();
+        trainStack = copyOf(template.trainStack);
+        trainStackPos = template.trainStackPos.clone();
+        trainBottomActive = template.trainBottomActive.clone();
+        trainStartEdge = template.trainStartEdge.clone();
+        trainDistance = template.trainDistance.clone();
+        trainVertices = copyOf(template.trainVertices);
+        trainVerticesPos = template.trainVerticesPos.clone();
+        trainBottomPos = template.trainBottomPos.clone();
+        trainStartIndex = template.trainStartIndex.clone();
+        bonusTrainVertices = copyOf(template.bonusTrainVertices);
+
+        // run settings
+        startTrainSet = template.startTrainSet;
+        finalTrainSet = template.finalTrainSet;
+        startTrain = template.startTrain;
+        finalTrain = template.finalTrain;
+        useRevenuePrediction = template.useRevenuePrediction;
+        useParallelSearch = false;
+        useSearchReductions = template.useSearchReductions;
+
+        // results
+        currentBestValue = template.currentBestValue;
+        currentBestRun = copyOf(template.currentBestRun);
+        sharedBestValue = template.sharedBestValue;
+        cancelled = template.cancelled;
+
+        // prediction data (read-only during the search)
+        maxCumulatedTrainRevenues = template.maxCumulatedTrainRevenues;
+        maxMajorRevenues = template.maxMajorRevenues;
+        maxMinorRevenues = template.maxMinorRevenues;
+        maxBonusRevenues = template.maxBonusRevenues;
+
+        callDynamicModifiers = template.callDynamicModifiers;
+        primitiveModifiers = template.primitiveModifiers;
+        runState = new RevenueRunState(this);
+    }
+
+    private static int[][] copyOf(int[][] array) {
+        int[][] copy = new int[array.length][];
+        for (int i=0; i < array.length; i++) {
+            copy[i] = array[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Copies rows of different lengths into one array
+     * @param start is filled with the start position of each row, requires length rows + 1
+     */
+    protected static int[] compactRows(int[][] rows, int[] rowLengths, int[] start) {
+        start[0] = 0;
+        for (int i=0; i < rowLengths.length; i++) {
+            start[i + 1] = start[i] + rowLengths[i];
+        }
+        int[] compacted = new int[start[rowLengths.length]];
+        for (int i=0; i < rowLengths.length; i++) {
+            System.arraycopy(rows[i], 0, compacted, start[i], rowLengths[i]);
+        }
+        return compacted;
+    }
+
+    /**
+     * Compacts the vertex data after the setup, called once before the first run.
+     * Afterwards the network cannot be changed anymore.
+     */
+    protected void compactNetwork() {
+        vertexNeighborStart = new int[nbVertexes + 1];
+        vertexNeighbors = compactRows(setupNeighbors, vertexNbNeighbors, vertexNeighborStart);
+        vertexEdges = compactRows(setupEdges, vertexNbNeighbors, vertexNeighborStart);
+        vertexVisitSetStart = new int[nbVertexes + 1];
+        vertexVisitSets = compactRows(setupVisitSets, vertexNbVisitSets, vertexVisitSetStart);
+        vertexBonusSetStart = new int[nbVertexes + 1];
+        vertexBonusSets = compactRows(setupBonusSets, vertexNbBonusSets, vertexBonusSetStart);
+
+        // release the setup data
+        vertexNbNeighbors = null; vertexNbVisitSets = null; vertexNbBonusSets = null;
+        setupNeighbors = null; setupEdges = null; setupVisitSets = null; setupBonusSets = null;
+    }
+
+    protected final boolean isVisited(final int trainId, final int vertexId) {
+        return (trainVisited[trainId * nbVisitedWords + (vertexId >>> 6)] & (1L << vertexId)) != 0;
+    }
+
+    protected final void setVisited(final int trainId, final int vertexId, final boolean visited) {
+        if (visited) {
+            trainVisited[trainId * nbVisitedWords + (vertexId >>> 6)] |= 1L << vertexId;
+        } else {
+            trainVisited[trainId * nbVisitedWords + (vertexId >>> 6)] &= ~(1L << vertexId);
+        }
     }
 
     final void setVertex(int id, boolean major, boolean minor, boolean sink) {
@@ -177,8 +388,8 @@ abstract class RevenueCalculator {
     final void setVertexNeighbors(int id, int[] neighbors, int[] edges) {
         // copy neighbors
         for (int j=0; j < neighbors.length; j++) {
-                vertexNeighbors[id][j] = neighbors[j];
-                vertexEdges[id][j] = edges[j];
+                setupNeighbors[id][j] = neighbors[j];
+                setupEdges[id][j] = edges[j];
         }
         vertexNbNeighbors[id] = neighbors.length;
 
@@ -210,7 +421,7 @@ abstract class RevenueCalculator {
             int vertexId = vertices[j];
             for (int k=0; k < vertices.length; k++) {
                 if (k == j) continue;
-                vertexVisitSets[vertexId][vertexNbVisitSets[vertexId]++] = vertices[k];
+                setupVisitSets[vertexId][vertexNbVisitSets[vertexId]++] = vertices[k];
             }
         }
     }
@@ -222,7 +433,7 @@ abstract class RevenueCalculator {
         bonusValue[id] = value;
         bonusRequiresVertices[id] = vertices.length;
         for ( int vertexId : vertices ) {
-            vertexBonusSets[vertexId][vertexNbBonusSets[vertexId]++] = id;
+            setupBonusSets[vertexId][vertexNbBonusSets[vertexId]++] = id;
         }
         bonusActiveForTrain[id] = bonusForTrain;
     }
@@ -231,6 +442,55 @@ abstract class RevenueCalculator {
         callDynamicModifiers = activate;
     }
 
+    final void setPrimitiveModifiers(RevenuePrimitiveModifier[] modifiers) {
+        primitiveModifiers = modifiers;
+    }
+
+    final void setParallelSearch(boolean activate, int nbThreads) {
+        useParallelSearch = activate;
+        nbParallelThreads = nbThreads;
+    }
+
+    final void setSearchReductions(boolean activate) {
+        useSearchReductions = activate;
+    }
+
+    /**
+     * Defines that a train is identical to a previous train, thus only one of the permutations
+     * of their runs has to be searched.
+     * Requires that vertex values and bonuses are already set, as those have to be identical as well.
+     * @return true if the trains are identical for the revenue calculator
+     */
+    final boolean setIdenticalTrain(int id, int previousId) {
+        boolean identical = trainMaxMajors[id] == trainMaxMajors[previousId]
+                && trainMaxMinors[id] == trainMaxMinors[previousId]
+                && trainIgnoreMinors[id] == trainIgnoreMinors[previousId]
+                && trainIsH[id] == trainIsH[previousId]
+                && trainIsE[id] == trainIsE[previousId];
+        for (int v=0; identical && v < nbVertexes; v++) {
+            identical = vertexValueByTrain[v][id] == vertexValueByTrain[v][previousId];
+        }
+        for (int b=0; identical && b < nbBonuses; b++) {
+            identical = bonusActiveForTrain[b][id] == bonusActiveForTrain[b][previousId];
+        }
+        trainIdenticalTo[id] = identical ? previousId : -1;
+        log.debug("RC: train {} identical to train {} = {}", id, previousId, identical);
+        return identical;
+    }
+
+    /**
+     * Cancels the running calculation: the search stops at the next vertex
+     * and calculateRevenue throws a CancellationException.
+     * A cancelled calculator cannot be used again.
+     */
+    final void cancel() {
+        cancelled.set(true);
+    }
+
+    final boolean isCancelled() {
+        return cancelled.get();
+    }
+
     final int[][] getOptimalRun() {
         log.debug("RC: currentBestRun = {}", Arrays.deepToString(currentBestRun));
         return currentBestRun;
@@ -255,11 +515,28 @@ abstract class RevenueCalculator {
         return nbEvaluations;
     }
 
+    final int getNumberOfPredictions() {
+        return nbPredictions;
+    }
+
+    final long getNumberOfNodes() {
+        return nbNodes;
+    }
+
+    final long getNumberOfPrunes() {
+        return nbPrunes;
+    }
+
+    final int getNumberOfEdgesTravelled() {
+        return nbEdgesTravelled;
+    }
+
     final String getStatistics() {
         StringBuilder statistics = new StringBuilder();
-        statistics.append(nbEvaluations).append(" evaluations");
+        statistics.append(nbEvaluations).append(" evaluations, ").append(nbNodes).append(" nodes");
         if (useRevenuePrediction)
-            statistics.append(", ").append(nbPredictions).append(" predictions");
+            statistics.append(", ").append(nbPredictions).append(" predictions (")
+                    .append(nbPrunes).append(" prunes)");
         statistics.append(" and ").append(nbEdgesTravelled).append(" edges travelled.");
         return statistics.toString();
     }
@@ -270,7 +547,9 @@ abstract class RevenueCalculator {
             modifier = "final";
         else
             modifier = "new best";
-        log.debug("Report {} result of {} after {}", modifier, revenue, getStatistics());
+        if (log.isDebugEnabled()) {
+            log.debug("Report {} result of {} after {}", modifier, revenue, getStatistics());
+        }
         revenueAdapter.notifyRevenueListener(revenue, finalResult);
     }
 
@@ -333,9 +612,13 @@ abstract class RevenueCalculator {
         log.debug("RC: init runs from {} to {}", startTrain, finalTrain);
         if (startTrain > finalTrain) return;
 
+        if (vertexNeighborStart == null) compactNetwork();
+
         this.startTrainSet = startTrain;
         this.finalTrainSet = finalTrain;
 
+        nbEvaluations = 0; nbPredictions = 0; nbEdgesTravelled = 0; nbNodes = 0; nbPrunes = 0;
+
         // initialize all trains and currentValues
         for (int i = startTrain; i < finalTrain; i++) {
             currentBestRun[i][0] = -1;
@@ -356,8 +639,6 @@ abstract class RevenueCalculator {
         }
 
         // start prediction runs
-        nbEvaluations = 0; nbPredictions = 0; nbEdgesTravelled = 0;
-
         log.info("RC: start individual prediction Runs");
         int[] maxSingleTrainRevenues = new int[nbTrains];
         for (int j = startTrain; j <= finalTrain; j++) {
@@ -396,7 +677,18 @@ abstract class RevenueCalculator {
         this.startTrain = startTrain;
         this.finalTrain = finalTrain;
 
-        runTrain(startTrain);
+        // a greedy run of all trains seeds the best value for the pruning, on small networks it costs more than it saves
+        if (useSearchReductions && useRevenuePrediction && startTrain < finalTrain && nbVertexes >= WARM_START_MIN_VERTEXES) {
+            runWarmStart();
+        }
+
+        // dynamic modifiers evaluate the current run of this instance, thus no workers possible
+        if (useParallelSearch && nbParallelThreads > 1 && !callDynamicModifiers
+                && primitiveModifiers.length == 0 && startVertexes.length > 1) {
+            runTrainParallel(startTrain);
+        } else {
+            runTrain(startTrain);
+        }
 
         // inform revenue listener via adapter
         notifyRevenueAdapter(currentBestValue, true);
@@ -404,8 +696,195 @@ abstract class RevenueCalculator {
         return currentBestValue;
     }
 
+    /**
+     * Greedy warm start: each train takes its best run given the runs of the previous trains.
+     * The resulting run is feasible, thus its value is a lower bound for the optimal run.
+     * The exhaustive search afterwards only replaces it by strictly better runs.
+     */
+    private void runWarmStart() {
+        warmStartReplay = new boolean[nbTrains];
+        warmStartFound = new boolean[nbTrains];
+        warmStartValue = new int[nbTrains];
+        warmStartLength = new int[nbTrains];
+        warmStartBottom = new int[nbTrains];
+        warmStartRun = new int[nbTrains][nbVertexes + 1];
+
+        warmStart = true;
+        try {
+            runWarmStartTrain(startTrain);
+        } finally {
+            warmStart = false;
+        }
+        log.debug("RC: warm start value = {} after {}", currentBestValue, getStatistics());
+    }
+
+    /**
+     * The non-final trains are searched twice: the first pass finds the best run of the train,
+     * the second pass restores that run and continues with the next train.
+     */
+    private void runWarmStartTrain(final int trainId) {
+        if (trainId == finalTrain) {
+            runTrain(trainId);
+            return;
+        }
+        warmStartReplay[trainId] = false;
+        warmStartValue[trainId] = -1;
+        runTrain(trainId);
+
+        warmStartReplay[trainId] = true;
+        warmStartFound[trainId] = false;
+        runTrain(trainId);
+    }
+
+    private void warmStartVertex(final int trainId) {
+        int length = trainVerticesPos[trainId];
+        if (!warmStartReplay[trainId]) {
+            if (trainCurrentValue[trainId] > warmStartValue[trainId]) {
+                warmStartValue[trainId] = trainCurrentValue[trainId];
+                warmStartLength[trainId] = length;
+                warmStartBottom[trainId] = trainBottomPos[trainId];
+                System.arraycopy(trainVertices[trainId], 0, warmStartRun[trainId], 0, length);
+            }
+        } else if (!warmStartFound[trainId] && length == warmStartLength[trainId]
+                && trainBottomPos[trainId] == warmStartBottom[trainId]
+                && Arrays.equals(trainVertices[trainId], 0, length, warmStartRun[trainId], 0, length)) {
+            warmStartFound[trainId] = true;
+            runWarmStartTrain(trainId + 1);
+        }
+    }
+
+    /**
+     * Splits the search of the first train by its start vertexes into fork-join tasks.
+     * Each task uses its own worker copy, the best value found so far is shared for pruning.
+     * The results are merged in the order of the sequential search, thus the revenue
+     * is identical to the one of runTrain. The optimal run can differ from the one of runTrain
+     * if several runs reach that revenue, as the shared value prunes other branches.
+     */
+    private void runTrainParallel(final int trainId) {
+        if (TRACE) log.debug("RC: runTrainParallel {} with {} threads", trainId, nbParallelThreads);
+
+        initTrain(trainId);
+
+        // check if the revenue is enough
+        if (useRevenuePrediction && predictRevenues(trainId))
+            return;
+
+        sharedBestValue = new AtomicInteger(currentBestValue);
+
+        // one task per start vertex, the final task covers that the train does not run at all
+        List<RevenueCalculator> workers = new ArrayList<>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i=0; i <= startVertexes.length; i++) {
+            final RevenueCalculator worker = createWorker();
+            final int startIndex = i;
+            workers.add(worker);
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    worker.runStartTask(trainId, startIndex);
+                    return null;
+                }
+            });
+        }
+
+        ForkJoinPool pool = pools.computeIfAbsent(nbParallelThreads, ForkJoinPool::new);
+        try {
+            for (Future<Void> result:pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            // the partial results of the workers are not optimal, thus handled as cancellation
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("RC: revenue calculation interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                throw (CancellationException) e.getCause();
+            }
+            throw new IllegalStateException("RC: parallel revenue calculation failed", e.getCause());
+        } finally {
+            sharedBestValue = null;
+        }
+
+        // merge in sequential order: only strictly better runs replace earlier ones
+        for (RevenueCalculator worker:workers) {
+            nbEvaluations += worker.nbEvaluations;
+            nbPredictions += worker.nbPredictions;
+            nbEdgesTravelled += worker.nbEdgesTravelled;
+            nbNodes += worker.nbNodes;
+            nbPrunes += worker.nbPrunes;
+            if (worker.currentBestValue > currentBestValue) {
+                currentBestValue = worker.currentBestValue;
+                for (int j = startTrainSet; j <= finalTrainSet; j++) {
+                    System.arraycopy(worker.currentBestRun[j], 0, currentBestRun[j], 0, nbVertexes + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the part of the first train search of the given start vertex,
+     * startIndex equal to the number of start vertexes runs the final step without train run
+     */
+    private void runStartTask(final int trainId, final int startIndex) {
+        if (startIndex == startVertexes.length) {
+            finalizeVertex(trainId, -1);
+            return;
+        }
+        // previous start vertexes are kept on the visited vertex list to avoid route duplication
+        for (int i=0; i < startIndex; i++) {
+            setVisited(trainId, startVertexes[i], true);
+        }
+        trainStartIndex[trainId] = startIndex;
+        runStartVertex(trainId, startIndex);
+    }
+
+    /**
+     * Returns the index of the first start vertex for the train.
+     *
+     * Each run is found from the first start vertex it contains (as previous start vertexes
+     * are kept on the visited vertex list). Thus a train that is identical to a previous train
+     * of the current train set only starts at or after the start vertex of that train,
+     * and does not run if that train does not run. This leaves one of the permutations of the runs.
+     * The start vertexes skipped are marked as visited.
+     */
+    protected final int firstStartIndex(final int trainId) {
+        int previousId = trainIdenticalTo[trainId];
+        if (!useSearchReductions || previousId < startTrain) return 0;
+
+        int firstIndex = trainStartIndex[previousId];
+        for (int i=0; i < firstIndex; i++) {
+            setVisited(trainId, startVertexes[i], true);
+        }
+        return firstIndex;
+    }
+
+    protected abstract RevenueCalculator createWorker();
+
+    protected void initTrain(final int trainId) {
+        // initialize value
+        trainCurrentValue[trainId] = 0;
+
+        // initialize train lengths
+        trainMajors[trainId] = trainMaxMajors[trainId];
+        trainMinors[trainId] = trainMaxMinors[trainId];
+        trainBonuses[trainId] = trainMaxBonuses[trainId];
+
+        // initialize the positions
+        trainStackPos[trainId] = 0;
+        trainBottomActive[trainId] = false;
+        trainVerticesPos[trainId] = 0;
+        trainBottomPos[trainId] = -1;
+
+        // initialize bonuses
+        for (int b=0; b < nbBonuses; b++) {
+            bonusTrainVertices[b][trainId] = bonusRequiresVertices[b];
+        }
+    }
+
     protected abstract void runTrain(final int trainId);
 
+    protected abstract void runStartVertex(final int trainId, final int startIndex);
+
     protected abstract void runBottom(final int trainId);
 
 
@@ -415,10 +894,15 @@ abstract class RevenueCalculator {
 
     protected final boolean encounterVertex(final int trainId, final int vertexId, final boolean arrive) {
 
-        log.debug("RC: EncounterVertex, trainId = {} vertexId = {} arrive = {}", trainId, vertexId, arrive);
+        if (TRACE) log.debug("RC: EncounterVertex, trainId = {} vertexId = {} arrive = {}", trainId, vertexId, arrive);
+
+        // cooperative cancellation, checked before the dynamic data is changed
+        if (arrive && cancelled.get()) {
+            throw new CancellationException("RC: revenue calculation cancelled");
+        }
 
         // set visit to true if arriving, otherwise you leave
-        trainVisited[trainId][vertexId] = arrive;
+        setVisited(trainId, vertexId, arrive);
 
         boolean stationVertex = false;
         if (arrive) {
@@ -431,6 +915,12 @@ abstract class RevenueCalculator {
                 stationVertex = !trainIgnoreMinors[trainId];
             }
             countVisits++;
+            nbNodes++;
+            // the first vertex after the bottom restart starts the bottom part
+            if (trainBottomActive[trainId] && trainBottomPos[trainId] < 0) {
+                trainBottomPos[trainId] = trainVerticesPos[trainId];
+            }
+            trainVertices[trainId][trainVerticesPos[trainId]++] = vertexId;
         } else {
             trainCurrentValue[trainId] -= vertexValueByTrain[vertexId][trainId];
             if (vertexMajor[vertexId]) {
@@ -441,39 +931,51 @@ abstract class RevenueCalculator {
                 stationVertex = !trainIgnoreMinors[trainId];
             }
             countVisits--;
+            if (--trainVerticesPos[trainId] == trainBottomPos[trainId]) {
+                trainBottomPos[trainId] = -1;
+            }
         }
 
         // check vertex sets
-        for (int j=0; j < vertexNbVisitSets[vertexId]; j++) {
-            trainVisited[trainId][vertexVisitSets[vertexId][j]] = arrive;
-            log.debug("RC: visited = {} for vertex {} due to block rule", arrive, vertexVisitSets[vertexId][j]);
+        for (int j = vertexVisitSetStart[vertexId]; j < vertexVisitSetStart[vertexId + 1]; j++) {
+            setVisited(trainId, vertexVisitSets[j], arrive);
+            if (TRACE) log.debug("RC: visited = {} for vertex {} due to block rule", arrive, vertexVisitSets[j]);
         }
 
         // check bonus sets
-        for (int j=0; j < vertexNbBonusSets[vertexId]; j++) {
-            int bonusId = vertexBonusSets[vertexId][j];
+        for (int j = vertexBonusSetStart[vertexId]; j < vertexBonusSetStart[vertexId + 1]; j++) {
+            int bonusId = vertexBonusSets[j];
             if (!bonusActiveForTrain[bonusId][trainId]) continue;
             if (arrive) {
                 bonusTrainVertices[bonusId][trainId]--;
-                log.debug("RC: Decreased bonus {} to {}", bonusId, bonusTrainVertices[bonusId][trainId]);
+                if (TRACE) log.debug("RC: Decreased bonus {} to {}", bonusId, bonusTrainVertices[bonusId][trainId]);
                 if (bonusTrainVertices[bonusId][trainId] == 0) {
                    trainCurrentValue[trainId] += bonusValue[bonusId];
                    if (bonusValue[bonusId] > 0) trainBonuses[trainId]--;
-                    log.debug("RC: Added bonus {} with value {}", bonusId, bonusValue[bonusId]);
+                    if (TRACE) log.debug("RC: Added bonus {} with value {}", bonusId, bonusValue[bonusId]);
                 }
             } else {
                 if (bonusTrainVertices[bonusId][trainId] == 0) {
                     trainCurrentValue[trainId] -= bonusValue[bonusId];
                     if (bonusValue[bonusId] > 0) trainBonuses[trainId]++;
-                    log.debug("RC: Removed bonus {} with value {}", bonusId, bonusValue[bonusId]);
+                    if (TRACE) log.debug("RC: Removed bonus {} with value {}", bonusId, bonusValue[bonusId]);
                  }
                 bonusTrainVertices[bonusId][trainId]++;
-                log.debug("RC: Increases bonus {} to {}", bonusId, bonusTrainVertices[bonusId][trainId]);
+                if (TRACE) log.debug("RC: Increases bonus {} to {}", bonusId, bonusTrainVertices[bonusId][trainId]);
+            }
+        }
+
+        // inform primitive modifiers
+        for (RevenuePrimitiveModifier modifier : primitiveModifiers) {
+            if (arrive) {
+                modifier.vertexEntered(trainId, vertexId);
+            } else {
+                modifier.vertexLeft(trainId, vertexId);
             }
         }
 
-        log.debug("RC: stationVertex = {}", stationVertex);
-        log.debug("RC: Count Visits = {}", countVisits);
+        if (TRACE) log.debug("RC: stationVertex = {}", stationVertex);
+        if (TRACE) log.debug("RC: Count Visits = {}", countVisits);
         return stationVertex;
     }
 
@@ -496,16 +998,22 @@ abstract class RevenueCalculator {
                 terminated = Terminated.WITH_EVALUATION;
         }
         if (terminated != Terminated.NOT_YET ) {
-            log.debug("RC: Train {} has terminated: majors = {} minors = {}", trainId, trainMajors[trainId], trainMinors[trainId]);
+            if (TRACE) log.debug("RC: Train {} has terminated: majors = {} minors = {}", trainId, trainMajors[trainId], trainMinors[trainId]);
         }
         return terminated;
     }
 
     protected final void finalizeVertex(final int trainId, final int vertexId) {
-        log.debug("RC: Finalize Vertex id {} for train {}", vertexId, trainId);
+        if (TRACE) log.debug("RC: Finalize Vertex id {} for train {}", vertexId, trainId);
+
+        if (vertexId == -1) {
+            trainStartIndex[trainId] = startVertexes.length;
+        }
 
         if (trainId == finalTrain) {
             evaluateResults();
+        } else if (warmStart) {
+            warmStartVertex(trainId);
         } else {
             runTrain(trainId + 1);
         }
@@ -527,9 +1035,12 @@ abstract class RevenueCalculator {
         }
 
         if (callDynamicModifiers) totalValue += revenueAdapter.dynamicEvaluation();
+        for (RevenuePrimitiveModifier modifier : primitiveModifiers) {
+            totalValue += modifier.evaluationValue(runState);
+        }
 
         nbEvaluations++;
-        log.debug("RC: current total value {}", totalValue);
+        if (TRACE) log.debug("RC: current total value {}", totalValue);
 
         // compare to current best result
         if (totalValue > currentBestValue) {
@@ -545,9 +1056,14 @@ abstract class RevenueCalculator {
                     }
                 }
             }
-            log.debug("RC: Found better run with {}", totalValue);
-            // inform revenue listener via adapter
-            notifyRevenueAdapter(currentBestValue, false);
+            if (TRACE) log.debug("RC: Found better run with {}", totalValue);
+            if (sharedBestValue == null) {
+                // inform revenue listener via adapter
+                notifyRevenueAdapter(currentBestValue, false);
+            } else if (sharedBestValue.getAndAccumulate(totalValue, Math::max) < totalValue) {
+                // inform revenue listener only if the overall best value has improved
+                notifyRevenueAdapter(totalValue, false);
+            }
         }
     }
 
@@ -579,7 +1095,7 @@ abstract class RevenueCalculator {
         if (trainBonuses[trainId] != 0) {
             trainValue += maxBonusRevenues[trainId][trainBonuses[trainId]];
         }
-        log.debug("RC: Current train has predicted  value of {}", trainValue);
+        if (TRACE) log.debug("RC: Current train has predicted  value of {}", trainValue);
 
         // maximum value for the trainId including future trains
         totalValue = Math.min(totalValue + trainValue, maxCumulatedTrainRevenues[trainId]);
@@ -598,11 +1114,21 @@ abstract class RevenueCalculator {
         }
 
         if (callDynamicModifiers) totalValue += revenueAdapter.dynamicPrediction();
+        for (RevenuePrimitiveModifier modifier : primitiveModifiers) {
+            totalValue += modifier.predictionValue(runState);
+        }
 
         nbPredictions++;
 
         boolean terminate = (totalValue <= currentBestValue);
-        if (terminate) log.debug("Run terminated due to predicted value of {}", totalValue);
+        // values of other workers only terminate if strictly higher, as ties are resolved by search order
+        if (!terminate && sharedBestValue != null) {
+            terminate = (totalValue < sharedBestValue.get());
+        }
+        if (terminate) {
+            nbPrunes++;
+            if (TRACE) log.debug("Run terminated due to predicted value of {}", totalValue);
+        }
 
         return terminate;
     }
@@ -615,12 +1141,13 @@ abstract class RevenueCalculator {
         buffer.append("vertexValuesByTrain:").append(Arrays.deepToString(vertexValueByTrain)).append("\n");
         buffer.append("vertexMajor:").append(Arrays.toString(vertexMajor)).append("\n");
         buffer.append("vertexMinor:").append(Arrays.toString(vertexMinor)).append("\n");
-        buffer.append("vertexNeighbors:").append(Arrays.deepToString(vertexNeighbors)).append("\n");
-        buffer.append("vertexEdges:").append(Arrays.deepToString(vertexEdges)).append("\n");
-        buffer.append("vertexVisitSets:").append(Arrays.deepToString(vertexVisitSets)).append("\n");
-        buffer.append("vertexBonusSets:").append(Arrays.deepToString(vertexBonusSets)).append("\n");
-        buffer.append("vertexNbVisitSets:").append(Arrays.toString(vertexNbVisitSets)).append("\n");
-        buffer.append("vertexNbBonusSets:").append(Arrays.toString(vertexNbBonusSets)).append("\n");
+        buffer.append("vertexNeighborStart:").append(Arrays.toString(vertexNeighborStart)).append("\n");
+        buffer.append("vertexNeighbors:").append(Arrays.toString(vertexNeighbors)).append("\n");
+        buffer.append("vertexEdges:").append(Arrays.toString(vertexEdges)).append("\n");
+        buffer.append("vertexVisitSetStart:").append(Arrays.toString(vertexVisitSetStart)).append("\n");
+        buffer.append("vertexVisitSets:").append(Arrays.toString(vertexVisitSets)).append("\n");
+        buffer.append("vertexBonusSetStart:").append(Arrays.toString(vertexBonusSetStart)).append("\n");
+        buffer.append("vertexBonusSets:").append(Arrays.toString(vertexBonusSets)).append("\n");
         buffer.append("edgeGreedy:").append(Arrays.toString(edgeGreedy)).append("\n");
         buffer.append("edgeDistance:").append(Arrays.toString(edgeDistance)).append("\n");
 //        buffer.append("edgeTravelSets:" + Arrays.deepToString(edgeTravelSets) + "\n");
@@ -9,8 +9,13 @@ class RevenueCalculatorMulti extends RevenueCalculator {
     private static final Logger log = LoggerFactory.getLogger(RevenueCalculatorMulti.class);
 
 
-    protected final int[] edgeNbTravelSets;
-    protected final int[][] edgeTravelSets; // edge belongs to a travel set, dimension: nbEdges x nbTravelSets
+    // travel sets during the setup, compacted by compactNetwork
+    private int[] edgeNbTravelSets;
+    private int[][] setupTravelSets; // edge belongs to a travel set, dimension: nbEdges x nbTravelSets
+
+    // compacted travel sets: the entries of edgeId are at the positions from start[edgeId] to start[edgeId + 1] - 1
+    protected int[] edgeTravelSetStart;
+    protected int[] edgeTravelSets;
 
     // dynamic edge data
     private final int[] edgeUsed;
@@ -27,15 +32,30 @@ class RevenueCalculatorMulti extends RevenueCalculator {
                 maxNeighbors, maxVertexSets, maxEdgeSets, nbTrains, nbBonuses);
 
         edgeNbTravelSets = new int[nbEdges];
-        edgeTravelSets = new int[nbEdges][maxEdgeSets];
+        setupTravelSets = new int[nbEdges][maxEdgeSets];
 
-        // edge used is integer here
+        // edge used is integer here (counts due to travel sets)
         edgeUsed = new int[nbEdges];
 
         startVertexActive = new int[nbTrains];
 
     }
 
+    protected RevenueCalculatorMulti (RevenueCalculatorMulti template) {
+        super(template);
+
+        edgeTravelSetStart = template.edgeTravelSetStart;
+        edgeTravelSets = template.edgeTravelSets;
+
+        edgeUsed = template.edgeUsed.clone();
+        startVertexActive = template.startVertexActive.clone();
+    }
+
+    @Override
+    protected RevenueCalculator createWorker() {
+        return new RevenueCalculatorMulti(this);
+    }
+
     @Override
     final void setEdge(int edgeId, boolean greedy, int distance) {
         super.setEdge(edgeId, greedy, distance);
@@ -46,114 +66,114 @@ class RevenueCalculatorMulti extends RevenueCalculator {
     // define edgeTravelSets
     final void setTravelSet(int edgeId, int[] edges) {
         for (int j=0; j < edges.length; j++) {
-            edgeTravelSets[edgeId][edgeNbTravelSets[edgeId]++] = edges[j];
+            setupTravelSets[edgeId][edgeNbTravelSets[edgeId]++] = edges[j];
         }
     }
 
     @Override
-    protected void runTrain(final int trainId) {
-        log.debug("RC: runTrain {}", trainId);
-
-        // initialize value
-        trainCurrentValue[trainId] = 0;
-
-        // initialize train lengths
-        trainMajors[trainId] = trainMaxMajors[trainId];
-        trainMinors[trainId] = trainMaxMinors[trainId];
-        trainBonuses[trainId] = trainMaxBonuses[trainId];
+    protected void compactNetwork() {
+        super.compactNetwork();
+        edgeTravelSetStart = new int[nbEdges + 1];
+        edgeTravelSets = compactRows(setupTravelSets, edgeNbTravelSets, edgeTravelSetStart);
+        edgeNbTravelSets = null;
+        setupTravelSets = null;
+    }
 
-        // initialize the positions
-        trainStackPos[trainId] = 0;
-        trainBottomActive[trainId] = false;
+    @Override
+    protected void runTrain(final int trainId) {
+        if (TRACE) log.debug("RC: runTrain {}", trainId);
 
-        // initialize bonuses
-        for (int b=0; b < nbBonuses; b++) {
-            bonusTrainVertices[b][trainId] = bonusRequiresVertices[b];
-        }
+        initTrain(trainId);
 
         // check if the revenue is enough
         if (useRevenuePrediction && predictRevenues(trainId))
             return;
 
         // try all startVertexes
-        for (int i=0; i < startVertexes.length; i++) {
-            int vertexId = startVertexes[i];
-            log.debug("RC: Using startVertex nr. {} for train {}", i, trainId);
-            boolean stationVertex = encounterVertex(trainId, vertexId, true);
-            if (stationVertex) {
-                // train cannot terminate at start vertex
-                if (useRevenuePrediction && predictRevenues(trainId)) {
-                    // cannot beat current best value => leave immediately
-                    encounterVertex(trainId, vertexId, false);
-                    // but keep them on the visited vertex list to avoid route duplication
-                    trainVisited[trainId][vertexId] = true;
-                    log.debug("RC: finished startVertex {} for train {}", vertexId, trainId);
-                    continue;
-                }
-            }
-
-            // then try all edges of it
-            startVertexActive[trainId] = vertexId;
-            // for startVertices the sink property is ignored
-            for (int j = 0; j < vertexNbNeighbors[vertexId]; j++) {
-                int edgeId = vertexEdges[vertexId][j];
-                if (edgeUsed[edgeId] != 0) continue;
-                log.debug("RC: Testing Neighbor Nr. {} of startVertex", j);
-                int neighborId = vertexNeighbors[vertexId][j];
-                if (trainVisited[trainId][neighborId]) {
-                    log.debug("RC: Hex already visited");
-                    continue;
-                }
-                travelEdge(trainId, edgeId);
-                trainStartEdge[trainId] = j; // store start edge
-                nextVertex(trainId, neighborId);
-                returnEdge(trainId, edgeId);
-                trainStackPos[trainId]--; // pull from stack
-            }
-
-            // no more edges to find
-            encounterVertex(trainId, vertexId, false);
-            // keep them on the visited vertex list to avoid route duplication
-            trainVisited[trainId][vertexId] = true;
-            log.debug("RC: finished startVertex {} for train {}", vertexId, trainId);
+        for (int i=firstStartIndex(trainId); i < startVertexes.length; i++) {
+            trainStartIndex[trainId] = i;
+            runStartVertex(trainId, i);
         }
 
         // finished all tries
         for ( int startVertex : startVertexes ) {
             // remove all of them from the visited vertex list
-            trainVisited[trainId][startVertex] = false;
+            setVisited(trainId, startVertex, false);
         }
 
         // allow that the train does not run at all
         finalizeVertex(trainId, -1);
 
-        log.debug("RC: finishTrain {}", trainId);
+        if (TRACE) log.debug("RC: finishTrain {}", trainId);
 
     }
 
+    @Override
+    protected final void runStartVertex(final int trainId, final int startIndex) {
+        int vertexId = startVertexes[startIndex];
+        if (TRACE) log.debug("RC: Using startVertex nr. {} for train {}", startIndex, trainId);
+        boolean stationVertex = encounterVertex(trainId, vertexId, true);
+        if (stationVertex) {
+            // train cannot terminate at start vertex
+            if (useRevenuePrediction && predictRevenues(trainId)) {
+                // cannot beat current best value => leave immediately
+                encounterVertex(trainId, vertexId, false);
+                // but keep them on the visited vertex list to avoid route duplication
+                setVisited(trainId, vertexId, true);
+                if (TRACE) log.debug("RC: finished startVertex {} for train {}", vertexId, trainId);
+                return;
+            }
+        }
+
+        // then try all edges of it
+        startVertexActive[trainId] = vertexId;
+        // for startVertices the sink property is ignored
+        for (int j = vertexNeighborStart[vertexId]; j < vertexNeighborStart[vertexId + 1]; j++) {
+            int edgeId = vertexEdges[j];
+            if (edgeUsed[edgeId] != 0) continue;
+            if (TRACE) log.debug("RC: Testing Neighbor Nr. {} of startVertex", j);
+            int neighborId = vertexNeighbors[j];
+            if (isVisited(trainId, neighborId)) {
+                if (TRACE) log.debug("RC: Hex already visited");
+                continue;
+            }
+            travelEdge(trainId, edgeId);
+            trainStartEdge[trainId] = j; // store start edge
+            nextVertex(trainId, neighborId);
+            returnEdge(trainId, edgeId);
+            trainStackPos[trainId]--; // pull from stack
+        }
+
+        // no more edges to find
+        encounterVertex(trainId, vertexId, false);
+        // keep them on the visited vertex list to avoid route duplication
+        setVisited(trainId, vertexId, true);
+        if (TRACE) log.debug("RC: finished startVertex {} for train {}", vertexId, trainId);
+    }
+
     @Override
     final protected void runBottom(final int trainId) {
-        log.debug("RC: runBottom {}", trainId);
+        if (TRACE) log.debug("RC: runBottom {}", trainId);
 
         // use startvertex, check if it is a sink
         int vertexId = startVertexActive[trainId];
         if (vertexSink[vertexId]) {
-            log.debug("RC: startvertex is sink, finished bottom of {}", trainId);
+            if (TRACE) log.debug("RC: startvertex is sink, finished bottom of {}", trainId);
             return;
         }
 
         // push to stack
         trainBottomActive[trainId] = true;
-        log.debug("RC: Restart at bottom at stack position {}", trainStackPos[trainId]);
+        if (TRACE) log.debug("RC: Restart at bottom at stack position {}", trainStackPos[trainId]);
 //        trainStack[trainId][trainStackPos[trainId]++] = vertexId;
 
-        for (int j = trainStartEdge[trainId] + 1; j < vertexNbNeighbors[vertexId]; j++) {
-            int edgeId = vertexEdges[vertexId][j];
+        for (int j = trainStartEdge[trainId] + 1; j < vertexNeighborStart[vertexId + 1]; j++) {
+            int edgeId = vertexEdges[j];
             if (edgeUsed[edgeId] != 0) continue;
-            int neighborId = vertexNeighbors[vertexId][j];
-            log.debug("RC: Testing Neighbor Nr. {} of bottomVertex is {}", j, neighborId);
-            if (trainVisited[trainId][neighborId]) {
-                log.debug(" RC: Hex already visited");
+            int neighborId = vertexNeighbors[j];
+            if (TRACE) log.debug("RC: Testing Neighbor Nr. {} of bottomVertex is {}", j, neighborId);
+            if (isVisited(trainId, neighborId)) {
+                if (TRACE) log.debug(" RC: Hex already visited");
                 continue;
             }
             travelEdge(trainId, edgeId);
@@ -164,7 +184,7 @@ class RevenueCalculatorMulti extends RevenueCalculator {
 
 //        trainStackPos[trainId]--; // pull from stack
         trainBottomActive[trainId] = false;
-        log.debug("RC: finished bottom of {}", trainId);
+        if (TRACE) log.debug("RC: finished bottom of {}", trainId);
 
 
     }
@@ -188,13 +208,13 @@ class RevenueCalculatorMulti extends RevenueCalculator {
         // 2a. visit neighbors, if train has not terminated and vertex is not a sink
         if (trainTerminated == Terminated.NOT_YET ) {
             if (!vertexSink[vertexId]) {
-                for (int j = 0; j < vertexNbNeighbors[vertexId]; j++) {
-                    int edgeId = vertexEdges[vertexId][j];
+                for (int j = vertexNeighborStart[vertexId]; j < vertexNeighborStart[vertexId + 1]; j++) {
+                    int edgeId = vertexEdges[j];
                     if (edgeUsed[edgeId] != 0) continue;
-                    int neighborId = vertexNeighbors[vertexId][j];
-                    log.debug("RC: Testing Neighbor Nr. {} of {} is {}", j, vertexId, neighborId);
-                    if (trainVisited[trainId][neighborId]) {
-                        log.debug("RC: Hex already visited");
+                    int neighborId = vertexNeighbors[j];
+                    if (TRACE) log.debug("RC: Testing Neighbor Nr. {} of {} is {}", j, vertexId, neighborId);
+                    if (isVisited(trainId, neighborId)) {
+                        if (TRACE) log.debug("RC: Hex already visited");
                         continue;
                     }
                     travelEdge(trainId, edgeId);
@@ -218,16 +238,16 @@ class RevenueCalculatorMulti extends RevenueCalculator {
     }
 
     protected void travelEdge(final int trainId, final int edgeId) {
-        log.debug("RC: Travel edge id {}", edgeId);
+        if (TRACE) log.debug("RC: Travel edge id {}", edgeId);
         edgeUsed[edgeId]++;
         trainStack[trainId][trainStackPos[trainId]++] = edgeId; // push to stack
         countEdges++; nbEdgesTravelled++;
-        log.debug("RC: Count Edges = {}", countEdges);
+        if (TRACE) log.debug("RC: Count Edges = {}", countEdges);
 
         // check edge sets
-        for (int j=0; j < edgeNbTravelSets[edgeId]; j++) {
-            edgeUsed[edgeTravelSets[edgeId][j]]++;
-            log.debug("RC: travelled edge {} due to edge set.", edgeTravelSets[edgeId][j]);
+        for (int j = edgeTravelSetStart[edgeId]; j < edgeTravelSetStart[edgeId + 1]; j++) {
+            edgeUsed[edgeTravelSets[j]]++;
+            if (TRACE) log.debug("RC: travelled edge {} due to edge set.", edgeTravelSets[j]);
         }
     }
 
@@ -237,16 +257,16 @@ class RevenueCalculatorMulti extends RevenueCalculator {
           if (edgeUsed[edgeId] != 0) {
               edgeUsed[edgeId]--;
               countEdges--;
-              log.debug("RC: Cleared edge id {}", edgeId);
-              log.debug("RC: Count Edges = {}", countEdges);
+              if (TRACE) log.debug("RC: Cleared edge id {}", edgeId);
+              if (TRACE) log.debug("RC: Count Edges = {}", countEdges);
 
               // check edge sets
-              for (int j=0; j < edgeNbTravelSets[edgeId]; j++) {
-                  edgeUsed[edgeTravelSets[edgeId][j]]--;
-                  log.debug("RC: Cleared edge {} due to edge set.", edgeTravelSets[edgeId][j]);
+              for (int j = edgeTravelSetStart[edgeId]; j < edgeTravelSetStart[edgeId + 1]; j++) {
+                  edgeUsed[edgeTravelSets[j]]--;
+                  if (TRACE) log.debug("RC: Cleared edge {} due to edge set.", edgeTravelSets[j]);
               }
           } else {
-              log.debug("RC: Error return edge id used: {}", edgeId);
+              if (TRACE) log.debug("RC: Error return edge id used: {}", edgeId);
           }
 
     }
@@ -15,13 +15,22 @@ class RevenueCalculatorMultiHex extends RevenueCalculatorMulti {
 
     }
 
+    private RevenueCalculatorMultiHex (RevenueCalculatorMultiHex template) {
+        super(template);
+    }
+
+    @Override
+    protected RevenueCalculator createWorker() {
+        return new RevenueCalculatorMultiHex(this);
+    }
+
     @Override
-    protected void runTrain(int trainId) {
+    protected void initTrain(int trainId) {
         // init train distance
         if (trainIsH[trainId]) {
             trainDistance[trainId] = trainMaxMajors[trainId];
         }
-        super.runTrain(trainId);
+        super.initTrain(trainId);
     }
 
     @Override
@@ -44,7 +53,7 @@ class RevenueCalculatorMultiHex extends RevenueCalculatorMulti {
             // H-train can always travel a zero distance to a next node
             // thus always check until negative distance
             if (trainDistance[trainId] < 0){
-                log.debug("RC: H-Train {} has terminated: distance = {}", trainId, trainDistance[trainId]);
+                if (TRACE) log.debug("RC: H-Train {} has terminated: distance = {}", trainId, trainDistance[trainId]);
                 return Terminated.WITHOUT_EVALUATION;
             } else {
                 return Terminated.NOT_YET;
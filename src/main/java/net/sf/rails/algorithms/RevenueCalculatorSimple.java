@@ -7,8 +7,8 @@ final class RevenueCalculatorSimple extends RevenueCalculator {
 
     private static final Logger log = LoggerFactory.getLogger(RevenueCalculatorSimple.class);
 
-    // dynamic edge data
-    private final boolean[] edgeUsed;
+    // dynamic edge data: bitset of used edges
+    private final long[] edgeUsed;
 
     public RevenueCalculatorSimple (RevenueAdapter revenueAdapter, int nbVertexes, int nbEdges,
             int maxNeighbors, int maxVertexSets, int nbTrains, int nbBonuses) {
@@ -17,116 +17,117 @@ final class RevenueCalculatorSimple extends RevenueCalculator {
         super(revenueAdapter, nbVertexes, nbEdges,
                 maxNeighbors, maxVertexSets, 0, nbTrains, nbBonuses);
 
-        // edge used is boolean here
-        edgeUsed = new boolean[nbEdges];
+        // edge used is a single bit here
+        edgeUsed = new long[(nbEdges + 63) >>> 6];
 
     }
 
-   @Override
-   protected final void runTrain(final int trainId) {
-       log.debug("RC: runTrain {}", trainId);
+    private RevenueCalculatorSimple (RevenueCalculatorSimple template) {
+        super(template);
+        edgeUsed = template.edgeUsed.clone();
+    }
 
-        // initialize value
-        trainCurrentValue[trainId] = 0;
+    @Override
+    protected RevenueCalculator createWorker() {
+        return new RevenueCalculatorSimple(this);
+    }
 
-        // initialize train lengths
-        trainMajors[trainId] = trainMaxMajors[trainId];
-        trainMinors[trainId] = trainMaxMinors[trainId];
-        trainBonuses[trainId] = trainMaxBonuses[trainId];
+   @Override
+   protected final void runTrain(final int trainId) {
+       if (TRACE) log.debug("RC: runTrain {}", trainId);
 
-        // initialize the positions
-        trainStackPos[trainId] = 0;
-        trainBottomActive[trainId] = false;
-
-        // initialize bonuses
-        for (int b=0; b < nbBonuses; b++) {
-            bonusTrainVertices[b][trainId] = bonusRequiresVertices[b];
-        }
+        initTrain(trainId);
 
         // check if the revenue is enough
         if (useRevenuePrediction && predictRevenues(trainId))
             return;
 
         // try all startVertexes
-        for (int i=0; i < startVertexes.length; i++) {
-            int vertexId = startVertexes[i];
-            log.debug("RC: Using startVertex nr. {} for train {}", i, trainId);
-            boolean stationVertex = encounterVertex(trainId, vertexId, true);
-            trainStack[trainId][trainStackPos[trainId]++] = vertexId; // push to stack
-            if (stationVertex) {
-                // train cannot terminate at start vertex
-                if (useRevenuePrediction && predictRevenues(trainId)) {
-                    // cannot beat current best value => leave immediately
-                    encounterVertex(trainId, vertexId, false);
-                    trainStackPos[trainId]--; // pull from stack
-                    // but keep them on the visited vertex list to avoid route duplication
-                    trainVisited[trainId][vertexId] = true;
-                    log.debug("RC: finished startVertex {} for train {}", vertexId, trainId);
-                    continue;
-                }
-            }
-
-            // then try all edges of it
-            // for startVertices the sink property is ignored
-            for (int j = 0; j < vertexNbNeighbors[vertexId]; j++) {
-                int edgeId = vertexEdges[vertexId][j];
-                if (edgeUsed[edgeId]) continue;
-                log.debug("RC: Testing Neighbor Nr. {} of startVertex", j);
-                int neighborId = vertexNeighbors[vertexId][j];
-                if (trainVisited[trainId][neighborId]) {
-                    log.debug("RC: Hex already visited");
-                    continue;
-                }
-                if (travelEdge(trainId, edgeId, true)) {
-                    trainStartEdge[trainId] = j; // store start edge
-                    nextVertex(trainId, neighborId, edgeGreedy[edgeId]);
-                    returnEdge(trainId, edgeId);
-                }
-            }
-
-            // no more edges to find
-            encounterVertex(trainId, vertexId, false);
-            trainStackPos[trainId]--; // pull from stack
-            // keep them on the visited vertex list to avoid route duplication
-            trainVisited[trainId][vertexId] = true;
-            log.debug("RC: finished startVertex {} for train {}", vertexId, trainId);
+        for (int i=firstStartIndex(trainId); i < startVertexes.length; i++) {
+            trainStartIndex[trainId] = i;
+            runStartVertex(trainId, i);
         }
 
         // finished all tries
         for (int i=0; i < startVertexes.length; i++) {
             // remove all of them from the visited vertex list
-            trainVisited[trainId][startVertexes[i]] = false;
+            setVisited(trainId, startVertexes[i], false);
         }
 
         // allow that the train does not run at all
         finalizeVertex(trainId, -1);
 
-       log.debug("RC: finishTrain {}", trainId);
+       if (TRACE) log.debug("RC: finishTrain {}", trainId);
+    }
+
+   @Override
+   protected final void runStartVertex(final int trainId, final int startIndex) {
+        int vertexId = startVertexes[startIndex];
+        if (TRACE) log.debug("RC: Using startVertex nr. {} for train {}", startIndex, trainId);
+        boolean stationVertex = encounterVertex(trainId, vertexId, true);
+        trainStack[trainId][trainStackPos[trainId]++] = vertexId; // push to stack
+        if (stationVertex) {
+            // train cannot terminate at start vertex
+            if (useRevenuePrediction && predictRevenues(trainId)) {
+                // cannot beat current best value => leave immediately
+                encounterVertex(trainId, vertexId, false);
+                trainStackPos[trainId]--; // pull from stack
+                // but keep them on the visited vertex list to avoid route duplication
+                setVisited(trainId, vertexId, true);
+                if (TRACE) log.debug("RC: finished startVertex {} for train {}", vertexId, trainId);
+                return;
+            }
+        }
+
+        // then try all edges of it
+        // for startVertices the sink property is ignored
+        for (int j = vertexNeighborStart[vertexId]; j < vertexNeighborStart[vertexId + 1]; j++) {
+            int edgeId = vertexEdges[j];
+            if (isEdgeUsed(edgeId)) continue;
+            if (TRACE) log.debug("RC: Testing Neighbor Nr. {} of startVertex", j);
+            int neighborId = vertexNeighbors[j];
+            if (isVisited(trainId, neighborId)) {
+                if (TRACE) log.debug("RC: Hex already visited");
+                continue;
+            }
+            if (travelEdge(trainId, edgeId, true)) {
+                trainStartEdge[trainId] = j; // store start edge
+                nextVertex(trainId, neighborId, edgeGreedy[edgeId]);
+                returnEdge(trainId, edgeId);
+            }
+        }
+
+        // no more edges to find
+        encounterVertex(trainId, vertexId, false);
+        trainStackPos[trainId]--; // pull from stack
+        // keep them on the visited vertex list to avoid route duplication
+        setVisited(trainId, vertexId, true);
+        if (TRACE) log.debug("RC: finished startVertex {} for train {}", vertexId, trainId);
     }
 
    @Override
    protected final void runBottom(final int trainId) {
-       log.debug("RC: runBottom {}", trainId);
+       if (TRACE) log.debug("RC: runBottom {}", trainId);
 
        // use startvertex, check if it is a sink
        int vertexId = trainStack[trainId][0];
        if (vertexSink[vertexId]) {
-           log.debug("RC: startvertex is sink, finished bottom of {}", trainId);
+           if (TRACE) log.debug("RC: startvertex is sink, finished bottom of {}", trainId);
            return;
        }
 
        trainBottomActive[trainId] = true;
        // push to stack
-       log.debug("RC: Restart at bottom at stack position {}", trainStackPos[trainId]);
+       if (TRACE) log.debug("RC: Restart at bottom at stack position {}", trainStackPos[trainId]);
        trainStack[trainId][trainStackPos[trainId]++] = vertexId;
 
-       for (int j = trainStartEdge[trainId] + 1; j < vertexNbNeighbors[vertexId]; j++) {
-           int edgeId = vertexEdges[vertexId][j];
-           if (edgeUsed[edgeId]) continue;
-           int neighborId = vertexNeighbors[vertexId][j];
-           log.debug("RC: Testing Neighbor Nr. {} of bottomVertex is {}", j, neighborId);
-           if (trainVisited[trainId][neighborId]) {
-               log.debug(" RC: Hex already visited");
+       for (int j = trainStartEdge[trainId] + 1; j < vertexNeighborStart[vertexId + 1]; j++) {
+           int edgeId = vertexEdges[j];
+           if (isEdgeUsed(edgeId)) continue;
+           int neighborId = vertexNeighbors[j];
+           if (TRACE) log.debug("RC: Testing Neighbor Nr. {} of bottomVertex is {}", j, neighborId);
+           if (isVisited(trainId, neighborId)) {
+               if (TRACE) log.debug(" RC: Hex already visited");
                continue;
            }
            if (travelEdge(trainId, edgeId, true)) {
@@ -137,7 +138,7 @@ final class RevenueCalculatorSimple extends RevenueCalculator {
 
        trainStackPos[trainId]--; // pull from stack
        trainBottomActive[trainId] = false;
-       log.debug("RC: finished bottom of {}", trainId);
+       if (TRACE) log.debug("RC: finished bottom of {}", trainId);
 
    }
 
@@ -162,13 +163,13 @@ final class RevenueCalculatorSimple extends RevenueCalculator {
        // 2a. visit neighbors, if train has not terminated and vertex is not a sink
        if (trainTerminated == Terminated.NOT_YET ) {
            if (!vertexSink[vertexId]) {
-               for (int j = 0; j < vertexNbNeighbors[vertexId]; j++) {
-                   int edgeId = vertexEdges[vertexId][j];
-                   if (edgeUsed[edgeId]) continue;
-                   int neighborId = vertexNeighbors[vertexId][j];
-                   log.debug("RC: Testing Neighbor Nr. {} of {} is {}", j, vertexId, neighborId);
-                   if (trainVisited[trainId][neighborId]) {
-                       log.debug("RC: Hex already visited");
+               for (int j = vertexNeighborStart[vertexId]; j < vertexNeighborStart[vertexId + 1]; j++) {
+                   int edgeId = vertexEdges[j];
+                   if (isEdgeUsed(edgeId)) continue;
+                   int neighborId = vertexNeighbors[j];
+                   if (TRACE) log.debug("RC: Testing Neighbor Nr. {} of {} is {}", j, vertexId, neighborId);
+                   if (isVisited(trainId, neighborId)) {
+                       if (TRACE) log.debug("RC: Hex already visited");
                        continue;
                    }
                    if (travelEdge(trainId, edgeId, previousGreedy)) {
@@ -192,14 +193,18 @@ final class RevenueCalculatorSimple extends RevenueCalculator {
        trainStackPos[trainId]--; // pull from stack
    }
 
+   private boolean isEdgeUsed(final int edgeId) {
+       return (edgeUsed[edgeId >>> 6] & (1L << edgeId)) != 0;
+   }
+
    protected final boolean travelEdge(final int trainId, final int edgeId, final boolean previousGreedy) {
        if (previousGreedy || edgeGreedy[edgeId]) {
-           log.debug("RC: Travel edge id {}", edgeId);
-           edgeUsed[edgeId] = true;
+           if (TRACE) log.debug("RC: Travel edge id {}", edgeId);
+           edgeUsed[edgeId >>> 6] |= 1L << edgeId;
 //           edgeUsed[edgeId]++;
            // trainEdgeStack[trainId][trainStackPos[trainId]] = edgeId;
            countEdges++; nbEdgesTravelled++;
-           log.debug("RC: Count Edges = {}", countEdges);
+           if (TRACE) log.debug("RC: Count Edges = {}", countEdges);
 
            // check edge sets
 //           for (int j=0; j < edgeNbTravelSets[edgeId]; j++) {
@@ -209,20 +214,20 @@ final class RevenueCalculatorSimple extends RevenueCalculator {
 
            return true;
        } else {
-           log.debug("RC: Cannot travel edge id {}, because of greedy rule", edgeId);
+           if (TRACE) log.debug("RC: Cannot travel edge id {}, because of greedy rule", edgeId);
            return false;
        }
    }
 
    @Override
    protected final void returnEdge(final int trainId, final int edgeId) {
-       if (edgeUsed[edgeId]) {
-           edgeUsed[edgeId] = false;
+       if (isEdgeUsed(edgeId)) {
+           edgeUsed[edgeId >>> 6] &= ~(1L << edgeId);
            countEdges--;
-           log.debug("RC: Cleared edge id {}", edgeId);
-           log.debug("RC: Count Edges = {}", countEdges);
+           if (TRACE) log.debug("RC: Cleared edge id {}", edgeId);
+           if (TRACE) log.debug("RC: Count Edges = {}", countEdges);
        } else {
-           log.debug("RC: Error return edge id used: {}", edgeId);
+           if (TRACE) log.debug("RC: Error return edge id used: {}", edgeId);
        }
    }
 
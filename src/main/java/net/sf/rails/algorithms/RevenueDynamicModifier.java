@@ -48,5 +48,15 @@ public interface RevenueDynamicModifier {
      * Allows to append additional text
      * @return String output for display in Rails */
     public String prettyPrint(RevenueAdapter revenueAdapter);
-    
+
+    /**
+     * Allows to store the results of calculations in the RevenueCache, called after prepareModifier.
+     * The revenue adapter (trains, vertices, bonuses) and the class of the modifier are part of the cache key already,
+     * the modifier has to add its configuration and any other state that changes the revenue (e.g. the stock price).
+     * @return state of the modifier not contained in the revenue adapter, null => results are not cached
+     */
+    public default String getCacheKey() {
+        return null;
+    }
+
 }
@@ -39,6 +39,8 @@ public final class RevenueManager extends RailsManager implements Configurable {
     // Variables that store the active modifier (per RevenueAdapter)
     private final ArrayList<RevenueStaticModifier> activeStaticModifiers = new ArrayList<RevenueStaticModifier>();
     private final ArrayList<RevenueDynamicModifier> activeDynamicModifiers = new ArrayList<RevenueDynamicModifier>();
+    // subset of the active dynamic modifiers that are called with primitives during the calculation
+    private final ArrayList<RevenuePrimitiveModifier> activePrimitiveModifiers = new ArrayList<RevenuePrimitiveModifier>();
     // TODO: Still add that flag if the calculator is active
 //    private boolean activeCalculator;
 
@@ -188,6 +190,7 @@ public final class RevenueManager extends RailsManager implements Configurable {
      */
     boolean initDynamicModifiers(RevenueAdapter revenueAdapter) {
         activeDynamicModifiers.clear();
+        activePrimitiveModifiers.clear();
         for (RevenueDynamicModifier modifier : dynamicModifiers.view()) {
             if (modifier.prepareModifier(revenueAdapter))
                 activeDynamicModifiers.add(modifier);
@@ -195,6 +198,40 @@ public final class RevenueManager extends RailsManager implements Configurable {
         return !activeDynamicModifiers.isEmpty();
     }
 
+    /**
+     * Prepares the active dynamic modifiers that support primitive calls,
+     * these are excluded from the list based calls during the calculation
+     * @param revenueAdapter with populated revenue calculator
+     * @return the active primitive modifiers
+     */
+    RevenuePrimitiveModifier[] initPrimitiveModifiers(RevenueAdapter revenueAdapter) {
+        activePrimitiveModifiers.clear();
+        for (RevenueDynamicModifier modifier : activeDynamicModifiers) {
+            if (modifier instanceof RevenuePrimitiveModifier
+                    && ((RevenuePrimitiveModifier) modifier).preparePrimitive(revenueAdapter)) {
+                activePrimitiveModifiers.add((RevenuePrimitiveModifier) modifier);
+            }
+        }
+        log.debug("Primitive modifiers = {}", activePrimitiveModifiers);
+        return activePrimitiveModifiers.toArray(new RevenuePrimitiveModifier[0]);
+    }
+
+    /**
+     * @return true if there are active dynamic modifiers that require list based calls during the calculation
+     */
+    boolean hasListDynamicModifiers() {
+        return activeDynamicModifiers.size() > activePrimitiveModifiers.size();
+    }
+
+    /**
+     * @return the active static and dynamic modifiers
+     */
+    List<Object> getActiveModifiers() {
+        List<Object> modifiers = new ArrayList<Object>(activeStaticModifiers);
+        modifiers.addAll(activeDynamicModifiers);
+        return modifiers;
+    }
+
     /**
      * @param revenueAdapter
      * @return revenue from active calculator
@@ -227,6 +264,8 @@ public final class RevenueManager extends RailsManager implements Configurable {
         // however this is forbidden outside the optimal run!
         int value = 0;
         for (RevenueDynamicModifier modifier : activeDynamicModifiers) {
+            // primitive modifiers are called by the calculator directly
+            if (!optimal && activePrimitiveModifiers.contains(modifier)) continue;
             value += modifier.evaluationValue(run, optimal);
         }
         return value;
@@ -239,6 +278,8 @@ public final class RevenueManager extends RailsManager implements Configurable {
         // do not change the optimal run!
         int value = 0;
         for (RevenueDynamicModifier modifier : activeDynamicModifiers) {
+            // primitive modifiers are called by the calculator directly
+            if (activePrimitiveModifiers.contains(modifier)) continue;
             value += modifier.predictionValue(run);
         }
         return value;
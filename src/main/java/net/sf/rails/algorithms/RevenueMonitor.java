@@ -0,0 +1,108 @@
+package net.sf.rails.algorithms;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RevenueMonitor collects the statistics of all revenue calculations of the application
+ * and publishes them as a JMX bean (e.g. for jconsole).
+ * <p>
+ * This is a singleton class, the bean is registered on the first calculation.
+ */
+public final class RevenueMonitor implements RevenueMonitorMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RevenueMonitor.class);
+
+    public static final String OBJECT_NAME = "net.sf.rails:type=RevenueMonitor";
+
+    private static RevenueMonitor instance;
+
+    private long calculations;
+    private long cachedCalculations;
+    private long totalNanos;
+    private long nodes;
+    private long prunes;
+    private long evaluations;
+    private RevenueStatistics lastCalculation;
+    private RevenueStatistics slowestCalculation;
+
+    private RevenueMonitor() {}
+
+    public static synchronized RevenueMonitor getInstance() {
+        if (instance == null) {
+            instance = new RevenueMonitor();
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(OBJECT_NAME));
+            } catch (JMException | SecurityException e) {
+                log.warn("Cannot register {}", OBJECT_NAME, e);
+            }
+        }
+        return instance;
+    }
+
+    synchronized void record(RevenueStatistics statistics) {
+        calculations++;
+        if (statistics.isCached()) cachedCalculations++;
+        totalNanos += statistics.getNanos();
+        nodes += statistics.getNodes();
+        prunes += statistics.getPrunes();
+        evaluations += statistics.getEvaluations();
+        lastCalculation = statistics;
+        if (slowestCalculation == null || statistics.getNanos() > slowestCalculation.getNanos()) {
+            slowestCalculation = statistics;
+        }
+    }
+
+    public synchronized long getCalculations() {
+        return calculations;
+    }
+
+    public synchronized long getCachedCalculations() {
+        return cachedCalculations;
+    }
+
+    public synchronized long getTotalMillis() {
+        return totalNanos / 1000000;
+    }
+
+    public synchronized long getMaxMillis() {
+        return slowestCalculation == null ? 0 : slowestCalculation.getNanos() / 1000000;
+    }
+
+    public synchronized long getNodes() {
+        return nodes;
+    }
+
+    public synchronized long getPrunes() {
+        return prunes;
+    }
+
+    public synchronized long getEvaluations() {
+        return evaluations;
+    }
+
+    public synchronized String getLastCalculation() {
+        return String.valueOf(lastCalculation);
+    }
+
+    public synchronized String getSlowestCalculation() {
+        return String.valueOf(slowestCalculation);
+    }
+
+    public synchronized void reset() {
+        calculations = 0;
+        cachedCalculations = 0;
+        totalNanos = 0;
+        nodes = 0;
+        prunes = 0;
+        evaluations = 0;
+        lastCalculation = null;
+        slowestCalculation = null;
+    }
+
+}
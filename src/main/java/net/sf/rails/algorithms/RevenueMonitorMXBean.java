@@ -0,0 +1,34 @@
+package net.sf.rails.algorithms;
+
+/**
+ * Management interface of the RevenueMonitor, registered as net.sf.rails:type=RevenueMonitor
+ */
+public interface RevenueMonitorMXBean {
+
+    public long getCalculations();
+
+    public long getCachedCalculations();
+
+    public long getTotalMillis();
+
+    public long getMaxMillis();
+
+    public long getNodes();
+
+    public long getPrunes();
+
+    public long getEvaluations();
+
+    /**
+     * @return statistics of the last calculation
+     */
+    public String getLastCalculation();
+
+    /**
+     * @return statistics of the slowest calculation since the last reset
+     */
+    public String getSlowestCalculation();
+
+    public void reset();
+
+}
@@ -0,0 +1,48 @@
+package net.sf.rails.algorithms;
+
+/**
+ * A primitive modifier is a dynamic modifier that is called by the revenue calculator
+ * without the conversion of the current run to RevenueTrainRun lists.
+ *
+ * Vertices are identified by their id in the revenue calculator (see {@link RevenueAdapter#getRCVertices()}),
+ * trains by their index in the train list of the RevenueAdapter.
+ *
+ * The methods of {@link RevenueDynamicModifier} are still used for the optimal run
+ * (evaluation with optimalRuns = true, adjustment and pretty print).
+ * If preparePrimitive returns false, the list based methods are used during the calculation as well.
+ *
+ * Caveats:
+ * All methods are called inside the search loop, thus they must not allocate objects.
+ */
+
+public interface RevenuePrimitiveModifier extends RevenueDynamicModifier {
+
+    /** method called after the revenue calculator is populated, only if prepareModifier has returned true
+     * @return true => primitive calls, false => list based calls */
+    public boolean preparePrimitive(RevenueAdapter revenueAdapter);
+
+    /**
+     * Called if a train arrives at a vertex
+     */
+    public void vertexEntered(int trainId, int vertexId);
+
+    /**
+     * Called if a train leaves a vertex, in reverse order of the arrivals
+     */
+    public void vertexLeft(int trainId, int vertexId);
+
+    /**
+     * Allows to change the value for the prediction
+     * @param run Current run of the revenue calculator
+     * @return value used to change the prediction
+     */
+    public int predictionValue(RevenueRunState run);
+
+    /**
+     * Allows to change the value for the current run of the revenue calculator
+     * @param run Current run of the revenue calculator
+     * @return value used to change the run results
+     */
+    public int evaluationValue(RevenueRunState run);
+
+}
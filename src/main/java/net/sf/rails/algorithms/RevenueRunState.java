@@ -0,0 +1,92 @@
+package net.sf.rails.algorithms;
+
+/**
+ * Read-only view on the current run of a revenue calculator for primitive modifiers.
+ *
+ * The vertices of a train run are stored in the order of their arrival.
+ * If the train has a bottom run (second part from the start vertex),
+ * the start vertex is not repeated, the bottom vertices follow the head vertices.
+ */
+public final class RevenueRunState {
+
+    private final RevenueCalculator rc;
+
+    RevenueRunState(RevenueCalculator rc) {
+        this.rc = rc;
+    }
+
+    /**
+     * @return the first train of the calculated train set
+     */
+    public int getStartTrain() {
+        return rc.startTrainSet;
+    }
+
+    /**
+     * @return the final train of the calculated train set
+     */
+    public int getFinalTrain() {
+        return rc.finalTrainSet;
+    }
+
+    /**
+     * @return the current value of the train run (including bonuses)
+     */
+    public int getTrainValue(int trainId) {
+        return rc.trainCurrentValue[trainId];
+    }
+
+    /**
+     * @return number of vertices in the train run
+     */
+    public int getNbVertices(int trainId) {
+        return rc.trainVerticesPos[trainId];
+    }
+
+    /**
+     * @return vertex id at the given position of the train run
+     */
+    public int getVertex(int trainId, int position) {
+        return rc.trainVertices[trainId][position];
+    }
+
+    /**
+     * @return true if the vertex is part of the train run
+     */
+    public boolean containsVertex(int trainId, int vertexId) {
+        int[] vertices = rc.trainVertices[trainId];
+        for (int i = 0; i < rc.trainVerticesPos[trainId]; i++) {
+            if (vertices[i] == vertexId) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if train has a valid run (at least two vertices), see {@link RevenueTrainRun#hasAValidRun()}
+     */
+    public boolean hasAValidRun(int trainId) {
+        return rc.trainVerticesPos[trainId] >= 2;
+    }
+
+    /**
+     * @return vertex id of the first vertex of the train run, -1 if the train does not run,
+     * see {@link RevenueTrainRun#getFirstVertex()}
+     */
+    public int getFirstVertex(int trainId) {
+        if (rc.trainVerticesPos[trainId] == 0) return -1;
+        if (rc.trainBottomPos[trainId] > 0) {
+            return rc.trainVertices[trainId][rc.trainBottomPos[trainId] - 1];
+        }
+        return rc.trainVertices[trainId][0];
+    }
+
+    /**
+     * @return vertex id of the last vertex of the train run, -1 if the train does not run,
+     * see {@link RevenueTrainRun#getLastVertex()}
+     */
+    public int getLastVertex(int trainId) {
+        if (rc.trainVerticesPos[trainId] == 0) return -1;
+        return rc.trainVertices[trainId][rc.trainVerticesPos[trainId] - 1];
+    }
+
+}
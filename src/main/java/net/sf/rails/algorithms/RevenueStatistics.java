@@ -0,0 +1,191 @@
+package net.sf.rails.algorithms;
+
+import java.util.List;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * RevenueStatistics describes a single revenue calculation of a RevenueAdapter.
+ * <p>
+ * The graph sizes are given before and after the optimization of the route graph (NetworkGraph.optimizeGraph),
+ * the search counters cover the prediction runs and the search itself.
+ * For results taken from the RevenueCache the search counters are zero.
+ */
+public final class RevenueStatistics {
+
+    private final String gameName;
+    private final String company;
+    private final String phase;
+    private final List<String> trains;
+    private final List<String> modifiers;
+    private final boolean multiGraph;
+    private final int networkVertices;
+    private final int networkEdges;
+    private final int vertices;
+    private final int edges;
+    private final boolean cached;
+    private final int revenue;
+    private final long nodes;
+    private final long prunes;
+    private final int predictions;
+    private final int evaluations;
+    private final int edgesTravelled;
+    private final long predictionNanos;
+    private final long nanos;
+
+    RevenueStatistics(String gameName, String company, String phase, List<String> trains, List<String> modifiers,
+            boolean multiGraph, int networkVertices, int networkEdges, int vertices, int edges, boolean cached,
+            int revenue, long nodes, long prunes, int predictions, int evaluations, int edgesTravelled,
+            long predictionNanos, long nanos) {
+        this.gameName = gameName;
+        this.company = company;
+        this.phase = phase;
+        this.trains = ImmutableList.copyOf(trains);
+        this.modifiers = ImmutableList.copyOf(modifiers);
+        this.multiGraph = multiGraph;
+        this.networkVertices = networkVertices;
+        this.networkEdges = networkEdges;
+        this.vertices = vertices;
+        this.edges = edges;
+        this.cached = cached;
+        this.revenue = revenue;
+        this.nodes = nodes;
+        this.prunes = prunes;
+        this.predictions = predictions;
+        this.evaluations = evaluations;
+        this.edgesTravelled = edgesTravelled;
+        this.predictionNanos = predictionNanos;
+        this.nanos = nanos;
+    }
+
+    public String getGameName() {
+        return gameName;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public List<String> getTrains() {
+        return trains;
+    }
+
+    /**
+     * @return the active static and dynamic modifiers
+     */
+    public List<String> getModifiers() {
+        return modifiers;
+    }
+
+    public boolean isMultiGraph() {
+        return multiGraph;
+    }
+
+    /**
+     * @return number of vertices of the company network, before the optimization
+     */
+    public int getNetworkVertices() {
+        return networkVertices;
+    }
+
+    /**
+     * @return number of edges of the company network, before the optimization
+     */
+    public int getNetworkEdges() {
+        return networkEdges;
+    }
+
+    /**
+     * @return number of vertices used by the revenue calculator
+     */
+    public int getVertices() {
+        return vertices;
+    }
+
+    /**
+     * @return number of edges used by the revenue calculator
+     */
+    public int getEdges() {
+        return edges;
+    }
+
+    /**
+     * @return true if the result was taken from the RevenueCache
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    public int getRevenue() {
+        return revenue;
+    }
+
+    /**
+     * @return number of vertices entered during the search
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return number of predictions that terminated a run
+     */
+    public long getPrunes() {
+        return prunes;
+    }
+
+    public int getPredictions() {
+        return predictions;
+    }
+
+    public int getEvaluations() {
+        return evaluations;
+    }
+
+    public int getEdgesTravelled() {
+        return edgesTravelled;
+    }
+
+    /**
+     * @return time of the prediction runs in nanoseconds
+     */
+    public long getPredictionNanos() {
+        return predictionNanos;
+    }
+
+    /**
+     * @return total time of the calculation in nanoseconds (excluding the setup of the calculator)
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("game", gameName)
+                .add("company", company)
+                .add("phase", phase)
+                .add("trains", trains)
+                .add("modifiers", modifiers)
+                .add("multiGraph", multiGraph)
+                .add("network", networkVertices + "/" + networkEdges)
+                .add("graph", vertices + "/" + edges)
+                .add("cached", cached)
+                .add("revenue", revenue)
+                .add("nodes", nodes)
+                .add("prunes", prunes)
+                .add("predictions", predictions)
+                .add("evaluations", evaluations)
+                .add("edgesTravelled", edgesTravelled)
+                .add("predictionMillis", predictionNanos / 1000000)
+                .add("millis", nanos / 1000000)
+                .toString();
+    }
+
+}
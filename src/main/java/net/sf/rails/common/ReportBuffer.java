@@ -39,6 +39,8 @@ public class ReportBuffer extends RailsAbstractItem implements ChangeReporter {
     // dynamic data
     private ReportSet.Builder currentReportBuilder;
     private ReportBuffer.Observer observer;
+    // the report set displayed as active by the observer, null requires a full update
+    private ReportSet observedActiveReport;
 
 
     public ReportBuffer(ReportManager parent, String id) {
@@ -49,10 +51,12 @@ public class ReportBuffer extends RailsAbstractItem implements ChangeReporter {
 
     public void addObserver(ReportBuffer.Observer observer) {
         this.observer = observer;
+        this.observedActiveReport = null;
     }
 
     public void removeObserver() {
         this.observer = null;
+        this.observedActiveReport = null;
     }
 
     /**
@@ -76,11 +80,9 @@ public class ReportBuffer extends RailsAbstractItem implements ChangeReporter {
         StringBuilder s = new StringBuilder();
         s.append("<html>");
         for (ReportSet rs : Iterables.concat(pastReports, futureReports)) {
-            String text = rs.getAsHtml(currentChangeSet);
+            String text = rs.getAsParagraph(currentChangeSet);
             if (text == null) continue;
-            s.append("<p>");
             s.append(text);
-            s.append("</p>");
         }
         s.append("</html>");
 
@@ -112,9 +114,65 @@ public class ReportBuffer extends RailsAbstractItem implements ChangeReporter {
     private void updateObserver() {
         if (observer != null) {
             observer.update(getCurrentText());
+            ReportSet lastReport = pastReports.peekLast();
+            if (lastReport != null && lastReport.isActive(changeStack.getClosedChangeSet())) {
+                observedActiveReport = lastReport;
+            } else {
+                observedActiveReport = null;
+            }
         }
     }
 
+    /**
+     * Appends the new report set and deactivates the previous active one,
+     * falls back to a full update if the observed state is unknown
+     */
+    private void appendToObserver(ReportSet newReport) {
+        if (observer == null) return;
+        if (observedActiveReport == null) {
+            updateObserver();
+            return;
+        }
+        ChangeSet current = changeStack.getClosedChangeSet();
+        observer.replace(observedActiveReport.getId(), observedActiveReport.getAsParagraph(current));
+        String paragraph = newReport.getAsParagraph(current);
+        if (paragraph != null) {
+            observer.append(paragraph);
+        }
+        observedActiveReport = newReport;
+    }
+
+    /**
+     * Moves the active marker after undo or redo,
+     * falls back to a full update if the new active report set is not displayed
+     * and cannot be appended either
+     */
+    private void moveActiveInObserver() {
+        if (observer == null) return;
+        ReportSet newActive = pastReports.peekLast();
+        ChangeSet current = changeStack.getClosedChangeSet();
+        if (observedActiveReport == null || newActive == null || !newActive.isActive(current)) {
+            updateObserver();
+            return;
+        }
+        if (newActive == observedActiveReport) return;
+
+        // a report set without messages is displayed only while active, it can be added at the end only
+        boolean appendNewActive = !newActive.hasMessages();
+        if (appendNewActive && !futureReports.isEmpty()) {
+            updateObserver();
+            return;
+        }
+        // the paragraph of a previous active set without messages is removed
+        observer.replace(observedActiveReport.getId(), observedActiveReport.getAsParagraph(current));
+        if (appendNewActive) {
+            observer.append(newActive.getAsParagraph(current));
+        } else {
+            observer.replace(newActive.getId(), newActive.getAsParagraph(current));
+        }
+        observedActiveReport = newActive;
+    }
+
     // ChangeReport methods
     @Override
     public void init(ChangeStack changeStack) {
@@ -126,6 +184,8 @@ public class ReportBuffer extends RailsAbstractItem implements ChangeReporter {
         ChangeSet current = changeStack.getClosedChangeSet();
         ReportSet currentSet = currentReportBuilder.withChangeSet(current).build();
 
+        // discarding the future requires a full update of the observer
+        boolean futureDiscarded = !futureReports.isEmpty();
         pastReports.addLast(currentSet);
         futureReports.clear();
 
@@ -133,7 +193,11 @@ public class ReportBuffer extends RailsAbstractItem implements ChangeReporter {
         currentReportBuilder = ReportSet.builder();
 
         // update observer (ReportWindow)
-        updateObserver();
+        if (futureDiscarded) {
+            updateObserver();
+        } else {
+            appendToObserver(currentSet);
+        }
     }
 
     @Override
@@ -150,7 +214,7 @@ public class ReportBuffer extends RailsAbstractItem implements ChangeReporter {
 
     @Override
     public void updateAfterUndoRedo() {
-        updateObserver();
+        moveActiveInObserver();
     }
 
     /**
@@ -160,9 +224,27 @@ public class ReportBuffer extends RailsAbstractItem implements ChangeReporter {
         item.getRoot().getReportManager().getReportBuffer().addMessage(message);
     }
 
+    /**
+     * Observer of the html text of the ReportBuffer.
+     * <p>
+     * After a full update the observer is kept in sync incrementally:
+     * new report sets are appended, the active marker is moved by replacing paragraphs.
+     */
     public interface Observer {
+        /**
+         * Appends a html paragraph
+         */
         void append(String text);
 
+        /**
+         * Replaces the html paragraph with the given id
+         * @param text new html paragraph, if null the paragraph is removed
+         */
+        void replace(String id, String text);
+
+        /**
+         * Replaces the complete html text
+         */
         void update(String newText);
     }
 }
@@ -9,6 +9,9 @@ import java.util.List;
 
 /**
  * ReportSet contains all messages that reference one ChangeSet
+ * <p>
+ * The ChangeSet is identified by its index only, thus the ChangeSets
+ * dropped from the undo history are not retained by the report.
  */
 public class ReportSet {
 
@@ -18,7 +21,7 @@ public class ReportSet {
      */
     private static final String NEWLINE_STRING = "<br>&#10;";
 
-    private final ChangeSet changeSet;
+    private final int changeSetIndex;
 
 
     private final List<String> messages;
@@ -29,7 +32,7 @@ public class ReportSet {
     public ReportSet(ChangeSet changeSet, List<String> messages) {
         super();
 
-        this.changeSet = changeSet;
+        this.changeSetIndex = changeSet.getIndex();
         this.messages = messages;
 
         this.htmlText = toHtml(false);
@@ -41,13 +44,43 @@ public class ReportSet {
     }
 
     public String getAsHtml(ChangeSet currentChangeSet) {
-        if (currentChangeSet == changeSet) {
+        if (isActive(currentChangeSet)) {
             return htmlTextActive;
         } else {
             return htmlText;
         }
     }
 
+    /**
+     * @return html paragraph (identified by getId()), null if there is nothing to display
+     */
+    public String getAsParagraph(ChangeSet currentChangeSet) {
+        String text = getAsHtml(currentChangeSet);
+        if (text == null) return null;
+        return "<p id=" + getId() + ">" + text + "</p>";
+    }
+
+    /**
+     * @return id of the html paragraph of the report set
+     */
+    public String getId() {
+        return "report" + changeSetIndex;
+    }
+
+    /**
+     * @return true if the report set belongs to the given (current) ChangeSet
+     */
+    public boolean isActive(ChangeSet currentChangeSet) {
+        return currentChangeSet != null && currentChangeSet.getIndex() == changeSetIndex;
+    }
+
+    /**
+     * @return true if the html paragraph is displayed independent of the active ChangeSet
+     */
+    public boolean hasMessages() {
+        return !messages.isEmpty();
+    }
+
     /**
      * converts messages to html string
      *
@@ -71,7 +104,7 @@ public class ReportSet {
                 if (activeMessage) {
                     s.append("<span bgcolor=Yellow>" + ReportBuffer.ACTIVE_MESSAGE_INDICATOR);
                 }
-                s.append("<a href=http://rails:").append(changeSet.getIndex()).append(">");
+                s.append("<a href=http://rails:").append(changeSetIndex).append(">");
                 s.append(message);
                 s.append("</a>");
                 if (activeMessage) {
@@ -89,7 +122,7 @@ public class ReportSet {
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
-                .addValue(changeSet)
+                .add("changeSetIndex", changeSetIndex)
                 .toString();
     }
 
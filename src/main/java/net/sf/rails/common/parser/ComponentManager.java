@@ -2,7 +2,15 @@ package net.sf.rails.common.parser;
 
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.rails.common.Config;
 import net.sf.rails.common.LocalText;
 import net.sf.rails.common.ResourceLoader;
 import net.sf.rails.common.parser.ConfigurationException;
@@ -13,6 +21,7 @@ import net.sf.rails.game.RailsRoot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 
@@ -20,12 +29,19 @@ public class ComponentManager {
 
     private static final Logger log = LoggerFactory.getLogger(ComponentManager.class);
 
+    public static final String CONFIG_PARALLEL_LOADING = "load.parallel.enabled";
+
+    private static final int MAX_LOADING_THREADS = 4;
+
     private final Map<String, Configurable> mComponentMap = Maps.newHashMap();
 
     public ComponentManager() {}
 
     public void start(RailsRoot root, Tag tag) throws ConfigurationException {
         List<Tag> componentTags = tag.getChildren(XMLTags.COMPONENT_ELEMENT_ID);
+        if (Config.getBoolean(CONFIG_PARALLEL_LOADING, false)) {
+            prefetchComponentFiles(root, componentTags);
+        }
         for (Tag componentTag : componentTags) {
             String compName = componentTag.getAttributeAsString("name");
             log.debug("Found component {}", compName);
@@ -35,6 +51,56 @@ public class ComponentManager {
         }
     }
 
+    /**
+     * Reads and parses the files of all components concurrently into the TagCache.
+     * The components are configured afterwards one after another, in the order of their definition.
+     */
+    private void prefetchComponentFiles(final RailsRoot root, List<Tag> componentTags)
+            throws ConfigurationException {
+
+        final String directory = GameInfoParser.DIRECTORY + ResourceLoader.SEPARATOR + root.getGameName();
+        List<Callable<Tag>> tasks = Lists.newArrayList();
+        for (Tag componentTag : componentTags) {
+            final String name = componentTag.getAttributeAsString(XMLTags.NAME_ATTR);
+            final String file = componentTag.getAttributeAsString(XMLTags.FILE_ATTR);
+            if (name == null || file == null) continue;
+            tasks.add(new Callable<Tag>() {
+                public Tag call() throws ConfigurationException {
+                    return TagCache.findTopTagInFile(file, directory, name, root.getGameOptions());
+                }
+            });
+        }
+        if (tasks.size() < 2) return;
+
+        int nbThreads = Math.min(Math.min(tasks.size(), MAX_LOADING_THREADS),
+                Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ComponentLoading-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long start = System.nanoTime();
+        try {
+            for (Future<Tag> future : executor.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // the error is raised again when the component is configured
+                    log.debug("Prefetching component file failed", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+        log.debug("Prefetched {} component files with {} threads in {} ms", tasks.size(), nbThreads,
+                (System.nanoTime() - start) / 1000000);
+    }
+
     private Configurable configureComponent(RailsRoot root, Tag componentTag)
             throws ConfigurationException {
 
@@ -64,7 +130,7 @@ public class ComponentManager {
         Tag configElement = componentTag;
         if (file != null) {
             String directory =  GameInfoParser.DIRECTORY + ResourceLoader.SEPARATOR + root.getGameName();
-            configElement = Tag.findTopTagInFile(file, directory, name, root.getGameOptions());
+            configElement = TagCache.findTopTagInFile(file, directory, name, root.getGameOptions());
         }
 
         try {
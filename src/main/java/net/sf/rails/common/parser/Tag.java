@@ -371,6 +371,17 @@ public class Tag {
      */
     public static Tag findTopTagInFile(String filename, String directory,
                                        String tagName, GameOptionsSet gameOptions) throws ConfigurationException {
+        Document doc = readDocument(filename, directory, tagName);
+        return findTopTagInDocument(doc, filename, tagName, gameOptions);
+    }
+
+    /**
+     * Opens and parses an xml file.
+     *
+     * @param tagName the name of the top-level tag, used in error messages only
+     */
+    static Document readDocument(String filename, String directory, String tagName)
+            throws ConfigurationException {
         Document doc = null;
         try {
             // Step 1: create a DocumentBuilderFactory and setNamespaceAware
@@ -390,8 +401,14 @@ public class Tag {
         if (doc == null) {
             throw new ConfigurationException("Cannot find file " + filename);
         }
+        return doc;
+    }
 
-        // Now find the named Element
+    /**
+     * Searches the root level of a parsed file for an element with the supplied name.
+     */
+    static Tag findTopTagInDocument(Document doc, String filename,
+                                    String tagName, GameOptionsSet gameOptions) throws ConfigurationException {
         NodeList nodeList = doc.getChildNodes();
         for (int iNode = 0; (iNode < nodeList.getLength()); iNode++) {
             Node childNode = nodeList.item(iNode);
@@ -0,0 +1,128 @@
+package net.sf.rails.common.parser;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.sf.rails.common.GameOptionsSet;
+
+import org.w3c.dom.Document;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * TagCache keeps the parsed game definition files across RailsRoot instances.
+ * <p>
+ * Entries are the DOM documents of the files, keyed by file and directory.
+ * The cached documents are never handed out: each call receives a copy of the document
+ * and new tags with its own game options, thus the IfOption elements are resolved
+ * for each RailsRoot and no tag is shared between RailsRoot instances.
+ * Copying a document is cheaper than reading and parsing the file again.
+ * <p>
+ * The documents are softly referenced, they are removed if the memory is needed.
+ * <p>
+ * The statistics sum up the time spent on reading and parsing the files,
+ * and the time saved by the cache (the parse time of an entry minus the copy time for each hit).
+ */
+public final class TagCache {
+
+    private static final class Entry {
+        private final Document document;
+        private final long nanos;
+
+        private Entry(Document document, long nanos) {
+            this.document = document;
+            this.nanos = nanos;
+        }
+
+        /**
+         * DOM implementations are not thread-safe, even for reading
+         */
+        private synchronized Document copyDocument() {
+            return (Document) document.cloneNode(true);
+        }
+    }
+
+    private static final Cache<List<String>, Entry> entries = CacheBuilder.newBuilder().softValues().build();
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder parseNanos = new LongAdder();
+    private static final LongAdder savedNanos = new LongAdder();
+
+    private TagCache() {}
+
+    /**
+     * Returns the top-level tag of a copy of the cached file, reads and parses the file if it is not cached yet
+     * @see Tag#findTopTagInFile(String, String, String, GameOptionsSet)
+     */
+    public static Tag findTopTagInFile(String filename, String directory, String tagName,
+            GameOptionsSet gameOptions) throws ConfigurationException {
+
+        List<String> key = Arrays.asList(filename, directory);
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null) {
+            hits.increment();
+            long start = System.nanoTime();
+            Document copy = entry.copyDocument();
+            savedNanos.add(Math.max(entry.nanos - (System.nanoTime() - start), 0));
+            return Tag.findTopTagInDocument(copy, filename, tagName, gameOptions);
+        }
+
+        long start = System.nanoTime();
+        Document document = Tag.readDocument(filename, directory, tagName);
+        long nanos = System.nanoTime() - start;
+        misses.increment();
+        parseNanos.add(nanos);
+
+        // the parsed document is used by the caller, a copy is stored
+        entries.asMap().putIfAbsent(key, new Entry((Document) document.cloneNode(true), nanos));
+        return Tag.findTopTagInDocument(document, filename, tagName, gameOptions);
+    }
+
+    /**
+     * Removes all entries, e.g. after game definitions have been changed
+     */
+    public static void clear() {
+        entries.invalidateAll();
+    }
+
+    public static int size() {
+        return (int) entries.size();
+    }
+
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return time in nanoseconds spent on reading and parsing the definition files
+     */
+    public static long getParseNanos() {
+        return parseNanos.sum();
+    }
+
+    /**
+     * @return time in nanoseconds saved by cache hits
+     */
+    public static long getSavedNanos() {
+        return savedNanos.sum();
+    }
+
+    public static String getStatistics() {
+        return MoreObjects.toStringHelper(TagCache.class)
+                .add("size", entries.size())
+                .add("hits", getHits())
+                .add("misses", getMisses())
+                .add("parseMillis", getParseNanos() / 1000000)
+                .add("savedMillis", getSavedNanos() / 1000000)
+                .toString();
+    }
+
+}
@@ -15,6 +15,7 @@ import net.sf.rails.game.state.*;
 import net.sf.rails.ui.swing.GameUIManager;
 import net.sf.rails.util.GameLoader;
 import net.sf.rails.util.GameSaver;
+import net.sf.rails.util.RecoveryJournal;
 import net.sf.rails.util.Util;
 
 import org.apache.commons.lang3.StringUtils;
@@ -45,6 +46,8 @@ public class GameManager extends RailsManager implements Configurable, Owner {
     public static final String ARCHIVE_ENABLED = "save.archive.enabled";
     public static final String ARCHIVE_DIRECTORY = "save.archive.dir";
     public static final String ARCHIVE_KEEP_COUNT = "save.archive.keep_count";
+    public static final String UNDO_HISTORY_LIMIT = "undo.history.limit";
+    public static final String UNDO_HISTORY_ARCHIVE = "undo.history.archive";
 
 
     protected Class<? extends StockRound> stockRoundClass = StockRound.class;
@@ -89,6 +92,8 @@ public class GameManager extends RailsManager implements Configurable, Owner {
      */
     protected final GenericState<RoundFacade> currentRound = new GenericState<>(this, "currentRound");
     protected RoundFacade interruptedRound = null;
+    // rounds that are registered in the root, finished rounds are removed
+    protected final HashSetState<RoundFacade> registeredRounds = HashSetState.create(this, "registeredRounds");
 
     protected final IntegerState startRoundNumber = IntegerState.create(this, "startRoundNumber");
     protected final IntegerState srNumber = IntegerState.create(this, "srNumber");
@@ -137,6 +142,11 @@ public class GameManager extends RailsManager implements Configurable, Owner {
      */
     protected boolean recoverySaveWarning = true;
 
+    /**
+     * append-only journal of the executed actions, created by the first recoverySave
+     */
+    protected RecoveryJournal recoveryJournal = null;
+
     /**
      * Flag to skip a subsequent Done action (if present) during reloading.
      * <br>This is a fix to maintain backwards compatibility when redundant
@@ -412,6 +422,8 @@ public class GameManager extends RailsManager implements Configurable, Owner {
 
     public void init() {
         showCompositeORNumber = !"simple".equalsIgnoreCase(Config.get("or.number_format"));
+        getRoot().getStateManager().getChangeStack().setHistoryLimit(Config.getInt(UNDO_HISTORY_LIMIT, 0),
+                Config.getBoolean(UNDO_HISTORY_ARCHIVE, true));
     }
 
     public void startGame() {
@@ -473,6 +485,32 @@ public class GameManager extends RailsManager implements Configurable, Owner {
 
     protected void setRound(RoundFacade round) {
         currentRound.set(round);
+        releaseRounds();
+    }
+
+    /**
+     * Removes the finished rounds from the root, only the current and the interrupted round are kept.
+     * The removal is part of the current ChangeSet, thus undo registers the rounds again.
+     * <p>
+     * The memory of a released round is only freed once no undo step references it anymore.
+     * This is opt-in: it requires an undo history limit (undo.history.limit) without archive
+     * (undo.history.archive), by default the complete undo history is kept in memory.
+     */
+    protected void releaseRounds() {
+        RoundFacade round = currentRound.value();
+        if (round != null && !registeredRounds.contains(round)) {
+            registeredRounds.add(round);
+        }
+        for (RoundFacade registered : registeredRounds.view()) {
+            if (registered != round && registered != interruptedRound) {
+                registeredRounds.remove(registered);
+                // a released round can become current again, but it is not registered again
+                if (getRoot().locate(registered.getFullURI()) == registered) {
+                    getRoot().deregister(registered);
+                    log.debug("Released round {}", registered.getId());
+                }
+            }
+        }
     }
 
     public void nextRound(Round round) {
@@ -760,6 +798,10 @@ public class GameManager extends RailsManager implements Configurable, Owner {
             log.debug("{}", pa);
         }
 
+        if (result && !isReloading()) {
+            recoverySave();
+        }
+
         return result;
     }
 
@@ -920,10 +962,17 @@ public class GameManager extends RailsManager implements Configurable, Owner {
     protected void recoverySave() {
         if (Config.get("save.recovery.active", "yes").equalsIgnoreCase("no")) return;
 
-        GameSaver gameSaver = new GameSaver(getRoot().getGameData(), executedActions.view());
         try {
-            gameSaver.autoSave();
+            // a closed journal (game over, replaced by another game) is written completely again
+            if (recoveryJournal == null || recoveryJournal.isClosed()) {
+                recoveryJournal = RecoveryJournal.create(getRoot().getGameData());
+            }
+            // only the actions changed since the last call are written
+            recoveryJournal.update(executedActions.view());
             recoverySaveWarning = false;
+            if (isGameOver()) {
+                closeRecoveryJournal();
+            }
         } catch (IOException e) {
             // suppress warning after first occurrence
             if (!recoverySaveWarning) {
@@ -931,7 +980,22 @@ public class GameManager extends RailsManager implements Configurable, Owner {
                 recoverySaveWarning = true;
             }
             log.error("autosave failed", e);
+            // start a new journal on the next attempt
+            closeRecoveryJournal();
+        }
+    }
+
+    /**
+     * Closes the recovery journal, e.g. at the end of the game or if the game is closed
+     */
+    public void closeRecoveryJournal() {
+        if (recoveryJournal == null) return;
+        try {
+            recoveryJournal.close();
+        } catch (IOException e) {
+            log.debug("closing the recovery journal failed", e);
         }
+        recoveryJournal = null;
     }
 
     protected boolean save(GameAction saveAction) {
@@ -1012,15 +1076,21 @@ public class GameManager extends RailsManager implements Configurable, Owner {
     /**
      * tries to reload the current game
      * executes the additional action(s)
+     * <p>
+     * If the file format allows it, only the last executed action and the new actions are decoded,
+     * the last executed action is compared to check that the file continues the current game.
      */
     protected boolean reload(GameAction reloadAction) {
         log.debug("Reloading started");
 
+        // save off the current # of executed actions as it will grow as we execute newly loaded
+        int executedActionsCount = executedActions.size();
+
         /* Use gameLoader to load the game data */
         GameLoader gameLoader = new GameLoader();
         String filepath = reloadAction.getFilepath();
 
-        if (!gameLoader.reloadGameFromFile(getRoot(), new File(filepath))) {
+        if (!gameLoader.reloadGameFromFile(getRoot(), new File(filepath), Math.max(0, executedActionsCount - 1))) {
             return false;
         }
 
@@ -1028,19 +1098,21 @@ public class GameManager extends RailsManager implements Configurable, Owner {
 
         /* gameLoader actions get compared to the executed actions of the current game */
         List<PossibleAction> savedActions = gameLoader.getActions();
+        // index of the first loaded action in the saved game
+        int firstSavedAction = gameLoader.getFirstAction();
+        int savedActionsCount = firstSavedAction + savedActions.size();
 
         setReloading(true);
 
         // Check size
-        if (savedActions.size() < executedActions.size()) {
-            log.warn("found {} actions in new file but have executed {}", savedActions.size(), executedActions.size());
-            log.debug("last executed action: {}", executedActions.get(executedActions.size() - 1));
-            for ( int i = executedActions.size() - 1, j = 5; i >= 0 && j >= 0; i--, j-- ) {
+        if (savedActionsCount < executedActionsCount) {
+            log.warn("found {} actions in new file but have executed {}", savedActionsCount, executedActionsCount);
+            log.debug("last executed action: {}", executedActions.get(executedActionsCount - 1));
+            for ( int i = executedActionsCount - 1, j = 5; i >= 0 && j >= 0; i--, j-- ) {
                 log.debug("executed {}: {}", i, executedActions.get(i));
             }
-            log.debug("last loaded action: {}", savedActions.get(savedActions.size() - 1));
             for ( int i = savedActions.size() -  1, j = 5; i >= 0 && j >= 0; i--, j-- ) {
-                log.debug("loaded {}: {}", i, savedActions.get(i));
+                log.debug("loaded {}: {}", firstSavedAction + i, savedActions.get(i));
             }
 
             DisplayBuffer.add(this, LocalText.getText("LOAD_FAILED_MESSAGE",
@@ -1049,9 +1121,7 @@ public class GameManager extends RailsManager implements Configurable, Owner {
         }
 
         // Check action identity
-        int index = 0;
-        // save off the current # of executed actions as it will grow as we execute newly loaded
-        int executedActionsCount = executedActions.size();
+        int index = firstSavedAction;
         PossibleAction executedAction;
         try {
             for (PossibleAction savedAction : savedActions) {
@@ -1067,7 +1137,8 @@ public class GameManager extends RailsManager implements Configurable, Owner {
                     }
                 } else {
                     if (index == executedActionsCount) {
-                        log.info("Finished comparing old actions, starting to process new actions");
+                        log.info("Finished comparing old actions, starting to process {} new actions",
+                                savedActionsCount - executedActionsCount);
                     }
                     // Found a new action: execute it
                     if (!processOnReload(savedAction)) {
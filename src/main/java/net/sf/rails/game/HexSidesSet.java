@@ -20,22 +20,38 @@ public class HexSidesSet implements Iterable<HexSide> {
     public static HexSidesSet create(BitSet sides) {
         return new HexSidesSet(sides);
     }
+
+    /**
+     * @param bits bitmask with bit n set for side n
+     */
+    public static HexSidesSet create(int bits) {
+        return new HexSidesSet(BitSet.valueOf(new long[]{bits & 0x3F}));
+    }
     
     public static HexSidesSet rotated(HexSidesSet base, HexSide rotation) {
         if (rotation == HexSide.defaultRotation()) return base;
         
-        HexSidesSet.Builder sidesBuilder = HexSidesSet.builder();
-        for (HexSide side:HexSide.all()) {
-            if (base.get(side)) {
-                sidesBuilder.setRotated(side, rotation.negative());
-            }
-        }
-        return sidesBuilder.build();
+        return create(rotateBits(base.getBits(), rotation.negative()));
+    }
+
+    /**
+     * @return bitmask of the sides rotated as by HexSide.rotate
+     */
+    static int rotateBits(int bits, HexSide rotation) {
+        int n = rotation.getTrackPointNumber();
+        return ((bits << n) | (bits >>> (6 - n))) & 0x3F;
     }
     
     public BitSet getSides() {
         return sides;
     }
+
+    /**
+     * @return bitmask with bit n set for side n
+     */
+    public int getBits() {
+        return sides.isEmpty() ? 0 : (int) sides.toLongArray()[0];
+    }
     
     public boolean get(HexSide side) {
         return sides.get(side.getTrackPointNumber());
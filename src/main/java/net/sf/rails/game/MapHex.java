@@ -58,7 +58,7 @@ public class MapHex extends RailsModel implements RailsOwner, Configurable {
         }
 
         public static Coordinates createFromId(String id,
-                                               MapOrientation mapOrientation) throws ConfigurationException {
+                                               boolean lettersGoHorizontal) throws ConfigurationException {
 
             Matcher m = namePattern.matcher(id);
 
@@ -87,7 +87,7 @@ public class MapHex extends RailsModel implements RailsOwner, Configurable {
              * drawing.
              */
             int row, column;
-            if (mapOrientation.lettersGoHorizontal()) {
+            if (lettersGoHorizontal) {
                 row = number;
                 column = letter - '@';
             } else { // letters go vertical (normal case)
@@ -249,7 +249,7 @@ public class MapHex extends RailsModel implements RailsOwner, Configurable {
         // name serves as id
         String id = tag.getAttributeAsString("name");
         Coordinates coordinates =
-                Coordinates.createFromId(id, parent.getMapOrientation());
+                Coordinates.createFromId(id, parent.lettersGoHorizontal());
         MapHex hex = new MapHex(parent, id, coordinates);
         hex.configureFromXML(tag);
         return hex;
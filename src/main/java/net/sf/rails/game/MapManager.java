@@ -1,9 +1,9 @@
 package net.sf.rails.game;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.SortedSet;
 
 import net.sf.rails.common.Config;
@@ -11,12 +11,10 @@ import net.sf.rails.common.parser.Configurable;
 import net.sf.rails.common.parser.ConfigurationException;
 import net.sf.rails.common.parser.Tag;
 
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.ImmutableTable;
-import com.google.common.collect.Table;
 
 
 /**
@@ -25,6 +23,9 @@ import com.google.common.collect.Table;
 public class MapManager extends RailsManager implements Configurable {
 
     private MapOrientation mapOrientation;
+    // the letter layout is defined per map, the orientation enum is shared by all maps
+    private boolean lettersGoHorizontal;
+    private boolean letterAHasEvenNumbers;
 
     private ImmutableMap<MapHex.Coordinates, MapHex> hexes;
     private ImmutableTable<MapHex, HexSide, MapHex> hexTable;
@@ -38,8 +39,12 @@ public class MapManager extends RailsManager implements Configurable {
     // Stop property defaults per stop type
     private ImmutableMap<String, StopType> defaultStopTypes;
     
-    // if required: distance table
-    private Table<MapHex, MapHex, Integer> hexDistances;
+    // dense index of the hexes, in the order of the map definition
+    private ImmutableList<MapHex> indexedHexes;
+    private ImmutableMap<MapHex, Integer> hexIndices;
+
+    // distances between all hexes by hex index, -1 if not connected
+    private int[][] hexDistances;
 
     // Optional map image (SVG file)
     // FIXME: Move to UI class
@@ -64,6 +69,18 @@ public class MapManager extends RailsManager implements Configurable {
         
         mapOrientation = MapOrientation.create(tag);
 
+        String letterOrientation = tag.getAttributeAsString("letterOrientation");
+        if ( "horizontal".equals(letterOrientation)) {
+            lettersGoHorizontal = true;
+        } else if ( "vertical".equals(letterOrientation)) {
+            lettersGoHorizontal = false;
+        } else {
+            throw new ConfigurationException("Invalid letter orientation: " + letterOrientation);
+        }
+
+        String even = tag.getAttributeAsString("even");
+        letterAHasEvenNumbers = ((even.toUpperCase().charAt(0) - 'A')) % 2 == 0;
+
         List<Tag> hexTags = tag.getChildren("Hex");
         ImmutableMap.Builder<MapHex.Coordinates, MapHex> hexBuilder = ImmutableMap.builder();
         ImmutableSortedSet.Builder<Integer> tileCostsBuilder= ImmutableSortedSet.naturalOrder();
@@ -128,6 +145,14 @@ public class MapManager extends RailsManager implements Configurable {
         }
         hexTable = hexTableBuilder.build();
 
+        indexedHexes = ImmutableList.copyOf(hexes.values());
+        ImmutableMap.Builder<MapHex, Integer> hexIndicesBuilder = ImmutableMap.builder();
+        for (int i = 0; i < indexedHexes.size(); i++) {
+            hexIndicesBuilder.put(indexedHexes.get(i), i);
+        }
+        hexIndices = hexIndicesBuilder.build();
+        hexDistances = calculateHexDistances();
+
         for (PublicCompany company : root.getCompanyManager().getAllPublicCompanies()) {
             List<MapHex> homeHexes = company.getHomeHexes();
             if (homeHexes != null) {
@@ -168,6 +193,20 @@ public class MapManager extends RailsManager implements Configurable {
         return mapOrientation;
     }
 
+    /**
+     * @return the lettersGoHorizontal
+     */
+    public boolean lettersGoHorizontal() {
+        return lettersGoHorizontal;
+    }
+
+    /**
+     * @return the letterAHasEvenNumbers
+     */
+    public boolean letterAHasEvenNumbers() {
+        return letterAHasEvenNumbers;
+    }
+
     /**
      * @return Returns the hexes.
      */
@@ -180,6 +219,20 @@ public class MapManager extends RailsManager implements Configurable {
         return hexTable.get(hex, side);
     }
 
+    /**
+     * @return the dense index of the hex (from 0 to the number of hexes - 1)
+     */
+    public int getHexIndex(MapHex hex) {
+        return hexIndices.get(hex);
+    }
+
+    /**
+     * @return the hex with the dense index
+     */
+    public MapHex getHexByIndex(int index) {
+        return indexedHexes.get(index);
+    }
+
     public MapHex getHex(String locationCode) {
         // MapManager is a RailsManager so it is possible to locate by id
         return (MapHex) locate(locationCode);
@@ -232,55 +285,69 @@ public class MapManager extends RailsManager implements Configurable {
     /**
      * Calculate the distance between two hexes as in 1835,
      * i.e. as "the crow without a passport flies".
+     * Hexes are not connected if the map consists of separate parts,
+     * callers have to check for a negative distance.
+     * @return distance in hexes, -1 if the hexes are not connected
      */
     public int getHexDistance (MapHex hex1, MapHex hex2) {
-        if (hexDistances == null) {
-            hexDistances = HashBasedTable.create();
-        }
+        return hexDistances[hexIndices.get(hex1)][hexIndices.get(hex2)];
+    }
 
-        if (!hexDistances.contains(hex1, hex2)) {
-            calculateHexDistances(hex1, hex1, 0);
+    /**
+     * Calculates the distances between all hexes by a breadth-first search from each hex
+     * over the valid neighbours.
+     */
+    private int[][] calculateHexDistances() {
+        int nbHexes = indexedHexes.size();
+        int[][] neighbours = new int[nbHexes][];
+        for (int i = 0; i < nbHexes; i++) {
+            Collection<MapHex> hexNeighbours = hexTable.row(indexedHexes.get(i)).values();
+            neighbours[i] = new int[hexNeighbours.size()];
+            int n = 0;
+            for (MapHex neighbour : hexNeighbours) {
+                neighbours[i][n++] = hexIndices.get(neighbour);
+            }
         }
-        return hexDistances.get(hex1, hex2);
-    }
 
-    private void calculateHexDistances (MapHex initHex, MapHex currentHex, int depth) {
-        hexDistances.put(initHex, currentHex, depth);
-        
-        // check for next hexes
-        depth ++;
-        for (MapHex nextHex:hexTable.row(currentHex).values()) {
-            if (!hexDistances.contains(initHex, nextHex) ||
-                    depth < hexDistances.get(initHex, nextHex)) {
-                calculateHexDistances(initHex, nextHex, depth);
+        int[][] distances = new int[nbHexes][nbHexes];
+        int[] queue = new int[nbHexes];
+        for (int initHex = 0; initHex < nbHexes; initHex++) {
+            int[] row = distances[initHex];
+            Arrays.fill(row, -1);
+            row[initHex] = 0;
+            queue[0] = initHex;
+            int head = 0;
+            int tail = 1;
+            while (head < tail) {
+                int currentHex = queue[head++];
+                for (int nextHex : neighbours[currentHex]) {
+                    if (row[nextHex] == -1) {
+                        row[nextHex] = row[currentHex] + 1;
+                        queue[tail++] = nextHex;
+                    }
+                }
             }
         }
+        return distances;
     }
 
 
     /**
      * Calculate the distances between a given tokenable city hex
      * and all other tokenable city hexes.
-     * <p> Distances are cached.
+     * <p> Distances are precalculated, the cities depend on the current tiles.
      * @param initHex Start hex
      * @return Sorted integer list containing all occurring distances only once.
      */
     public SortedSet<Integer> getCityDistances (MapHex initHex) {
-        
-        if (hexDistances == null) {
-            hexDistances = HashBasedTable.create();
-        }
+        int[] row = hexDistances[hexIndices.get(initHex)];
 
-        if (!hexDistances.containsRow(initHex)) {
-            calculateHexDistances(initHex, initHex, 0);
-        }
-        
         ImmutableSortedSet.Builder<Integer> distances = 
                 ImmutableSortedSet.naturalOrder();
         
-        for (Entry<MapHex, Integer> otherHex:hexDistances.row(initHex).entrySet()) {
-            if (otherHex.getKey().getCurrentTile().hasStations()) {
-                distances.add(otherHex.getValue());
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] >= 0 && indexedHexes.get(i).getCurrentTile().hasStations()) {
+                distances.add(row[i]);
             }
         }
         return distances.build();
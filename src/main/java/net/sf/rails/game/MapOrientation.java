@@ -58,9 +58,6 @@ public enum MapOrientation {
     EW;
 
 
-    private boolean lettersGoHorizontal;
-    private boolean letterAHasEvenNumbers;
-
     public static MapOrientation create(Tag tag) throws ConfigurationException {
         MapOrientation mapOrientation;
         String orientation = tag.getAttributeAsString("tileOrientation");
@@ -72,18 +69,6 @@ public enum MapOrientation {
         catch(IllegalArgumentException exception) {
             throw new ConfigurationException("Invalid Map orientation: " + orientation, exception);
         }
-
-        String letterOrientation = tag.getAttributeAsString("letterOrientation");
-        if ( "horizontal".equals(letterOrientation)) {
-            mapOrientation.lettersGoHorizontal = true;
-        } else if ( "vertical".equals(letterOrientation)) {
-            mapOrientation.lettersGoHorizontal = false;
-        } else {
-            throw new ConfigurationException("Invalid letter orientation: " + letterOrientation);
-        }
-
-        String even = tag.getAttributeAsString("even");
-        mapOrientation.letterAHasEvenNumbers = ((even.toUpperCase().charAt(0) - 'A')) % 2 == 0;
         return mapOrientation;
     }
 
@@ -101,20 +86,6 @@ public enum MapOrientation {
         }
     }
 
-    /**
-     * @return the lettersGoHorizontal
-     */
-    public boolean lettersGoHorizontal() {
-        return lettersGoHorizontal;
-    }
-
-    /**
-     * @return the letterAHasEvenNumbers
-     */
-    public boolean letterAHasEvenNumbers() {
-        return letterAHasEvenNumbers;
-    }
-
     public String getUIClassName() {
         // FIXME: Rails 2.0, move this to some default .xml!
         switch(this) {
@@ -1727,7 +1727,13 @@ public class PublicCompany extends RailsAbstractItem implements Company, RailsMo
                 return baseTokenLayCost.get(0);
             } else {
                 // WARNING: no provision yet for multiple home hexes.
-                return getRoot().getMapManager().getHexDistance(homeHexes.get(0), hex) * baseTokenLayCost.get(0);
+                int distance = getRoot().getMapManager().getHexDistance(homeHexes.get(0), hex);
+                if (distance < 0) {
+                    // the hex is not connected to the home hex over the map
+                    log.warn("No distance from {} to {}, base cost applies", homeHexes.get(0), hex);
+                    return baseTokenLayCost.get(0);
+                }
+                return distance * baseTokenLayCost.get(0);
             }
         } else {
             return 0;
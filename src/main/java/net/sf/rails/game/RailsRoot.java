@@ -3,6 +3,8 @@ package net.sf.rails.game;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.rails.algorithms.MapGraphCache;
+import net.sf.rails.algorithms.RevenueCache;
 import net.sf.rails.algorithms.RevenueManager;
 import net.sf.rails.common.Config;
 import net.sf.rails.common.DisplayBuffer;
@@ -16,6 +18,7 @@ import net.sf.rails.common.parser.ComponentManager;
 import net.sf.rails.common.parser.Configurable;
 import net.sf.rails.common.parser.ConfigurationException;
 import net.sf.rails.common.parser.Tag;
+import net.sf.rails.common.parser.TagCache;
 import net.sf.rails.common.parser.XMLTags;
 import net.sf.rails.game.financial.Bank;
 import net.sf.rails.game.financial.StockMarket;
@@ -49,6 +52,8 @@ public class RailsRoot extends Root implements RailsItem {
 
     // Other Managers
     private ReportManager reportManager;
+    private MapGraphCache mapGraphCache;
+    private final RevenueCache revenueCache = RevenueCache.create();
 
     private RailsRoot(GameData gameData) {
         super();
@@ -69,7 +74,7 @@ public class RailsRoot extends Root implements RailsItem {
         root.init();
         log.debug("RailsRoot: instance initialized");
         root.initGameFromXML();
-        log.debug("RailsRoot: game configuration initialized");
+        log.debug("RailsRoot: game configuration initialized, {}", TagCache.getStatistics());
         root.finishConfiguration();
         log.debug("RailsRoot: game configuration finished");
 
@@ -109,7 +114,7 @@ public class RailsRoot extends Root implements RailsItem {
     private void initGameFromXML() throws ConfigurationException {
         String directory = "data" + ResourceLoader.SEPARATOR + gameData.getGameName();
 
-        Tag componentManagerTag = Tag.findTopTagInFile(
+        Tag componentManagerTag = TagCache.findTopTagInFile(
                 GAME_XML_FILE, directory, XMLTags.COMPONENT_MANAGER_ELEMENT_ID, gameData.getGameOptions() );
 
         ComponentManager componentManager = new ComponentManager();
@@ -146,6 +151,7 @@ public class RailsRoot extends Root implements RailsItem {
             phaseManager.finishConfiguration(this);
             tileManager.finishConfiguration(this);
             mapManager.finishConfiguration(this);
+            mapGraphCache = MapGraphCache.create(this);
             bank.finishConfiguration(this);
             stockMarket.finishConfiguration(this);
 
@@ -215,6 +221,14 @@ public class RailsRoot extends Root implements RailsItem {
         return bank;
     }
 
+    public MapGraphCache getMapGraphCache() {
+        return mapGraphCache;
+    }
+
+    public RevenueCache getRevenueCache() {
+        return revenueCache;
+    }
+
     public ReportManager getReportManager() {
         return reportManager;
     }
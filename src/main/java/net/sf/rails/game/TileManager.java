@@ -16,6 +16,7 @@ import net.sf.rails.common.ResourceLoader;
 import net.sf.rails.common.parser.Configurable;
 import net.sf.rails.common.parser.ConfigurationException;
 import net.sf.rails.common.parser.Tag;
+import net.sf.rails.common.parser.TagCache;
 
 
 public class TileManager extends RailsManager implements Configurable {
@@ -54,7 +55,7 @@ public class TileManager extends RailsManager implements Configurable {
 
         String directory = "data" + ResourceLoader.SEPARATOR + getRoot().getGameName();
         Tag tileDefTop =
-            Tag.findTopTagInFile(tileDefFileName, directory, "Tiles", getRoot().getGameOptions());
+            TagCache.findTopTagInFile(tileDefFileName, directory, "Tiles", getRoot().getGameOptions());
         if (tileDefTop == null)
             throw new ConfigurationException(LocalText.getText("NoTilesTag"));
 
@@ -1,9 +1,7 @@
 package net.sf.rails.game;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.base.Predicate;
 import com.google.common.collect.*;
-import com.google.common.collect.Sets.SetView;
 import net.sf.rails.common.LocalText;
 import net.sf.rails.common.parser.ConfigurationException;
 import net.sf.rails.common.parser.Tag;
@@ -27,59 +25,34 @@ public class TileUpgrade implements Upgrade {
         private final Set<Station> stationsWithNewTrack;
         private final boolean symmetric;
 
-        private Rotation(Set<Track> connectedTracks, Set<Track> newTracks, HexSide rotation,
-                         Map<Station, Station> mapping, boolean symmetric) {
-
+        private Rotation(TileUpgradeTable table, HexSide rotation, Tile baseTile, Tile targetTile) {
+            int r = rotation.getTrackPointNumber();
             this.rotation = rotation;
-            this.stationMapping = mapping;
-            this.symmetric = symmetric;
-
-            HexSidesSet.Builder sidesBuilder = HexSidesSet.builder();
-            for (Track t : connectedTracks) {
-                if (t.getStart().getTrackPointType() == TrackPoint.Type.SIDE) {
-                    sidesBuilder.set((HexSide) t.getStart());
-                }
-                if (t.getEnd().getTrackPointType() == TrackPoint.Type.SIDE) {
-                    sidesBuilder.set((HexSide) t.getEnd());
-                }
-            }
-            connectedSides = sidesBuilder.build();
+            this.symmetric = table.isSymmetric(r);
+            connectedSides = HexSidesSet.create(table.getConnectedSides(r));
+            sidesWithNewTrack = HexSidesSet.create(table.getSidesWithNewTrack(r));
 
-            sidesBuilder = HexSidesSet.builder();
             ImmutableSet.Builder<Station> stationBuilder = ImmutableSet.builder();
-            for (Track t : newTracks) {
-                if (t.getStart().getTrackPointType() == TrackPoint.Type.SIDE) {
-                    sidesBuilder.set((HexSide) t.getStart());
-                } else {
-                    stationBuilder.add((Station) t.getStart());
-                }
-                if (t.getEnd().getTrackPointType() == TrackPoint.Type.SIDE) {
-                    sidesBuilder.set((HexSide) t.getEnd());
-                } else {
-                    stationBuilder.add((Station) t.getEnd());
+            for (Station station : targetTile.getStations()) {
+                if ((table.getStationsWithNewTrack(r) & 1 << station.getNumber()) != 0) {
+                    stationBuilder.add(station);
                 }
             }
             stationsWithNewTrack = stationBuilder.build();
 
-            // Special condition for restrictive tile lays:
-            // If a station with new track has more slots then the replaced station of the base tile
-            // then all sides connecting to the station of the base tile are considered as
-            // sides with new track as well
-            if (stationMapping != null && !stationsWithNewTrack.isEmpty()) {
-                for (Track t : connectedTracks) {
-                    if (t.getStart().getTrackPointType() == TrackPoint.Type.STATION
-                            && t.getEnd().getTrackPointType() == TrackPoint.Type.SIDE) {
-                        Station start = (Station) t.getStart();
-                        if (stationsWithNewTrack.contains(start)
-                                && stationMapping.containsKey(start)
-                                && start.getBaseSlots()
-                                < stationMapping.get(start).getBaseSlots()) {
-                            sidesBuilder.set((HexSide) t.getEnd());
-                        }
+            int[] mapping = table.getStationMapping(r);
+            if (mapping == null) {
+                stationMapping = null;
+            } else {
+                // null values denote removed stations
+                stationMapping = Maps.newHashMapWithExpectedSize(mapping.length);
+                for (int b = 0; b < mapping.length; b++) {
+                    if (mapping[b] >= 0) {
+                        stationMapping.put(baseTile.getStation(b),
+                                mapping[b] == 0 ? null : targetTile.getStation(mapping[b]));
                     }
                 }
             }
-            sidesWithNewTrack = sidesBuilder.build();
         }
 
         public HexSidesSet getConnectedSides() {
@@ -133,8 +106,9 @@ public class TileUpgrade implements Upgrade {
     private Tile targetTile;
 
     /**
-     * Possible rotations given the trackConfiguration
+     * Possible rotations given the trackConfiguration, shared precomputed table
      */
+    private TileUpgradeTable table;
     private Map<HexSide, Rotation> rotations;
     private HexSidesSet rotationSides;
 
@@ -237,16 +211,16 @@ public class TileUpgrade implements Upgrade {
     }
 
     private void initRotations() {
-        HexSidesSet.Builder sideBuilder = HexSidesSet.builder();
+        table = TileUpgradeTable.get(baseTile, targetTile);
         ImmutableMap.Builder<HexSide, Rotation> rotationBuilder = ImmutableMap.builder();
         for (HexSide side : HexSide.all()) {
-            Rotation rotation = processRotations(side);
-            if (rotation != null) {
-                sideBuilder.set(side);
+            if (table.isValid(side.getTrackPointNumber())) {
+                Rotation rotation = new Rotation(table, side, baseTile, targetTile);
+                log.trace("New Rotation for {} => {}: \n{}", baseTile, targetTile, rotation);
                 rotationBuilder.put(side, rotation);
             }
         }
-        rotationSides = sideBuilder.build();
+        rotationSides = HexSidesSet.create(table.getRotations());
         rotations = rotationBuilder.build();
     }
 
@@ -296,34 +270,6 @@ public class TileUpgrade implements Upgrade {
     }
 
 
-    private boolean checkInvalidSides(Rotation rotation, HexSidesSet impassable) {
-        log.trace("Check rotation {} against  impassable{}", rotation, impassable);
-        if (impassable == null) return false; // null implies that no station exists
-        return (rotation.getConnectedSides().intersects(impassable));
-    }
-
-    private boolean checkSideConnectivity(Rotation rotation, HexSidesSet connected, boolean restrictive) {
-        log.trace("Check rotation {} against {}", rotation, connected);
-        if (connected == null) return true; // null implies no connectivity required
-        if (restrictive && !rotation.getSidesWithNewTrack().isEmpty()) {
-            return rotation.getSidesWithNewTrack().intersects(connected);
-        } else {
-            return (rotation.getConnectedSides().intersects(connected));
-        }
-    }
-
-    private boolean checkStationConnectivity(Rotation rotation, Collection<Station> stations) {
-        if (rotation.getStationMapping() == null) return false;
-        log.trace("Check Stations {}, rotation = {}", stations, rotation);
-        for (Station station : stations) {
-            Station targetStation = rotation.getStationMapping().get(station);
-            if (targetStation != null && rotation.getStationsWithNewTrack().contains(targetStation)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     public HexSidesSet getRotationSet() {
         return rotationSides;
     }
@@ -335,134 +281,19 @@ public class TileUpgrade implements Upgrade {
     public HexSidesSet getAllowedRotations(HexSidesSet connected, HexSidesSet impassable, HexSide baseRotation,
                                            Collection<Station> stations, boolean restrictive) {
 
-        HexSidesSet.Builder builder = HexSidesSet.builder();
-        for (HexSide side : rotationSides) {
-            Rotation rotation = rotations.get(side);
-            if (checkInvalidSides(rotation, impassable)) continue;
-            if (checkSideConnectivity(rotation, connected, restrictive) ||
-                    checkStationConnectivity(rotation, stations)) {
-                builder.set(side.rotate(baseRotation));
+        int stationBits = 0;
+        if (stations != null) {
+            for (Station station : stations) {
+                stationBits |= 1 << station.getNumber();
             }
         }
-        HexSidesSet allowed = builder.build();
+        int allowedBits = table.getAllowedRotations(connected == null ? -1 : connected.getBits(),
+                impassable == null ? 0 : impassable.getBits(), stationBits, restrictive);
+        HexSidesSet allowed = HexSidesSet.create(HexSidesSet.rotateBits(allowedBits, baseRotation));
         log.trace("allowed = {}hexSides = {}impassable ={} rotationSides = {}", allowed, connected, impassable, rotationSides);
         return allowed;
     }
 
-    private Rotation processRotations(HexSide side) {
-
-        TrackConfig base = baseTile.getTrackConfig();
-        TrackConfig target = targetTile.getTrackConfig();
-        // create rotation of target, unless default (= 0) rotation
-        if (side != HexSide.get(0)) {
-            target = TrackConfig.createByRotation(target, side);
-        }
-        // check if there are stations to map
-        Map<Station, Station> stationMapping = assignStations(base, target);
-        if (stationMapping != null && !stationMapping.isEmpty()) {
-            if (stationMapping.containsValue(null)) {
-                base = TrackConfig.createByDowngrade(base, base.getTile().getStation(1));
-            }
-            base = TrackConfig.createByStationMapping(base, stationMapping);
-        }
-
-        // and finally check if all tracks are maintained
-        Set<Track> baseTracks = base.getTracks();
-        Set<Track> targetTracks = target.getTracks();
-        SetView<Track> diffTrack = Sets.difference(baseTracks, targetTracks);
-        if (diffTrack.isEmpty()) {
-            SetView<Track> newTracks = Sets.difference(targetTracks, baseTracks);
-            boolean allowed = (targetTile.getPossibleRotations().get(side));
-            Rotation rotObject = new Rotation(targetTracks, newTracks, side, stationMapping, allowed);
-            log.trace("New Rotation for {} => {}: \n{}", baseTile, targetTile, rotObject);
-            return rotObject;
-        } else {
-            log.trace("No Rotation found {} => {}, rotation ={}, remaining Tracks = {}", baseTile, targetTile, side, diffTrack);
-            return null;
-        }
-    }
-
-    private Map<Station, Station> assignStations(TrackConfig base, TrackConfig target) {
-        int baseNb = base.getTile().getNumStations();
-        if (baseNb == 0) return null;
-
-        int targetNb = target.getTile().getNumStations();
-        Map<Station, Station> stationMap = Maps.newHashMapWithExpectedSize(baseNb);
-        if (baseNb == 1) {
-            // only one station in base => baseStation
-            Station baseStation = base.getTile().getStation(1);
-            if (targetNb == 1) {
-                // only one station in target => targetStation
-                Station targetStation = target.getTile().getStation(1);
-                // default case: 1 => 1 mapping
-                stationMap.put(baseStation, targetStation);
-            } else if (targetNb == 0) {
-                // special case: downgrade in 1856 and there is only one station to consider
-                Set<TrackPoint> baseTrack = base.getStationTracks(baseStation);
-                for (TrackPoint side : baseTrack) {
-                    Set<TrackPoint> targetTrack = target.getSideTracks((HexSide) side);
-                    targetTrack.add(side); // connectivity with all other sides
-                    SetView<TrackPoint> diffTrack = Sets.difference(baseTrack, targetTrack);
-                    if (!diffTrack.isEmpty()) return null;
-                }
-                stationMap.put(baseStation, null);
-            }
-        } else { // more than one base station, assign by side connectivity
-            List<Station> noTrackBaseStations = Lists.newArrayList();
-            TreeSet<Station> targetStations = Sets.newTreeSet(target.getTile().getStations());
-            for (Station b : base.getTile().getStations()) {
-                Set<TrackPoint> baseTrack = base.getStationTracks(b);
-                if (baseTrack.isEmpty()) { // if track is empty, keep track to add target later
-                    noTrackBaseStations.add(b);
-                } else {
-                    for (Station t : target.getTile().getStations()) {
-                        Set<TrackPoint> targetTrack = target.getStationTracks(t);
-                        if (checkTrackConnectivity(baseTrack, targetTrack)) {
-                            stationMap.put(b, t);
-                            targetStations.remove(t);
-                            break;
-                        }
-                    }
-                }
-            }
-            // any base Stations remaining
-            for (Station b : noTrackBaseStations) {
-                Station t = targetStations.pollFirst();
-                if (t != null) {
-                    stationMap.put(b, t);
-                }
-            }
-            // check if all base and target stations are assigned
-            if (stationMap.keySet().size() != baseNb ||
-                    Sets.newHashSet(stationMap.values()).size() != targetNb) {
-                stationMap = null;
-                log.debug("Mapping: Not all stations assigned, set stationMap to null");
-            }
-        }
-        return stationMap;
-    }
-
-    private boolean checkTrackConnectivity(Set<TrackPoint> baseTrack, Set<TrackPoint> targetTrack) {
-        SetView<TrackPoint> diffTrack = Sets.difference(baseTrack, targetTrack);
-        if (diffTrack.isEmpty()) {
-            // target maintains connectivity
-            return true;
-        } else {
-            // if not all connections are maintained,
-            Predicate<TrackPoint> checkForStation = new Predicate<TrackPoint>() {
-                public boolean apply(TrackPoint p) {
-                    return (p.getTrackPointType() == TrackPoint.Type.SIDE);
-                }
-            };
-            // check if remaining tracks only lead to other stations
-            if (Sets.filter(diffTrack, checkForStation).isEmpty()) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
@@ -0,0 +1,318 @@
+package net.sf.rails.game;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Sets.SetView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TileUpgradeTable contains the precomputed rotations of the upgrade from a base tile to a target tile.
+ * <p>
+ * Sides are encoded as bitmasks (bit n for side n), stations by their number (bit n for station n).
+ * The station mapping of a rotation maps base station numbers to target station numbers,
+ * 0 denotes a base station without a target station (downgrade in 1856), -1 an unmapped number.
+ * <p>
+ * A table depends only on the track and station definitions of both tiles,
+ * thus tables are shared by all RailsRoot instances that define identical tiles.
+ */
+final class TileUpgradeTable {
+
+    private static final Logger log = LoggerFactory.getLogger(TileUpgradeTable.class);
+
+    private static final int NB_SIDES = 6;
+
+    /**
+     * Tables by the signatures of base and target tile
+     */
+    private static final Map<String, TileUpgradeTable> tables = new ConcurrentHashMap<>();
+
+    private int rotations;
+    private int symmetricRotations;
+    private final int[] connectedSides = new int[NB_SIDES];
+    private final int[] sidesWithNewTrack = new int[NB_SIDES];
+    private final int[] stationsWithNewTrack = new int[NB_SIDES];
+    private final int[][] stationMappings = new int[NB_SIDES][];
+
+    private TileUpgradeTable(Tile baseTile, Tile targetTile) {
+        for (HexSide side : HexSide.all()) {
+            processRotation(baseTile, targetTile, side);
+        }
+    }
+
+    /**
+     * @return the (shared) table for the upgrade from base to target tile
+     */
+    static TileUpgradeTable get(Tile baseTile, Tile targetTile) {
+        String key = signature(baseTile) + "=>" + signature(targetTile);
+        return tables.computeIfAbsent(key, k -> new TileUpgradeTable(baseTile, targetTile));
+    }
+
+    private static String signature(Tile tile) {
+        List<String> tracks = Lists.newArrayList();
+        for (Track track : tile.getTracks()) {
+            tracks.add(track.getStart().getTrackPointNumber() + ":" + track.getEnd().getTrackPointNumber());
+        }
+        Collections.sort(tracks);
+        StringBuilder b = new StringBuilder().append(tracks);
+        for (Station station : tile.getStations()) {
+            b.append(",").append(station.getId()).append("/").append(station.getNumber())
+                    .append("/").append(station.getBaseSlots());
+        }
+        return b.append(",").append(tile.getPossibleRotations().getBits()).toString();
+    }
+
+    /**
+     * @return bitmask of the valid rotations
+     */
+    int getRotations() {
+        return rotations;
+    }
+
+    boolean isValid(int rotation) {
+        return (rotations & 1 << rotation) != 0;
+    }
+
+    boolean isSymmetric(int rotation) {
+        return (symmetricRotations & 1 << rotation) != 0;
+    }
+
+    int getConnectedSides(int rotation) {
+        return connectedSides[rotation];
+    }
+
+    int getSidesWithNewTrack(int rotation) {
+        return sidesWithNewTrack[rotation];
+    }
+
+    int getStationsWithNewTrack(int rotation) {
+        return stationsWithNewTrack[rotation];
+    }
+
+    /**
+     * @return the station mapping indexed by base station number (must not be modified),
+     * null if the base tile has no stations or the stations cannot be mapped
+     */
+    int[] getStationMapping(int rotation) {
+        return stationMappings[rotation];
+    }
+
+    /**
+     * @param connected sides that require connectivity, negative if no connectivity is required
+     * @param impassable sides that must not have track
+     * @param stations bitmask of the base stations that require connectivity
+     * @return bitmask of the allowed rotations, relative to the base tile
+     */
+    int getAllowedRotations(int connected, int impassable, int stations, boolean restrictive) {
+        int allowed = 0;
+        for (int r = 0; r < NB_SIDES; r++) {
+            if (!isValid(r) || (connectedSides[r] & impassable) != 0) continue;
+            if (checkSideConnectivity(r, connected, restrictive) || checkStationConnectivity(r, stations)) {
+                allowed |= 1 << r;
+            }
+        }
+        return allowed;
+    }
+
+    private boolean checkSideConnectivity(int rotation, int connected, boolean restrictive) {
+        if (connected < 0) return true;
+        if (restrictive && sidesWithNewTrack[rotation] != 0) {
+            return (sidesWithNewTrack[rotation] & connected) != 0;
+        } else {
+            return (connectedSides[rotation] & connected) != 0;
+        }
+    }
+
+    private boolean checkStationConnectivity(int rotation, int stations) {
+        int[] mapping = stationMappings[rotation];
+        if (mapping == null) return false;
+        for (int b = 0; b < mapping.length; b++) {
+            if ((stations & 1 << b) == 0) continue;
+            int t = mapping[b];
+            if (t > 0 && (stationsWithNewTrack[rotation] & 1 << t) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void processRotation(Tile baseTile, Tile targetTile, HexSide side) {
+
+        TrackConfig base = baseTile.getTrackConfig();
+        TrackConfig target = targetTile.getTrackConfig();
+        // create rotation of target, unless default (= 0) rotation
+        if (side != HexSide.get(0)) {
+            target = TrackConfig.createByRotation(target, side);
+        }
+        // check if there are stations to map
+        Map<Station, Station> stationMapping = assignStations(base, target);
+        if (stationMapping != null && !stationMapping.isEmpty()) {
+            if (stationMapping.containsValue(null)) {
+                base = TrackConfig.createByDowngrade(base, base.getTile().getStation(1));
+            }
+            base = TrackConfig.createByStationMapping(base, stationMapping);
+        }
+
+        // and finally check if all tracks are maintained
+        Set<Track> baseTracks = base.getTracks();
+        Set<Track> targetTracks = target.getTracks();
+        SetView<Track> diffTrack = Sets.difference(baseTracks, targetTracks);
+        if (diffTrack.isEmpty()) {
+            SetView<Track> newTracks = Sets.difference(targetTracks, baseTracks);
+            encodeRotation(side.getTrackPointNumber(), targetTracks, newTracks, stationMapping);
+            if (targetTile.getPossibleRotations().get(side)) {
+                symmetricRotations |= 1 << side.getTrackPointNumber();
+            }
+            log.trace("New Rotation for {} => {}: {}", baseTile, targetTile, side);
+        } else {
+            log.trace("No Rotation found {} => {}, rotation ={}, remaining Tracks = {}", baseTile, targetTile, side, diffTrack);
+        }
+    }
+
+    private void encodeRotation(int r, Set<Track> connectedTracks, Set<Track> newTracks,
+                                Map<Station, Station> stationMapping) {
+        rotations |= 1 << r;
+
+        for (Track t : connectedTracks) {
+            connectedSides[r] |= sideBit(t.getStart()) | sideBit(t.getEnd());
+        }
+
+        ImmutableSet.Builder<Station> stationBuilder = ImmutableSet.builder();
+        for (Track t : newTracks) {
+            sidesWithNewTrack[r] |= sideBit(t.getStart()) | sideBit(t.getEnd());
+            for (TrackPoint p : new TrackPoint[]{t.getStart(), t.getEnd()}) {
+                if (p.getTrackPointType() == TrackPoint.Type.STATION) {
+                    stationsWithNewTrack[r] |= 1 << ((Station) p).getNumber();
+                    stationBuilder.add((Station) p);
+                }
+            }
+        }
+        Set<Station> newTrackStations = stationBuilder.build();
+
+        // Special condition for restrictive tile lays:
+        // If a station with new track has more slots then the replaced station of the base tile
+        // then all sides connecting to the station of the base tile are considered as
+        // sides with new track as well
+        if (stationMapping != null && !newTrackStations.isEmpty()) {
+            for (Track t : connectedTracks) {
+                if (t.getStart().getTrackPointType() == TrackPoint.Type.STATION
+                        && t.getEnd().getTrackPointType() == TrackPoint.Type.SIDE) {
+                    Station start = (Station) t.getStart();
+                    if (newTrackStations.contains(start)
+                            && stationMapping.containsKey(start)
+                            && start.getBaseSlots()
+                            < stationMapping.get(start).getBaseSlots()) {
+                        sidesWithNewTrack[r] |= sideBit(t.getEnd());
+                    }
+                }
+            }
+        }
+
+        if (stationMapping != null) {
+            int size = 0;
+            for (Station b : stationMapping.keySet()) {
+                size = Math.max(size, b.getNumber() + 1);
+            }
+            int[] mapping = new int[size];
+            Arrays.fill(mapping, -1);
+            for (Map.Entry<Station, Station> entry : stationMapping.entrySet()) {
+                mapping[entry.getKey().getNumber()] = entry.getValue() == null ? 0 : entry.getValue().getNumber();
+            }
+            stationMappings[r] = mapping;
+        }
+    }
+
+    private static int sideBit(TrackPoint point) {
+        if (point.getTrackPointType() == TrackPoint.Type.SIDE) {
+            return 1 << point.getTrackPointNumber();
+        }
+        return 0;
+    }
+
+    private static Map<Station, Station> assignStations(TrackConfig base, TrackConfig target) {
+        int baseNb = base.getTile().getNumStations();
+        if (baseNb == 0) return null;
+
+        int targetNb = target.getTile().getNumStations();
+        Map<Station, Station> stationMap = Maps.newHashMapWithExpectedSize(baseNb);
+        if (baseNb == 1) {
+            // only one station in base => baseStation
+            Station baseStation = base.getTile().getStation(1);
+            if (targetNb == 1) {
+                // only one station in target => targetStation
+                Station targetStation = target.getTile().getStation(1);
+                // default case: 1 => 1 mapping
+                stationMap.put(baseStation, targetStation);
+            } else if (targetNb == 0) {
+                // special case: downgrade in 1856 and there is only one station to consider
+                Set<TrackPoint> baseTrack = base.getStationTracks(baseStation);
+                for (TrackPoint side : baseTrack) {
+                    Set<TrackPoint> targetTrack = target.getSideTracks((HexSide) side);
+                    targetTrack.add(side); // connectivity with all other sides
+                    SetView<TrackPoint> diffTrack = Sets.difference(baseTrack, targetTrack);
+                    if (!diffTrack.isEmpty()) return null;
+                }
+                stationMap.put(baseStation, null);
+            }
+        } else { // more than one base station, assign by side connectivity
+            List<Station> noTrackBaseStations = Lists.newArrayList();
+            TreeSet<Station> targetStations = Sets.newTreeSet(target.getTile().getStations());
+            for (Station b : base.getTile().getStations()) {
+                Set<TrackPoint> baseTrack = base.getStationTracks(b);
+                if (baseTrack.isEmpty()) { // if track is empty, keep track to add target later
+                    noTrackBaseStations.add(b);
+                } else {
+                    for (Station t : target.getTile().getStations()) {
+                        Set<TrackPoint> targetTrack = target.getStationTracks(t);
+                        if (checkTrackConnectivity(baseTrack, targetTrack)) {
+                            stationMap.put(b, t);
+                            targetStations.remove(t);
+                            break;
+                        }
+                    }
+                }
+            }
+            // any base Stations remaining
+            for (Station b : noTrackBaseStations) {
+                Station t = targetStations.pollFirst();
+                if (t != null) {
+                    stationMap.put(b, t);
+                }
+            }
+            // check if all base and target stations are assigned
+            if (stationMap.keySet().size() != baseNb ||
+                    Sets.newHashSet(stationMap.values()).size() != targetNb) {
+                stationMap = null;
+                log.debug("Mapping: Not all stations assigned, set stationMap to null");
+            }
+        }
+        return stationMap;
+    }
+
+    private static boolean checkTrackConnectivity(Set<TrackPoint> baseTrack, Set<TrackPoint> targetTrack) {
+        SetView<TrackPoint> diffTrack = Sets.difference(baseTrack, targetTrack);
+        if (diffTrack.isEmpty()) {
+            // target maintains connectivity
+            return true;
+        } else {
+            // if not all connections are maintained,
+            Predicate<TrackPoint> checkForStation = new Predicate<TrackPoint>() {
+                public boolean apply(TrackPoint p) {
+                    return (p.getTrackPointType() == TrackPoint.Type.SIDE);
+                }
+            };
+            // check if remaining tracks only lead to other stations
+            if (Sets.filter(diffTrack, checkForStation).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
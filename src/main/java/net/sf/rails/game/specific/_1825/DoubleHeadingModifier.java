@@ -6,7 +6,8 @@ import java.util.List;
 
 import net.sf.rails.algorithms.NetworkTrain;
 import net.sf.rails.algorithms.RevenueAdapter;
-import net.sf.rails.algorithms.RevenueDynamicModifier;
+import net.sf.rails.algorithms.RevenuePrimitiveModifier;
+import net.sf.rails.algorithms.RevenueRunState;
 import net.sf.rails.algorithms.RevenueTrainRun;
 import net.sf.rails.common.LocalText;
 
@@ -14,12 +15,17 @@ import net.sf.rails.common.LocalText;
  * Double heading modifier
  * Allows two trains to run as a longer train (double heading)
  */
-public class DoubleHeadingModifier implements RevenueDynamicModifier {
+public class DoubleHeadingModifier implements RevenuePrimitiveModifier {
 
     private static final String TRAIN_SINGLE = "2";
     private static final String DOUBLEHEAD_NAME = "2&2";
     private static final String TRAIN_DOUBLE = "3";
 
+    // primitive calculation: flags by train id and buffer for the 2-train values
+    private boolean[] isSingle;
+    private boolean[] isDoubleHead;
+    private int[] singleValues;
+
     @Override
     public boolean prepareModifier(RevenueAdapter revenueAdapter) {
         int nbTrain2 = 0;
@@ -51,6 +57,60 @@ public class DoubleHeadingModifier implements RevenueDynamicModifier {
         return 0;
     }
 
+    @Override
+    public boolean preparePrimitive(RevenueAdapter revenueAdapter) {
+        List<NetworkTrain> trains = revenueAdapter.getTrains();
+        isSingle = new boolean[trains.size()];
+        isDoubleHead = new boolean[trains.size()];
+        for (int t = 0; t < trains.size(); t++) {
+            isSingle[t] = trains.get(t).getTrainName().equals(TRAIN_SINGLE);
+            isDoubleHead[t] = trains.get(t).getTrainName().equals(DOUBLEHEAD_NAME);
+        }
+        singleValues = new int[trains.size()];
+        return true;
+    }
+
+    @Override
+    public void vertexEntered(int trainId, int vertexId) {}
+
+    @Override
+    public void vertexLeft(int trainId, int vertexId) {}
+
+    @Override
+    public int predictionValue(RevenueRunState run) {
+        return 0;
+    }
+
+    /**
+     * Primitive version of identifyDoubleHeadingTrains:
+     * the values of the 2-trains with the lowest values are removed
+     */
+    @Override
+    public int evaluationValue(RevenueRunState run) {
+        int nbSingles = 0;
+        int nbRemoved = 0;
+        for (int t = run.getStartTrain(); t <= run.getFinalTrain(); t++) {
+            if (isSingle[t]) {
+                // insertion sort, ascending values
+                int value = run.getTrainValue(t);
+                int i = nbSingles++;
+                while (i > 0 && singleValues[i - 1] > value) {
+                    singleValues[i] = singleValues[i - 1];
+                    i--;
+                }
+                singleValues[i] = value;
+            } else if (isDoubleHead[t] && run.getTrainValue(t) != 0) {
+                nbRemoved += 2;
+            }
+        }
+
+        int changeRevenues = 0;
+        for (int i = 0; i < Math.min(nbRemoved, nbSingles); i++) {
+            changeRevenues -= singleValues[i];
+        }
+        return changeRevenues;
+    }
+
     /**
      * returns the runs of the of the double heading trains
      */
@@ -121,6 +181,12 @@ public class DoubleHeadingModifier implements RevenueDynamicModifier {
         return 0;
     }
 
+    @Override
+    public String getCacheKey() {
+        // the prepared state follows from the trains and vertices of the revenue adapter
+        return "";
+    }
+
     @Override
     public String prettyPrint(RevenueAdapter adapter) {
         return LocalText.getText("DoubleHeadingModifier1825", DOUBLEHEAD_NAME, TRAIN_SINGLE, TRAIN_DOUBLE);
@@ -3,12 +3,17 @@ package net.sf.rails.game.specific._1825;
 import java.util.ArrayList;
 import java.util.List;
 
+import net.sf.rails.algorithms.NetworkVertex;
 import net.sf.rails.algorithms.RevenueAdapter;
-import net.sf.rails.algorithms.RevenueDynamicModifier;
+import net.sf.rails.algorithms.RevenuePrimitiveModifier;
+import net.sf.rails.algorithms.RevenueRunState;
 import net.sf.rails.algorithms.RevenueTrainRun;
 
 
-public class TerminateAtMajorModifier implements RevenueDynamicModifier {
+public class TerminateAtMajorModifier implements RevenuePrimitiveModifier {
+
+    // primitive calculation: major flag by vertex id
+    private boolean[] vertexMajor;
 
     @Override
     public boolean prepareModifier(RevenueAdapter revenueAdapter) {
@@ -22,6 +27,41 @@ public class TerminateAtMajorModifier implements RevenueDynamicModifier {
         return 0;
     }
 
+    @Override
+    public boolean preparePrimitive(RevenueAdapter revenueAdapter) {
+        List<NetworkVertex> vertices = revenueAdapter.getRCVertices();
+        vertexMajor = new boolean[vertices.size()];
+        for (int v = 0; v < vertices.size(); v++) {
+            vertexMajor[v] = vertices.get(v).isMajor();
+        }
+        return true;
+    }
+
+    @Override
+    public void vertexEntered(int trainId, int vertexId) {}
+
+    @Override
+    public void vertexLeft(int trainId, int vertexId) {}
+
+    @Override
+    public int predictionValue(RevenueRunState run) {
+        // cannot be predicted
+        return 0;
+    }
+
+    @Override
+    public int evaluationValue(RevenueRunState run) {
+        // primitive version of identifyInvalidRuns
+        int changeRevenues = 0;
+        for (int t = run.getStartTrain(); t <= run.getFinalTrain(); t++) {
+            if (!run.hasAValidRun(t)) continue;
+            if (!vertexMajor[run.getFirstVertex(t)] || !vertexMajor[run.getLastVertex(t)]) {
+                changeRevenues -= run.getTrainValue(t);
+            }
+        }
+        return changeRevenues;
+    }
+
     private List<RevenueTrainRun> identifyInvalidRuns(List<RevenueTrainRun> runs) {
         // check if runs end and start at major stations
         List<RevenueTrainRun> invalidRuns = new ArrayList<RevenueTrainRun>();
@@ -63,6 +103,12 @@ public class TerminateAtMajorModifier implements RevenueDynamicModifier {
         return 0;
     }
 
+    @Override
+    public String getCacheKey() {
+        // the prepared state follows from the trains and vertices of the revenue adapter
+        return "";
+    }
+
     @Override
     public String prettyPrint(RevenueAdapter adapter) {
         // nothing to do
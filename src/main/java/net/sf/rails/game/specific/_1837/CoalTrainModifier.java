@@ -5,7 +5,8 @@ import java.util.List;
 
 import net.sf.rails.algorithms.NetworkTrain;
 import net.sf.rails.algorithms.RevenueAdapter;
-import net.sf.rails.algorithms.RevenueDynamicModifier;
+import net.sf.rails.algorithms.RevenuePrimitiveModifier;
+import net.sf.rails.algorithms.RevenueRunState;
 import net.sf.rails.algorithms.RevenueTrainRun;
 import net.sf.rails.common.LocalText;
 
@@ -15,7 +16,7 @@ import net.sf.rails.common.LocalText;
  * implementation allows several Coal trains
  * @author MBrumm
  */
-public class CoalTrainModifier implements RevenueDynamicModifier {
+public class CoalTrainModifier implements RevenuePrimitiveModifier {
 
         private int nbCOAL = 0; // store the number of Coal Trains
 
@@ -47,6 +48,29 @@ public class CoalTrainModifier implements RevenueDynamicModifier {
         }
     }
 
+    @Override
+    public boolean preparePrimitive(RevenueAdapter revenueAdapter) {
+        return true;
+    }
+
+    @Override
+    public void vertexEntered(int trainId, int vertexId) {}
+
+    @Override
+    public void vertexLeft(int trainId, int vertexId) {}
+
+    @Override
+    public int predictionValue(RevenueRunState run) {
+        // nothing to do here
+        return 0;
+    }
+
+    @Override
+    public int evaluationValue(RevenueRunState run) {
+        // nothing to do here
+        return 0;
+    }
+
     @Override
     public int predictionValue(List<RevenueTrainRun> runs) {
         // nothing to do here
@@ -74,6 +98,12 @@ public class CoalTrainModifier implements RevenueDynamicModifier {
         return value;
     }
 
+    @Override
+    public String getCacheKey() {
+        // the prepared state follows from the trains and vertices of the revenue adapter
+        return "";
+    }
+
     @Override
     public String prettyPrint(RevenueAdapter adapter) {
         return LocalText.getText("CoalTrainModifier");
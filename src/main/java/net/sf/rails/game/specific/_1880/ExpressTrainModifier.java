@@ -1,6 +1,7 @@
 package net.sf.rails.game.specific._1880;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -12,10 +13,12 @@ import com.google.common.collect.Ordering;
 import net.sf.rails.algorithms.NetworkTrain;
 import net.sf.rails.algorithms.NetworkVertex;
 import net.sf.rails.algorithms.RevenueAdapter;
-import net.sf.rails.algorithms.RevenueDynamicModifier;
+import net.sf.rails.algorithms.RevenueBonus;
+import net.sf.rails.algorithms.RevenuePrimitiveModifier;
+import net.sf.rails.algorithms.RevenueRunState;
 import net.sf.rails.algorithms.RevenueTrainRun;
 
-    public class ExpressTrainModifier implements RevenueDynamicModifier {
+    public class ExpressTrainModifier implements RevenuePrimitiveModifier {
 
         private static final String TRAIN_6E = "6E";
         private static final String TRAIN_8E = "8E";
@@ -24,6 +27,13 @@ import net.sf.rails.algorithms.RevenueTrainRun;
 
         private boolean hasExpress;
 
+        // primitive calculation: express length by train id (0 for other trains),
+        // vertex values by train id and vertex id, station flag by vertex id
+        private int[] expressLength;
+        private int[][] vertexValues;
+        private boolean[] vertexStation;
+        private int[] sortedVertices;
+
         @Override
         public boolean prepareModifier(RevenueAdapter revenueAdapter) {
             // 1. check if there is a Express Train in the train set
@@ -90,6 +100,90 @@ import net.sf.rails.algorithms.RevenueTrainRun;
             return value;
         }
 
+        @Override
+        public boolean preparePrimitive(RevenueAdapter revenueAdapter) {
+            // complex bonuses depend on the vertex list, thus the list based calculation is required
+            if (RevenueBonus.getNumberNonSimpleBonuses(revenueAdapter.getRevenueBonuses()) != 0) {
+                return false;
+            }
+            List<NetworkTrain> trains = revenueAdapter.getTrains();
+            List<NetworkVertex> vertices = revenueAdapter.getRCVertices();
+            expressLength = new int[trains.size()];
+            vertexValues = new int[trains.size()][];
+            for (int t = 0; t < trains.size(); t++) {
+                NetworkTrain train = trains.get(t);
+                if (TRAIN_6E.equals(train.getTrainName())) {
+                    expressLength[t] = 6;
+                } else if (TRAIN_8E.equals(train.getTrainName())) {
+                    expressLength[t] = 8;
+                } else {
+                    continue;
+                }
+                vertexValues[t] = new int[vertices.size()];
+                for (int v = 0; v < vertices.size(); v++) {
+                    vertexValues[t][v] = revenueAdapter.getVertexValue(vertices.get(v), train,
+                            revenueAdapter.getPhase());
+                }
+            }
+            vertexStation = new boolean[vertices.size()];
+            for (int v = 0; v < vertices.size(); v++) {
+                vertexStation[v] = vertices.get(v).isStation();
+            }
+            sortedVertices = new int[vertices.size()];
+            return true;
+        }
+
+        @Override
+        public void vertexEntered(int trainId, int vertexId) {}
+
+        @Override
+        public void vertexLeft(int trainId, int vertexId) {}
+
+        /**
+         * Primitive version of extractExpressRun and getRunValueForVertices:
+         * the vertices of the revenue calculator are in value order, thus the run is sorted by id
+         */
+        private int expressRunValue(RevenueRunState run, int trainId) {
+            if (!run.hasAValidRun(trainId)) return 0;
+
+            int nbVertices = run.getNbVertices(trainId);
+            for (int i = 0; i < nbVertices; i++) {
+                sortedVertices[i] = run.getVertex(trainId, i);
+            }
+            Arrays.sort(sortedVertices, 0, nbVertices);
+
+            int baseVertex = run.getVertex(trainId, 0);
+            int value = vertexValues[trainId][baseVertex];
+            int inRunNumber = 1;
+            for (int i = 0; i < nbVertices; i++) {
+                int vertex = sortedVertices[i];
+                if (vertex == baseVertex) continue;
+                if (!vertexStation[vertex]) {
+                    // keep ferry malus vertices
+                    value += vertexValues[trainId][vertex];
+                } else if (inRunNumber < expressLength[trainId]) {
+                    value += vertexValues[trainId][vertex];
+                    inRunNumber ++;
+                }
+            }
+            return value;
+        }
+
+        @Override
+        public int predictionValue(RevenueRunState run) {
+            return evaluationValue(run);
+        }
+
+        @Override
+        public int evaluationValue(RevenueRunState run) {
+            int value = 0;
+            for (int t = run.getStartTrain(); t <= run.getFinalTrain(); t++) {
+                if (expressLength[t] == 0) continue;
+                value += expressRunValue(run, t) - run.getTrainValue(t);
+            }
+            return value;
+        }
+
         @Override
         public int predictionValue(List<RevenueTrainRun> runs) {
             return valueChange(runs, false);
@@ -122,6 +216,12 @@ import net.sf.rails.algorithms.RevenueTrainRun;
             return 0;
         }
 
+        @Override
+        public String getCacheKey() {
+            // the prepared state follows from the trains and vertices of the revenue adapter
+            return "";
+        }
+
         @Override
         public String prettyPrint(RevenueAdapter revenueAdapter) {
             return null;
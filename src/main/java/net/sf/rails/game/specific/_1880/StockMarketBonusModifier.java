@@ -3,7 +3,8 @@ package net.sf.rails.game.specific._1880;
 import java.util.List;
 
 import net.sf.rails.algorithms.RevenueAdapter;
-import net.sf.rails.algorithms.RevenueDynamicModifier;
+import net.sf.rails.algorithms.RevenuePrimitiveModifier;
+import net.sf.rails.algorithms.RevenueRunState;
 import net.sf.rails.algorithms.RevenueTrainRun;
 import net.sf.rails.common.LocalText;
 import net.sf.rails.game.PublicCompany;
@@ -13,7 +14,7 @@ import net.sf.rails.game.PublicCompany;
  * implement as a dynamic ex-post modifier
  */
 
-public class StockMarketBonusModifier implements RevenueDynamicModifier {
+public class StockMarketBonusModifier implements RevenuePrimitiveModifier {
 
     private int bonusValue;
 
@@ -28,6 +29,27 @@ public class StockMarketBonusModifier implements RevenueDynamicModifier {
         return false;
     }
 
+    @Override
+    public boolean preparePrimitive(RevenueAdapter revenueAdapter) {
+        return true;
+    }
+
+    @Override
+    public void vertexEntered(int trainId, int vertexId) {}
+
+    @Override
+    public void vertexLeft(int trainId, int vertexId) {}
+
+    @Override
+    public int predictionValue(RevenueRunState run) {
+        return bonusValue;
+    }
+
+    @Override
+    public int evaluationValue(RevenueRunState run) {
+        return bonusValue;
+    }
+
     @Override
     public int predictionValue(List<RevenueTrainRun> runs) {
         return bonusValue;
@@ -49,6 +71,12 @@ public class StockMarketBonusModifier implements RevenueDynamicModifier {
         return 0;
     }
 
+    @Override
+    public String getCacheKey() {
+        // the bonus depends on the stock price, which is not part of the revenue adapter
+        return String.valueOf(bonusValue);
+    }
+
     @Override
     public String prettyPrint(RevenueAdapter revenueAdapter) {
         return LocalText.getText("1880StockMarketBonus", bonusValue);
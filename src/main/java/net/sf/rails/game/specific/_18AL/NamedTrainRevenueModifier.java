@@ -7,7 +7,8 @@ import net.sf.rails.algorithms.NetworkTrain;
 import net.sf.rails.algorithms.NetworkVertex;
 import net.sf.rails.algorithms.RevenueAdapter;
 import net.sf.rails.algorithms.RevenueBonus;
-import net.sf.rails.algorithms.RevenueDynamicModifier;
+import net.sf.rails.algorithms.RevenuePrimitiveModifier;
+import net.sf.rails.algorithms.RevenueRunState;
 import net.sf.rails.algorithms.RevenueStaticModifier;
 import net.sf.rails.algorithms.RevenueTrainRun;
 import net.sf.rails.common.GameOption;
@@ -19,12 +20,16 @@ import net.sf.rails.game.RailsRoot;
 import net.sf.rails.game.Train;
 
 
-public class NamedTrainRevenueModifier implements RevenueStaticModifier, RevenueDynamicModifier, Configurable {
+public class NamedTrainRevenueModifier implements RevenueStaticModifier, RevenuePrimitiveModifier, Configurable {
 
     private boolean dynamic;
     private List<RevenueBonus> bonuses;
     private int bonusMaximum;
 
+    // primitive calculation: vertex ids and values of the bonuses (null if a vertex is not in the calculator)
+    private int[][] bonusVertices;
+    private int[] bonusValues;
+
     @Override
     public void configureFromXML(Tag tag) throws ConfigurationException {
         // do nothing
@@ -105,6 +110,60 @@ public class NamedTrainRevenueModifier implements RevenueStaticModifier, Revenue
         return true;
     }
 
+    @Override
+    public boolean preparePrimitive(RevenueAdapter revenueAdapter) {
+        bonusVertices = new int[bonuses.size()][];
+        bonusValues = new int[bonuses.size()];
+        for (int b = 0; b < bonuses.size(); b++) {
+            RevenueBonus bonus = bonuses.get(b);
+            bonusValues[b] = bonus.getValue();
+            int[] vertices = new int[bonus.getVertices().size()];
+            int i = 0;
+            for (NetworkVertex vertex:bonus.getVertices()) {
+                vertices[i] = revenueAdapter.getRCVertexId(vertex);
+                if (vertices[i++] < 0) {
+                    // vertex cannot be part of any run
+                    vertices = null;
+                    break;
+                }
+            }
+            bonusVertices[b] = vertices;
+        }
+        return true;
+    }
+
+    @Override
+    public void vertexEntered(int trainId, int vertexId) {}
+
+    @Override
+    public void vertexLeft(int trainId, int vertexId) {}
+
+    @Override
+    public int predictionValue(RevenueRunState run) {
+        return bonusMaximum;
+    }
+
+    @Override
+    public int evaluationValue(RevenueRunState run) {
+        int bonusValue = 0;
+        for (int b = 0; b < bonusVertices.length; b++) {
+            if (bonusVertices[b] == null) continue;
+            for (int t = run.getStartTrain(); t <= run.getFinalTrain(); t++) {
+                if (containsAll(run, t, bonusVertices[b])) {
+                    bonusValue += bonusValues[b];
+                }
+            }
+        }
+        return bonusValue;
+    }
+
+    private boolean containsAll(RevenueRunState run, int trainId, int[] vertices) {
+        for (int vertex:vertices) {
+            if (!run.containsVertex(trainId, vertex)) return false;
+        }
+        return true;
+    }
+
     @Override
     public int predictionValue(List<RevenueTrainRun> runs) {
         return bonusMaximum;
@@ -6,16 +6,22 @@ import java.util.List;
 import net.sf.rails.algorithms.NetworkTrain;
 import net.sf.rails.algorithms.NetworkVertex;
 import net.sf.rails.algorithms.RevenueAdapter;
-import net.sf.rails.algorithms.RevenueDynamicModifier;
+import net.sf.rails.algorithms.RevenuePrimitiveModifier;
+import net.sf.rails.algorithms.RevenueRunState;
 import net.sf.rails.algorithms.RevenueTrainRun;
 import net.sf.rails.common.LocalText;
 
 
-public class PullmanRevenueModifier implements RevenueDynamicModifier {
+public class PullmanRevenueModifier implements RevenuePrimitiveModifier {
 
     private boolean hasPullman;
     private int maxValue;
 
+    // primitive calculation: major vertex ids by descending value, values and visits by vertex id
+    private int[] majorsByValue;
+    private int[] majorValues;
+    private int[] majorVisits;
+
     @Override
     public boolean prepareModifier(RevenueAdapter revenueAdapter) {
         // 1. check if there is a Pullman in the train set
@@ -35,6 +41,50 @@ public class PullmanRevenueModifier implements RevenueDynamicModifier {
         return true;
     }
 
+    @Override
+    public boolean preparePrimitive(RevenueAdapter revenueAdapter) {
+        List<NetworkVertex> vertices = revenueAdapter.getRCVertices();
+        majorValues = new int[vertices.size()];
+        majorVisits = new int[vertices.size()];
+        int nbMajors = 0;
+        for (int id = 0; id < vertices.size(); id++) {
+            if (vertices.get(id).isMajor()) nbMajors++;
+        }
+        // the vertices of the revenue calculator are ordered by descending value
+        majorsByValue = new int[nbMajors];
+        int m = 0;
+        for (int id = 0; id < vertices.size(); id++) {
+            NetworkVertex vertex = vertices.get(id);
+            if (!vertex.isMajor()) continue;
+            majorValues[id] = vertex.getValue();
+            majorsByValue[m++] = id;
+        }
+        return true;
+    }
+
+    @Override
+    public void vertexEntered(int trainId, int vertexId) {
+        majorVisits[vertexId]++;
+    }
+
+    @Override
+    public void vertexLeft(int trainId, int vertexId) {
+        majorVisits[vertexId]--;
+    }
+
+    @Override
+    public int predictionValue(RevenueRunState run) {
+        return maxValue;
+    }
+
+    @Override
+    public int evaluationValue(RevenueRunState run) {
+        for (int id : majorsByValue) {
+            if (majorVisits[id] > 0) return majorValues[id];
+        }
+        return 0;
+    }
+
     @Override
     public int evaluationValue(List<RevenueTrainRun> runs, boolean optimalRuns) {
         return pullmanValue(runs);
@@ -68,6 +118,12 @@ public class PullmanRevenueModifier implements RevenueDynamicModifier {
         // do nothing here (all is done by changing the evaluation value)
     }
 
+    @Override
+    public String getCacheKey() {
+        // the prepared state follows from the trains and vertices of the revenue adapter
+        return "";
+    }
+
     @Override
     public String prettyPrint(RevenueAdapter revenueAdapter) {
         return LocalText.getText("Pullman") + " = " + pullmanValue(revenueAdapter.getOptimalRun());
@@ -1,10 +1,17 @@
 package net.sf.rails.game.state;
+
+import java.io.Serializable;
+
 /**
  * Base Class for all Change Objects
  * 
  * Replaces previous move interface
+ * 
+ * Changes are serializable to be archived by the ChangeStack (see ChangeSetArchive)
  */
-public abstract class Change {
+public abstract class Change implements Serializable {
+
+    private static final long serialVersionUID = 1L;
     
     protected void init(State state){
         state.getStateManager().getChangeStack().addChange(this);
@@ -6,6 +6,7 @@ import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -17,7 +18,9 @@ import static com.google.common.base.Preconditions.checkState;
  * ChangeSet objects are stored in the ChangeStack.
  */
 
-public class ChangeSet {
+public class ChangeSet implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static final Logger log = LoggerFactory.getLogger(ChangeSet.class);
 
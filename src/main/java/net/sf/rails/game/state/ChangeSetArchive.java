@@ -0,0 +1,168 @@
+package net.sf.rails.game.state;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * ChangeSetArchive stores ChangeSets outside of the ChangeStack in temporary segment files.
+ * <p>
+ * Items are stored by their fullURI, values (strings, numbers, enums and immutable collections) are serialized.
+ * All other objects (e.g. the actions and deregistered items) stay in memory,
+ * thus restored ChangeSets reference the same objects as before.
+ * Segments are restored in the reverse order of storing.
+ */
+final class ChangeSetArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeSetArchive.class);
+
+    private static final ImmutableSet<Class<?>> VALUE_CLASSES = ImmutableSet.<Class<?>>of(String.class,
+            Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class, Boolean.class,
+            Character.class, Object[].class);
+
+    private static final String COLLECT_PACKAGE = ImmutableCollection.class.getPackage().getName();
+
+    private static final class Segment {
+        private final Path file;
+        private final List<Object> externals;
+        private final int size;
+
+        private Segment(Path file, List<Object> externals, int size) {
+            this.file = file;
+            this.externals = externals;
+            this.size = size;
+        }
+    }
+
+    private final Root root;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private int size = 0;
+
+    ChangeSetArchive(Root root) {
+        this.root = root;
+    }
+
+    /**
+     * @return number of archived ChangeSets
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * Stores the ChangeSets as a new segment
+     * @throws IOException if the segment cannot be written, the archive is unchanged
+     */
+    void push(List<ChangeSet> changeSets) throws IOException {
+        Path file = Files.createTempFile("rails-changes", ".tmp");
+        file.toFile().deleteOnExit();
+        List<Object> externals;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file));
+                SegmentOutput oos = new SegmentOutput(out, root)) {
+            oos.writeInt(changeSets.size());
+            for (ChangeSet changeSet : changeSets) {
+                oos.writeObject(changeSet);
+            }
+            externals = oos.getExternals();
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        segments.push(new Segment(file, externals, changeSets.size()));
+        size += changeSets.size();
+        log.debug("Archived {} ChangeSets in {}", changeSets.size(), file);
+    }
+
+    /**
+     * Removes the latest segment
+     * @return the ChangeSets in the order they were stored
+     * @throws IOException if the segment cannot be read, the segment is lost
+     */
+    List<ChangeSet> pop() throws IOException {
+        Segment segment = segments.pop();
+        size -= segment.size;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(segment.file));
+                ObjectInputStream ois = new ReferenceStreams.Input(in, root, segment.externals)) {
+            ImmutableList.Builder<ChangeSet> changeSets = ImmutableList.builder();
+            for (int i = ois.readInt(); i > 0; i--) {
+                changeSets.add((ChangeSet) ois.readObject());
+            }
+            log.debug("Restored {} ChangeSets from {}", segment.size, segment.file);
+            return changeSets.build();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Invalid segment " + segment.file, e);
+        } finally {
+            Files.deleteIfExists(segment.file);
+        }
+    }
+
+    /**
+     * Removes all segments
+     */
+    void clear() {
+        for (Segment segment : segments) {
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                log.warn("Unable to delete {}", segment.file, e);
+            }
+        }
+        segments.clear();
+        size = 0;
+    }
+
+    private static boolean isValue(Object obj) {
+        if (obj instanceof Change || obj instanceof ChangeSet || obj instanceof Enum
+                || VALUE_CLASSES.contains(obj.getClass())) {
+            return true;
+        }
+        // immutable collections are usually written in their serialized form
+        return obj instanceof ImmutableCollection || obj instanceof ImmutableMap || obj instanceof ImmutableMultimap
+                || obj.getClass().getName().startsWith(COLLECT_PACKAGE) && obj.getClass().getName().endsWith("SerializedForm");
+    }
+
+    private static final class SegmentOutput extends ReferenceStreams.Output {
+        private final Root root;
+
+        private SegmentOutput(OutputStream out, Root root) throws IOException {
+            super(out, Collections.emptyList());
+            this.root = root;
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            // deregistered items cannot be located on restore
+            if (obj instanceof Item && obj != root && root.locateFullURI(((Item) obj).getFullURI()) != obj) {
+                return addExternal(obj);
+            }
+            Object replaced = super.replaceObject(obj);
+            if (replaced != obj || isValue(obj)) {
+                return replaced;
+            }
+            return addExternal(obj);
+        }
+    }
+
+}
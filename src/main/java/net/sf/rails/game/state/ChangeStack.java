@@ -2,7 +2,9 @@ package net.sf.rails.game.state;
 
 import static com.google.common.base.Preconditions.checkState;
 
+import java.io.IOException;
 import java.util.Deque;
+import java.util.List;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -10,6 +12,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 public class ChangeStack {
@@ -26,6 +29,14 @@ public class ChangeStack {
 
     // dynamic fields
     private ImmutableList.Builder<Change> changeBuilder;
+    // index of the stack before the first ChangeSet (larger than zero after ChangeSets are dropped)
+    private int baseIndex = 0;
+
+    // maximum number of ChangeSets on each of the undo and redo stack, zero for no limit
+    private int historyLimit = 0;
+    // ChangeSets beyond the limit, null if they are dropped
+    private ChangeSetArchive undoArchive;
+    private ChangeSetArchive redoArchive;
 
     private ChangeStack(StateManager stateManager) {
         this.stateManager = stateManager;
@@ -51,6 +62,31 @@ public class ChangeStack {
         log.debug("Added ChangeReporter {}", reporter);
     }
 
+    /**
+     * Bounds the number of ChangeSets kept in memory on the undo and on the redo stack.
+     * If the limit is exceeded, the older half of the ChangeSets is moved into a temporary file
+     * and read back when undo or redo reaches them.
+     * Without archive they are dropped instead, thus undo is limited to the latest ChangeSets.
+     * @param limit maximum number of ChangeSets in memory, zero for no limit
+     * @param archive true if ChangeSets beyond the limit are archived, false if they are dropped
+     */
+    public void setHistoryLimit(int limit, boolean archive) {
+        historyLimit = Math.max(limit, 0);
+        if (archive && undoArchive == null) {
+            undoArchive = new ChangeSetArchive(stateManager.getRoot());
+            redoArchive = new ChangeSetArchive(stateManager.getRoot());
+        } else if (!archive && undoArchive != null) {
+            // archived ChangeSets are dropped
+            baseIndex += undoArchive.size();
+            undoArchive.clear();
+            redoArchive.clear();
+            undoArchive = null;
+            redoArchive = null;
+        }
+        log.debug("ChangeStack history limit {}, archive {}", historyLimit, archive);
+        compactHistory();
+    }
+
     /**
      * @return the previous (closed) changeSet, null if empty
      */
@@ -80,11 +116,15 @@ public class ChangeStack {
     public void close(ChangeAction action) {
         if (checkRequirementsForClose(action)) {
             // this has to be done before the changeBuilder closes
-            int index = undoStack.size() + 1;
+            int index = getCurrentIndex() + 1;
             ChangeSet closeSet = new ChangeSet(changeBuilder.build(), action, index);
             log.debug("<<< Closed changeSet {}", closeSet);
             undoStack.addLast(closeSet);
             redoStack.clear();
+            if (redoArchive != null) {
+                redoArchive.clear();
+            }
+            compactHistory();
 
             if (reporter != null) {
                 reporter.updateOnClose();
@@ -101,6 +141,86 @@ public class ChangeStack {
         changeBuilder = ImmutableList.builder();
     }
 
+    /**
+     * Moves the oldest ChangeSets of the undo stack and the newest of the redo stack
+     * beyond the history limit into the archives (or drops them)
+     */
+    private void compactHistory() {
+        if (historyLimit == 0) return;
+        int keep = (historyLimit + 1) / 2;
+
+        if (undoStack.size() > historyLimit) {
+            List<ChangeSet> oldest = Lists.newArrayList();
+            while (undoStack.size() > keep) {
+                oldest.add(undoStack.pollFirst());
+            }
+            if (undoArchive == null) {
+                baseIndex += oldest.size();
+                log.debug("Dropped {} ChangeSets, undo possible to index {}", oldest.size(), baseIndex);
+            } else if (!archive(undoArchive, oldest)) {
+                for (ChangeSet changeSet : Lists.reverse(oldest)) {
+                    undoStack.addFirst(changeSet);
+                }
+            }
+        }
+
+        if (redoStack.size() > historyLimit) {
+            List<ChangeSet> newest = Lists.newArrayList(Iterables.skip(redoStack, keep));
+            for (int i = 0; i < newest.size(); i++) {
+                redoStack.pollLast();
+            }
+            if (redoArchive == null) {
+                log.debug("Dropped {} ChangeSets, redo possible to index {}", newest.size(), getMaximumIndex());
+            } else if (!archive(redoArchive, newest)) {
+                redoStack.addAll(newest);
+            }
+        }
+    }
+
+    private boolean archive(ChangeSetArchive archive, List<ChangeSet> changeSets) {
+        try {
+            archive.push(changeSets);
+            return true;
+        } catch (IOException e) {
+            // keep all ChangeSets in memory
+            log.warn("Unable to archive ChangeSets, history limit removed", e);
+            historyLimit = 0;
+            return false;
+        }
+    }
+
+    /**
+     * Reads the latest archived ChangeSets back onto the undo stack,
+     * if they cannot be read undo is limited to the current index
+     */
+    private void restoreUndoArchive() {
+        if (undoArchive == null || undoArchive.isEmpty()) return;
+        int archived = undoArchive.size();
+        try {
+            for (ChangeSet changeSet : Lists.reverse(undoArchive.pop())) {
+                undoStack.addFirst(changeSet);
+            }
+        } catch (IOException e) {
+            log.error("Unable to restore archived ChangeSets, undo not possible before index {}", baseIndex + archived, e);
+            baseIndex += archived;
+            undoArchive.clear();
+        }
+    }
+
+    /**
+     * Reads the next archived ChangeSets back onto the redo stack,
+     * if they cannot be read redo is limited to the current maximum index
+     */
+    private void restoreRedoArchive() {
+        if (redoArchive == null || redoArchive.isEmpty()) return;
+        try {
+            redoStack.addAll(redoArchive.pop());
+        } catch (IOException e) {
+            log.error("Unable to restore archived ChangeSets, redo not possible after index {}", getMaximumIndex(), e);
+            redoArchive.clear();
+        }
+    }
+
 
     public void updateObservers(Set<State> states) {
         // update the observers of states and models
@@ -108,9 +228,9 @@ public class ChangeStack {
         stateManager.updateObservers(states);
     }
 
-    // is undo possible (protect first index)
+    // is undo possible (protect first index, unless ChangeSets are dropped)
     public boolean isUndoPossible() {
-        return (!undoStack.isEmpty() && undoStack.size() != 1);
+        return getCurrentIndex() > getMinimumIndex();
     }
 
     public boolean isUndoPossible(ChangeActionOwner owner) {
@@ -138,9 +258,9 @@ public class ChangeStack {
      */
 
     public void undo(int index) {
-        checkState(isUndoPossible() && index < undoStack.size() , "Undo not possible");
+        checkState(isUndoPossible() && index < getCurrentIndex() && index >= baseIndex, "Undo not possible");
         ImmutableSet.Builder<State> states = ImmutableSet.builder();
-        while (undoStack.size() > index) {
+        while (getCurrentIndex() > index && !undoStack.isEmpty()) {
             states.addAll(executeUndo().getStates());
         }
         restart();
@@ -160,6 +280,11 @@ public class ChangeStack {
             reporter.informOnUndo();
         }
 
+        if (undoStack.isEmpty()) {
+            restoreUndoArchive();
+        }
+        compactHistory();
+
         return undoSet;
     }
 
@@ -189,11 +314,11 @@ public class ChangeStack {
     }
 
     public void redo(int index) {
-        checkState(index > undoStack.size() && index <= undoStack.size() + redoStack.size(),
+        checkState(index > getCurrentIndex() && index <= getMaximumIndex(),
                 "Redo not possible");
 
         ImmutableSet.Builder<State> states = ImmutableSet.builder();
-        while (undoStack.size() < index) {
+        while (getCurrentIndex() < index && !redoStack.isEmpty()) {
             states.addAll(executeRedo().getStates());
         }
         restart();
@@ -213,21 +338,43 @@ public class ChangeStack {
             reporter.informOnRedo();
         }
 
+        if (redoStack.isEmpty()) {
+            restoreRedoArchive();
+        }
+        compactHistory();
+
         return redoSet;
     }
 
     /**
-     * @return current index of the ChangeStack (equal to size of undo stack)
+     * @return current index of the ChangeStack (equal to size of undo stack including archived ChangeSets,
+     * plus the number of dropped ChangeSets)
      */
     public int getCurrentIndex() {
-        return undoStack.size();
+        int index = baseIndex + undoStack.size();
+        if (undoArchive != null) {
+            index += undoArchive.size();
+        }
+        return index;
     }
 
     /**
-     * @return size of undoStack plus RedoStack
+     * @return current index plus size of RedoStack including archived ChangeSets
      */
     public int getMaximumIndex() {
-        return redoStack.size() + undoStack.size();
+        int index = getCurrentIndex() + redoStack.size();
+        if (redoArchive != null) {
+            index += redoArchive.size();
+        }
+        return index;
+    }
+
+    /**
+     * @return lowest index that can be reached by undo
+     */
+    public int getMinimumIndex() {
+        // the first ChangeSet is protected
+        return baseIndex > 0 ? baseIndex : 1;
     }
 
 }
@@ -12,6 +12,10 @@ import com.google.common.collect.ImmutableSet;
 public final class HashBiMapState<K,V> extends MapState<K,V> {
     
     private HashBiMap<K,V> map;
+
+    // cached copies, cleared on change
+    private ImmutableBiMap<K,V> cachedView;
+    private ImmutableSet<V> cachedValues;
     
     private HashBiMapState(Item parent, String id, Map<K,V> map) {
         super(parent, id);
@@ -53,7 +57,10 @@ public final class HashBiMapState<K,V> extends MapState<K,V> {
      */
     @Override
     public ImmutableBiMap<K,V> view() {
-        return ImmutableBiMap.copyOf(map);
+        if (cachedView == null) {
+            cachedView = ImmutableBiMap.copyOf(map);
+        }
+        return cachedView;
     }
 
     /**
@@ -62,7 +69,17 @@ public final class HashBiMapState<K,V> extends MapState<K,V> {
      */
     @Override
     public ImmutableSet<V> viewValues() {
-        return ImmutableSet.copyOf(map.values());
+        if (cachedValues == null) {
+            cachedValues = ImmutableSet.copyOf(map.values());
+        }
+        return cachedValues;
+    }
+
+    @Override
+    protected void clearCache() {
+        super.clearCache();
+        cachedView = null;
+        cachedValues = null;
     }
     
 }
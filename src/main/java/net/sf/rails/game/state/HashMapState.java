@@ -15,6 +15,9 @@ public final class HashMapState<K,V> extends MapState<K,V> {
     
     private final HashMap<K,V> map;
 
+    // cached copy of the values, cleared on change
+    private ImmutableList<V> cachedValues;
+
     private HashMapState(Item parent, String id, Map<K,V> map) {
         super(parent, id);
         if (map == null) {
@@ -52,6 +55,15 @@ public final class HashMapState<K,V> extends MapState<K,V> {
      */
     @Override
     public ImmutableList<V> viewValues() {
-        return ImmutableList.copyOf(map.values());
+        if (cachedValues == null) {
+            cachedValues = ImmutableList.copyOf(map.values());
+        }
+        return cachedValues;
+    }
+
+    @Override
+    protected void clearCache() {
+        super.clearCache();
+        cachedValues = null;
     }
 }
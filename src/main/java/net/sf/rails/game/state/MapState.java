@@ -12,10 +12,16 @@ import com.google.common.collect.Sets;
 
 /**
  * MapState is an abstract parent class for both HashMapState and HashBiMapState 
+ * <p>
+ * The immutable copies returned by the view methods are cached until the next change of the map
  */
 
 public abstract class MapState<K,V> extends State implements Iterable<V> {
 
+    // cached immutable copies, cleared on change
+    private ImmutableMap<K,V> cachedView;
+    private ImmutableSet<K> cachedKeySet;
+
     protected MapState(Item parent, String id) {
         super(parent, id);
     }
@@ -91,7 +97,7 @@ public abstract class MapState<K,V> extends State implements Iterable<V> {
      * removes all mappings from the getMap()
      */
     public void clear() {
-        for (K key : ImmutableSet.copyOf(getMap().keySet())) {
+        for (K key : viewKeySet()) {
             remove (key);
         }
     }
@@ -129,7 +135,10 @@ public abstract class MapState<K,V> extends State implements Iterable<V> {
      * @return immutable version of the getMap()
      */
     public ImmutableMap<K,V> view() {
-        return ImmutableMap.copyOf(getMap());
+        if (cachedView == null) {
+            cachedView = ImmutableMap.copyOf(getMap());
+        }
+        return cachedView;
     }
     
     /**
@@ -137,7 +146,10 @@ public abstract class MapState<K,V> extends State implements Iterable<V> {
      * @return immutable keyset of the getMap()
      */
     public ImmutableSet<K> viewKeySet() {
-        return ImmutableSet.copyOf(getMap().keySet());
+        if (cachedKeySet == null) {
+            cachedKeySet = ImmutableSet.copyOf(getMap().keySet());
+        }
+        return cachedKeySet;
     }
     
     public abstract ImmutableCollection<V> viewValues();
@@ -152,6 +164,15 @@ public abstract class MapState<K,V> extends State implements Iterable<V> {
         } else {
             getMap().put(key, value);
         }
+        clearCache();
+    }
+
+    /**
+     * Clears the cached immutable copies, subclasses with additional caches extend it
+     */
+    protected void clearCache() {
+        cachedView = null;
+        cachedKeySet = null;
     }
     
     @Override
@@ -1,6 +1,8 @@
 package net.sf.rails.game.state;
 
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 import com.google.common.collect.ImmutableCollection;
@@ -11,9 +13,17 @@ import com.google.common.collect.Multimap;
 
 /**
  * Abstract class of stateful Multimap
+ * <p>
+ * The immutable copies returned by the accessors are cached until the next change of the multimap
  */
 public abstract class MultimapState<K,V> extends State implements Iterable<V> {
-    
+
+    // cached immutable copies, cleared on change
+    private final Map<K, ImmutableSet<V>> cachedGets = new HashMap<>();
+    private ImmutableSet<K> cachedKeySet;
+    private ImmutableList<V> cachedValues;
+    private ImmutableMultimap<K,V> cachedView;
+
     protected MultimapState(Item parent, String id) {
         super(parent, id);
     }
@@ -34,8 +44,18 @@ public abstract class MultimapState<K,V> extends State implements Iterable<V> {
     }
 
     public ImmutableSet<V> get(K key) {
-        return ImmutableSet.copyOf(getMap().get(key));
+        ImmutableSet<V> values = cachedGets.get(key);
+        if (values == null) {
+            if (!getMap().containsKey(key)) {
+                // absent keys are not cached, otherwise the cache keeps every key ever asked for
+                return ImmutableSet.of();
+            }
+            values = ImmutableSet.copyOf(getMap().get(key));
+            cachedGets.put(key, values);
+        }
+        return values;
     }
+
     public boolean remove(K key, V value) {
         if (!getMap().containsEntry(key, value)) return false;
         new MultimapChange<K,V>(this, key, value, false);
@@ -71,15 +91,25 @@ public abstract class MultimapState<K,V> extends State implements Iterable<V> {
     }
     
     public ImmutableSet<K> keySet() {
-        return ImmutableSet.copyOf(getMap().keySet());
+        if (cachedKeySet == null) {
+            cachedKeySet = ImmutableSet.copyOf(getMap().keySet());
+        }
+        return cachedKeySet;
     }
 
     /**
      * @return all values of the multimap
      */
     public ImmutableCollection<V> values() {
-        // ImmutableCollection.copyOf does not exist, uses List instead
-        return ImmutableList.copyOf(getMap().values());
+        return valueList();
+    }
+
+    // ImmutableCollection.copyOf does not exist, uses List instead
+    private ImmutableList<V> valueList() {
+        if (cachedValues == null) {
+            cachedValues = ImmutableList.copyOf(getMap().values());
+        }
+        return cachedValues;
     }
     
     /**
@@ -87,14 +117,17 @@ public abstract class MultimapState<K,V> extends State implements Iterable<V> {
      * @return immutable version of the Multimap
      */
     public ImmutableMultimap<K,V> view() {
-        return ImmutableMultimap.copyOf(getMap());
+        if (cachedView == null) {
+            cachedView = ImmutableMultimap.copyOf(getMap());
+        }
+        return cachedView;
     }
     
     /**
      * @return an iterator over all values
      */
     public Iterator<V> iterator() {
-        return ImmutableList.copyOf(getMap().values()).iterator();
+        return valueList().iterator();
     }
     
     @Override
@@ -108,5 +141,16 @@ public abstract class MultimapState<K,V> extends State implements Iterable<V> {
         } else {
             getMap().remove(key, value);
         }
+        clearCache();
+    }
+
+    /**
+     * Clears the cached immutable copies, subclasses with additional caches extend it
+     */
+    protected void clearCache() {
+        cachedGets.clear();
+        cachedKeySet = null;
+        cachedValues = null;
+        cachedView = null;
     }
 }
@@ -0,0 +1,120 @@
+package net.sf.rails.game.state;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Object streams that store items by their fullURI and external objects by their index,
+ * used by ChangeSetArchive.
+ */
+final class ReferenceStreams {
+
+    private ReferenceStreams() {}
+
+    private static final class ItemReference implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String uri;
+
+        private ItemReference(String uri) {
+            this.uri = uri;
+        }
+    }
+
+    private static final class ExternalReference implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int index;
+
+        private ExternalReference(int index) {
+            this.index = index;
+        }
+    }
+
+    static class Output extends ObjectOutputStream {
+        private final Map<Object, Integer> indices = new IdentityHashMap<>();
+        private final List<Object> externals = new ArrayList<>();
+
+        /**
+         * @param externals objects (compared by identity) that are stored by their index
+         */
+        Output(OutputStream out, List<?> externals) throws IOException {
+            super(out);
+            for (Object external : externals) {
+                addExternal(external);
+            }
+            enableReplaceObject(true);
+        }
+
+        /**
+         * Adds an object that is stored by its index
+         * @return the reference that replaces the object
+         */
+        protected final Object addExternal(Object obj) {
+            Integer index = indices.get(obj);
+            if (index == null) {
+                index = externals.size();
+                indices.put(obj, index);
+                externals.add(obj);
+            }
+            return new ExternalReference(index);
+        }
+
+        /**
+         * @return all externals, including those added during writing
+         */
+        final List<Object> getExternals() {
+            return externals;
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj instanceof Item) {
+                return new ItemReference(((Item) obj).getFullURI());
+            }
+            if (indices.containsKey(obj)) {
+                return addExternal(obj);
+            }
+            return obj;
+        }
+    }
+
+    static final class Input extends ObjectInputStream {
+        private final Root root;
+        private final List<?> externals;
+
+        Input(InputStream in, Root root, List<?> externals) throws IOException {
+            super(in);
+            this.root = root;
+            this.externals = externals;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) throws IOException {
+            if (obj instanceof ItemReference) {
+                String uri = ((ItemReference) obj).uri;
+                Item item = uri.equals(Root.ID) ? root : root.locateFullURI(uri);
+                if (item == null) {
+                    throw new InvalidObjectException("Item " + uri + " does not exist");
+                }
+                return item;
+            } else if (obj instanceof ExternalReference) {
+                int index = ((ExternalReference) obj).index;
+                if (index >= externals.size()) {
+                    throw new InvalidObjectException("External " + index + " does not exist");
+                }
+                return externals.get(index);
+            }
+            return obj;
+        }
+    }
+
+}
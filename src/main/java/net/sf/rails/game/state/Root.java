@@ -3,8 +3,11 @@ package net.sf.rails.game.state;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 /**
  * Root is the top node of the context/item hierachy
  */
@@ -141,6 +144,30 @@ public class Root extends Context {
        items.remove(item.getFullURI());
    }
 
+   /**
+    * Removes the item and all items below it (by fullURI) from the root,
+    * including the registrations of their states, models, triggers, portfolios and wallets.
+    * The removal is part of the current ChangeSet, thus it is reverted by undo.
+    * Removed items remain usable, but cannot be located.
+    * @throws IllegalArgumentException if the item is the root or not contained in the root
+    */
+   public void deregister(Item item) {
+       checkArgument(item != this && items.get(item.getFullURI()) == item,
+               "Root does not contain item with fullURI = %s", item.getFullURI());
+
+       String prefix = item.getFullURI() + Item.SEP;
+       Set<Item> removed = Sets.newHashSet(item);
+       for (Map.Entry<String, Item> entry : items.view().entrySet()) {
+           if (entry.getKey().startsWith(prefix)) {
+               removed.add(entry.getValue());
+           }
+       }
+       stateManager.deRegister(removed);
+       for (Item removedItem : removed) {
+           items.remove(removedItem.getFullURI());
+       }
+   }
+
    @Override
    public String toString() {
        return TEXT_ID;
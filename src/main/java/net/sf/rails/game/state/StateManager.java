@@ -2,6 +2,7 @@ package net.sf.rails.game.state;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.Map;
@@ -12,9 +13,11 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 public final class StateManager extends Manager {
 
@@ -30,6 +33,20 @@ public final class StateManager extends Manager {
     // observers is not a state variable (as the have to register and de-register themselves)
     // gui eleemnts do not have a state of their own (with respect to the game engine)
     private final HashMultimap<Observable, Observer> observers = HashMultimap.create();
+    // immutable copies of the observers, removed if the observers of the observable change
+    private final Map<Observable, ImmutableSet<Observer>> cachedObservers = Maps.newHashMap();
+
+    // dependency graph of the models, compiled from the models state
+    // the cached view of models is replaced on each change (including undo/redo), thus identifies the graph
+    private ImmutableMultimap<Observable, Model> compiledModels = null;
+    // all models in topological order, the index is the rank of the model
+    private Model[] rankedModels;
+    private Map<Model, Integer> modelRanks;
+    // models that are part of a cycle, reaching those is an error
+    private final Set<Model> cyclicModels = Sets.newHashSet();
+    // ranks of all models (directly or indirectly) depending on an observable, sorted
+    private final Map<Observable, int[]> dependentRanks = Maps.newHashMap();
+    private static final int[] NO_RANKS = new int[0];
 
     // initialized later in init()
     private PortfolioManager portfolioManager;
@@ -60,13 +77,45 @@ public final class StateManager extends Manager {
         allStates.add(state);
     }
 
-//    /**
-//     * De-Register states
-//     */
-//    TODO: Add this
-//    boolean deRegisterState(State state) {
-//        return allStates.remove(state);
-//    }
+    /**
+     * De-Register states
+     */
+    boolean deRegisterState(State state) {
+        return allStates.remove(state);
+    }
+
+    /**
+     * De-Register the states, models, triggers, portfolios and wallets of items removed from the root
+     */
+    void deRegister(Set<Item> removed) {
+        for (Item item : removed) {
+            if (item instanceof State) {
+                deRegisterState((State) item);
+            }
+            if (item instanceof Observable) {
+                models.removeAll((Observable) item);
+                triggers.removeAll((Observable) item);
+            }
+            if (item instanceof Portfolio) {
+                portfolioManager.removePortfolio((Portfolio<?>) item);
+            } else if (item instanceof Wallet) {
+                walletManager.removeWallet((Wallet<?>) item);
+            }
+        }
+
+        // removed models and triggers of other observables
+        for (Map.Entry<Observable, Model> entry : models.view().entries()) {
+            if (removed.contains(entry.getValue())) {
+                models.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<Observable, Triggerable> entry : triggers.view().entries()) {
+            if (removed.contains(entry.getValue())) {
+                triggers.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        log.debug("De-Registered {} items", removed.size());
+    }
 
     /**
      * set of all states stored in the StateManager
@@ -83,12 +132,14 @@ public final class StateManager extends Manager {
     synchronized void addObserver(Observer observer, Observable observable) {
         checkArgument(!observers.containsValue(observer), "Observer can only be assigned to one Observable");
         observers.put(observable, observer);
+        cachedObservers.remove(observable);
     }
 
     /**
      * Remove combination of observer to observable
      */
     boolean removeObserver(Observer observer, Observable observable) {
+        cachedObservers.remove(observable);
         return observers.remove(observable, observer);
     }
 
@@ -96,7 +147,14 @@ public final class StateManager extends Manager {
      * Set of all observers that observe the observable
      */
     ImmutableSet<Observer> getObservers(Observable observable) {
-        return ImmutableSet.copyOf(observers.get(observable));
+        ImmutableSet<Observer> observableObservers = cachedObservers.get(observable);
+        if (observableObservers == null) {
+            // most observables have no observers, those are not cached
+            if (!observers.containsKey(observable)) return ImmutableSet.of();
+            observableObservers = ImmutableSet.copyOf(observers.get(observable));
+            cachedObservers.put(observable, observableObservers);
+        }
+        return observableObservers;
     }
 
     /**
@@ -142,12 +200,13 @@ public final class StateManager extends Manager {
         }
 
         // check if there are models
-        ImmutableSet<Model> initModels = getModels(state);
-        if (initModels.isEmpty()) return;
-        ImmutableList<Model> allModels = getModelsToUpdate(initModels);
+        int[] ranks = getDependentRanks(state);
+        if (ranks.length == 0) return;
+        Model[] ranked = rankedModels;
 
         // Inform indirect triggers
-        for (Model m:allModels) {
+        for (int rank:ranks) {
+            Model m = ranked[rank];
             for (Triggerable t:getTriggers(m)) {
                 t.triggered(m, change);
                 log.debug("Model {} sends change to Trigger {}", m, t);
@@ -159,32 +218,97 @@ public final class StateManager extends Manager {
      * A set of observables is given as input
      * and then calculates all observer to update in the correct sequence
      *
-     * It uses a topological sort based on DFS
+     * It uses the ranks of the compiled model graph
      *
      * @param observables that have been updated
      * @return sorted list of all models to be updated
      */
     ImmutableList<Model> getModelsToUpdate(Collection<? extends Observable> observables) {
+        BitSet updateRanks = new BitSet();
+        for (Observable o: observables) {
+            for (int rank:getDependentRanks(o)) {
+                updateRanks.set(rank);
+            }
+        }
+        if (updateRanks.isEmpty()) return ImmutableList.of();
+
+        Model[] ranked = rankedModels;
+        ImmutableList.Builder<Model> toUpdate = ImmutableList.builder();
+        for (int rank = updateRanks.nextSetBit(0); rank >= 0; rank = updateRanks.nextSetBit(rank + 1)) {
+            toUpdate.add(ranked[rank]);
+        }
+        return toUpdate.build();
+    }
+
+    /**
+     * @return ranks of the models that depend on the observable, in topological order
+     */
+    private int[] getDependentRanks(Observable observable) {
+        // most observables have no models, no need to compile the graph for those
+        if (!models.containsKey(observable)) return NO_RANKS;
+        compileModels();
+        int[] ranks = dependentRanks.get(observable);
+        if (ranks == null) {
+            BitSet reachable = new BitSet();
+            collectRanks(observable, reachable);
+            ranks = reachable.stream().toArray();
+            dependentRanks.put(observable, ranks);
+        }
+        return ranks;
+    }
+
+    private void collectRanks(Observable observable, BitSet reachable) {
+        for (Model m:compiledModels.get(observable)) {
+            if (cyclicModels.contains(m)) {
+                throw new IllegalStateException("Graph of Observables contains Cycle");
+            }
+            int rank = modelRanks.get(m);
+            if (!reachable.get(rank)) {
+                reachable.set(rank);
+                collectRanks(m, reachable);
+            }
+        }
+    }
+
+    /**
+     * Compiles the graph of models into a topological order, if the models have changed
+     * It uses a topological sort based on DFS, a cycle is only an error if an update reaches it
+     */
+    private void compileModels() {
+        ImmutableMultimap<Observable, Model> current = models.view();
+        if (current == compiledModels) return;
+
         // Topological sort
         // Initialize (we do not use WHITE explicitly, but implicit)
         final Map<Observable, Color> colors = Maps.newHashMap();
         final LinkedList<Model> topoList = Lists.newLinkedList();
+        cyclicModels.clear();
+        for (Observable o:current.keySet()) {
+            if (!colors.containsKey(o)) {
+                topoSort(o, current, colors, topoList, cyclicModels);
+            }
+        }
 
-        // For all states
-        for (Observable s: observables) {
-            topoSort(s, colors, topoList);
+        rankedModels = topoList.toArray(new Model[topoList.size()]);
+        modelRanks = Maps.newHashMapWithExpectedSize(rankedModels.length);
+        for (int rank = 0; rank < rankedModels.length; rank++) {
+            modelRanks.put(rankedModels[rank], rank);
         }
-        return ImmutableList.copyOf(topoList);
+        dependentRanks.clear();
+        compiledModels = current;
+        log.debug("Compiled {} models", rankedModels.length);
     }
 
     private static enum Color {WHITE, GREY, BLACK};
-    private void topoSort(final Observable v, final Map<Observable, Color> colors, final LinkedList<Model> topoList) {
+    private static void topoSort(final Observable v, final ImmutableMultimap<Observable, Model> graph,
+            final Map<Observable, Color> colors, final LinkedList<Model> topoList, final Set<Model> cyclic) {
         colors.put(v, Color.GREY);
-        for (Model m:getModels(v)) {
+        for (Model m:graph.get(v)) {
             if (!colors.containsKey(m)) {
-                topoSort(m, colors, topoList);
+                topoSort(m, graph, colors, topoList, cyclic);
             } else if (colors.get(m) == Color.GREY) {
-                throw new IllegalStateException("Graph of Observables contains Cycle");
+                // each cycle contains a back edge, the target is part of the cycle
+                cyclic.add(m);
             }
         }
         colors.put(v, Color.BLACK);
@@ -1,5 +1,8 @@
 package net.sf.rails.game.state;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Multimap;
@@ -13,6 +16,12 @@ public final class TreeMultimapState<K extends Comparable<?>, V extends Comparab
     
     private final TreeMultimap<K,V> map = TreeMultimap.create();
 
+    // cached sorted copies, cleared on change
+    private final Map<K, ImmutableSortedSet<V>> cachedGets = new HashMap<>();
+    private ImmutableSortedSet<K> cachedKeySet;
+    private ImmutableSortedSet<V> cachedValues;
+    private ImmutableSetMultimap<K,V> cachedView;
+
     private TreeMultimapState(Item parent, String id) {
         super(parent, id);
     }
@@ -32,22 +41,45 @@ public final class TreeMultimapState<K extends Comparable<?>, V extends Comparab
     
     @Override
     public ImmutableSortedSet<V> get(K key) {
-        return ImmutableSortedSet.copyOf(map.get(key));
+        ImmutableSortedSet<V> values = cachedGets.get(key);
+        if (values == null) {
+            values = ImmutableSortedSet.copyOf(map.get(key));
+            cachedGets.put(key, values);
+        }
+        return values;
     }
     
     @Override
     public ImmutableSortedSet<K> keySet() {
-        return ImmutableSortedSet.copyOf(map.keySet());
+        if (cachedKeySet == null) {
+            cachedKeySet = ImmutableSortedSet.copyOf(map.keySet());
+        }
+        return cachedKeySet;
     }
     
     @Override
     public ImmutableSortedSet<V> values() {
-        return ImmutableSortedSet.copyOf(map.values());
+        if (cachedValues == null) {
+            cachedValues = ImmutableSortedSet.copyOf(map.values());
+        }
+        return cachedValues;
     }
     
     @Override
     public ImmutableSetMultimap<K,V> view() {
-        return ImmutableSetMultimap.copyOf(map);
+        if (cachedView == null) {
+            cachedView = ImmutableSetMultimap.copyOf(map);
+        }
+        return cachedView;
+    }
+
+    @Override
+    protected void clearCache() {
+        super.clearCache();
+        cachedGets.clear();
+        cachedKeySet = null;
+        cachedValues = null;
+        cachedView = null;
     }
 
 }
@@ -5,6 +5,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import net.sf.rails.common.Config;
+import net.sf.rails.game.GameManager;
 
 
 /**
@@ -62,6 +63,9 @@ public class SoundConfig {
     //if set to true, sfx is reported not to be enabled irrespective of the configuration
     private static boolean isSFXDisabled = false;
 
+    //no sfx is played while the actions of a game are reloaded
+    private static GameManager gameManager = null;
+
     public static String get(String configKey) {
         return get(configKey,null);
     }
@@ -92,7 +96,8 @@ public class SoundConfig {
         return isEnabled(KEY_BGM_ENABLED);
     }
     public static boolean isSFXEnabled() {
-        return isEnabled(KEY_SFX_ENABLED) && !isSFXDisabled;
+        return isEnabled(KEY_SFX_ENABLED) && !isSFXDisabled
+                && (gameManager == null || !gameManager.isReloading());
     }
     private static boolean isEnabled(String key) {
         return "enabled".equals(get(key));
@@ -100,4 +105,7 @@ public class SoundConfig {
     public static void setSFXDisabled(boolean timeWarpMode) {
         isSFXDisabled = timeWarpMode;
     }
+    public static void setGameManager(GameManager gameManager) {
+        SoundConfig.gameManager = gameManager;
+    }
 }
@@ -214,6 +214,7 @@ public class SoundEventInterpreter {
 
         //subscribe to round changes
         final GameManager gameManager = root.getGameManager();
+        SoundConfig.setGameManager(gameManager);
         if (gameManager.getCurrentRoundModel() != null) {
             gameManager.getCurrentRoundModel().addObserver(
                     new Observer() {
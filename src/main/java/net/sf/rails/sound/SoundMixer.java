@@ -0,0 +1,322 @@
+package net.sf.rails.sound;
+
+import java.io.BufferedInputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+import javazoom.jl.decoder.Bitstream;
+import javazoom.jl.decoder.Decoder;
+import javazoom.jl.decoder.Header;
+import javazoom.jl.decoder.JavaLayerException;
+import javazoom.jl.decoder.SampleBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Plays sound effects on a single long-lived thread.
+ *
+ * The mp3 files are decoded once into PCM buffers, which are cached up to a total size.
+ * Sound effects that are played immediately are mixed with the others (up to a maximum number
+ * of voices), all others are played one after another. Requests that exceed the bounded queue
+ * or the number of voices are dropped.
+ */
+class SoundMixer implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(SoundMixer.class);
+
+    // output format: 44.1kHz, 16 bit signed, stereo, little-endian
+    private static final int SAMPLE_RATE = 44100;
+    private static final int CHANNELS = 2;
+    private static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+
+    // about 23ms per chunk
+    private static final int CHUNK_SAMPLES = 1024 * CHANNELS;
+
+    private static final int MAX_QUEUED_SOUNDS = 8;
+    private static final int MAX_VOICES = 4;
+    private static final long MAX_DECODED_BYTES = 32L * 1024 * 1024;
+
+    private static final class Request {
+        private final String fileName;
+        private final double playSoundProportion;
+        private final boolean immediate;
+
+        private Request(String fileName, double playSoundProportion, boolean immediate) {
+            this.fileName = fileName;
+            this.playSoundProportion = playSoundProportion;
+            this.immediate = immediate;
+        }
+    }
+
+    private static final class Voice {
+        private final short[] samples;
+        private int position;
+
+        private Voice(short[] samples, int position) {
+            this.samples = samples;
+            this.position = position;
+        }
+    }
+
+    private final SoundPlayer.SoundFileBuffer soundFileBuffer;
+
+    private final BlockingQueue<Request> requests = new ArrayBlockingQueue<>(MAX_QUEUED_SOUNDS);
+
+    // the following fields are only accessed by the mixer thread
+    private final Deque<Voice> sequentialVoices = new ArrayDeque<>();
+    private final List<Voice> voices = new ArrayList<>();
+    private Voice sequentialVoice = null;
+    private SourceDataLine line = null;
+    private final int[] mixBuffer = new int[CHUNK_SAMPLES];
+    private final byte[] outputBuffer = new byte[CHUNK_SAMPLES * 2];
+
+    // decoded sounds, access ordered
+    private final Map<String, short[]> decodedSounds = new LinkedHashMap<>(16, 0.75f, true);
+    private long decodedBytes = 0;
+
+    // sounds requested and not finished yet
+    private int pendingSounds = 0;
+
+    private Thread thread = null;
+
+    SoundMixer(SoundPlayer.SoundFileBuffer soundFileBuffer) {
+        this.soundFileBuffer = soundFileBuffer;
+    }
+
+    /**
+     * Requests to play a sound effect, the request is dropped if the queue is full
+     * @param playSoundProportion the length of the latter part of the sound which is played
+     * @param immediate if true the sound is mixed with the ones currently playing,
+     * otherwise it is played after all prior sounds that are not immediate
+     */
+    synchronized void play(String fileName, double playSoundProportion, boolean immediate) {
+        if (fileName == null || fileName.isEmpty()) return;
+        if (thread == null) {
+            thread = new Thread(this, "SoundMixer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        if (requests.offer(new Request(fileName, playSoundProportion, immediate))) {
+            pendingSounds++;
+        } else {
+            log.debug("Sound queue is full, dropped {}", fileName);
+        }
+    }
+
+    /**
+     * Returns once all requested sounds have finished playing
+     */
+    synchronized void awaitIdle() throws InterruptedException {
+        while (pendingSounds > 0) {
+            wait();
+        }
+    }
+
+    private synchronized void finished(int nbSounds) {
+        pendingSounds -= nbSounds;
+        if (pendingSounds <= 0) {
+            pendingSounds = 0;
+            notifyAll();
+        }
+    }
+
+    public void run() {
+        try {
+            while (true) {
+                if (voices.isEmpty() && sequentialVoices.isEmpty()) {
+                    closeLine();
+                    accept(requests.take());
+                }
+                for (Request request = requests.poll(); request != null; request = requests.poll()) {
+                    accept(request);
+                }
+                if (sequentialVoice == null && !sequentialVoices.isEmpty()) {
+                    sequentialVoice = sequentialVoices.poll();
+                    voices.add(sequentialVoice);
+                }
+                if (!voices.isEmpty()) {
+                    mix();
+                }
+            }
+        } catch (InterruptedException e) {
+            log.debug("Sound mixer stopped");
+        }
+    }
+
+    private void accept(Request request) {
+        short[] samples = getDecodedSound(request.fileName);
+        if (samples == null || samples.length == 0) {
+            finished(1);
+            return;
+        }
+        // start at a frame boundary
+        int frames = samples.length / CHANNELS;
+        int start = (frames - (int) Math.round(frames * request.playSoundProportion)) * CHANNELS;
+        Voice voice = new Voice(samples, Math.max(0, start));
+        if (request.immediate) {
+            if (voices.size() < MAX_VOICES) {
+                voices.add(voice);
+            } else {
+                log.debug("All voices in use, dropped {}", request.fileName);
+                finished(1);
+            }
+        } else {
+            if (sequentialVoices.size() < MAX_QUEUED_SOUNDS) {
+                sequentialVoices.add(voice);
+            } else {
+                log.debug("Sound queue is full, dropped {}", request.fileName);
+                finished(1);
+            }
+        }
+    }
+
+    private void mix() {
+        if (!openLine()) {
+            // no audio available: drop all sounds
+            int dropped = voices.size() + sequentialVoices.size();
+            voices.clear();
+            sequentialVoices.clear();
+            sequentialVoice = null;
+            finished(dropped);
+            return;
+        }
+
+        int length = 0;
+        Arrays.fill(mixBuffer, 0);
+        Iterator<Voice> iterator = voices.iterator();
+        while (iterator.hasNext()) {
+            Voice voice = iterator.next();
+            int n = Math.min(CHUNK_SAMPLES, voice.samples.length - voice.position);
+            for (int i = 0; i < n; i++) {
+                mixBuffer[i] += voice.samples[voice.position + i];
+            }
+            voice.position += n;
+            length = Math.max(length, n);
+            if (voice.position >= voice.samples.length) {
+                iterator.remove();
+                if (voice == sequentialVoice) sequentialVoice = null;
+                finished(1);
+            }
+        }
+
+        for (int i = 0; i < length; i++) {
+            int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mixBuffer[i]));
+            outputBuffer[2 * i] = (byte) sample;
+            outputBuffer[2 * i + 1] = (byte) (sample >> 8);
+        }
+        line.write(outputBuffer, 0, length * 2);
+    }
+
+    private boolean openLine() {
+        if (line != null) return true;
+        try {
+            line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, outputBuffer.length * 4);
+            line.start();
+            return true;
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            log.debug("No audio line available", e);
+            line = null;
+            return false;
+        }
+    }
+
+    private void closeLine() {
+        if (line == null) return;
+        line.drain();
+        line.close();
+        line = null;
+    }
+
+    private short[] getDecodedSound(String fileName) {
+        short[] samples = decodedSounds.get(fileName);
+        if (samples != null) return samples;
+
+        samples = decode(fileName);
+        decodedSounds.put(fileName, samples);
+        decodedBytes += 2L * samples.length;
+        // evict least recently used sounds, but keep the current one
+        Iterator<Map.Entry<String, short[]>> iterator = decodedSounds.entrySet().iterator();
+        while (decodedBytes > MAX_DECODED_BYTES && iterator.hasNext()) {
+            Map.Entry<String, short[]> entry = iterator.next();
+            if (entry.getKey().equals(fileName)) continue;
+            decodedBytes -= 2L * entry.getValue().length;
+            iterator.remove();
+        }
+        return samples;
+    }
+
+    /**
+     * @return the samples in the output format, empty if the file cannot be decoded
+     */
+    private short[] decode(String fileName) {
+        BufferedInputStream input = soundFileBuffer.getFileInputStream(fileName);
+        if (input == null) return new short[0];
+
+        Bitstream bitstream = new Bitstream(input);
+        Decoder decoder = new Decoder();
+        short[] pcm = new short[SAMPLE_RATE * CHANNELS];
+        int length = 0;
+        int frequency = SAMPLE_RATE;
+        int channels = CHANNELS;
+        try {
+            for (Header header = bitstream.readFrame(); header != null; header = bitstream.readFrame()) {
+                SampleBuffer output = (SampleBuffer) decoder.decodeFrame(header, bitstream);
+                frequency = output.getSampleFrequency();
+                channels = output.getChannelCount();
+                int n = output.getBufferLength();
+                if (length + n > pcm.length) {
+                    pcm = Arrays.copyOf(pcm, Math.max(2 * pcm.length, length + n));
+                }
+                System.arraycopy(output.getBuffer(), 0, pcm, length, n);
+                length += n;
+                bitstream.closeFrame();
+            }
+        } catch (JavaLayerException | RuntimeException e) {
+            log.debug("Cannot decode {}", fileName, e);
+            return new short[0];
+        } finally {
+            try {
+                bitstream.close();
+            } catch (JavaLayerException e) {
+                // ignore
+            }
+        }
+        log.debug("Decoded {}: {} samples, {} Hz, {} channels", fileName, length, frequency, channels);
+        return convert(pcm, length, frequency, channels);
+    }
+
+    /**
+     * Converts interleaved samples to the output format (nearest sample resampling)
+     */
+    private static short[] convert(short[] pcm, int length, int frequency, int channels) {
+        if (frequency == SAMPLE_RATE && channels == CHANNELS) {
+            return Arrays.copyOf(pcm, length);
+        }
+        int frames = length / channels;
+        int outputFrames = (int) ((long) frames * SAMPLE_RATE / frequency);
+        short[] output = new short[outputFrames * CHANNELS];
+        for (int f = 0; f < outputFrames; f++) {
+            int source = (int) ((long) f * frequency / SAMPLE_RATE) * channels;
+            for (int c = 0; c < CHANNELS; c++) {
+                output[f * CHANNELS + c] = pcm[source + Math.min(c, channels - 1)];
+            }
+        }
+        return output;
+    }
+
+}
@@ -13,22 +13,24 @@ import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 
-import javazoom.jl.decoder.JavaLayerException;
 import javazoom.jl.player.Player;
-import javazoom.jl.player.advanced.AdvancedPlayer;
 
 /**
  * Handles play requests for music and sfx.
  *
  * Some specific requirements:
- * - At most one SFX should be played at the same time (necessiting queuing sfx play requests)
+ * - At most one SFX should be played at the same time (necessiting queuing sfx play requests),
+ *   except for SFX that are played immediately
+ *
+ * SFX are decoded once and played by the SoundMixer on a single thread,
+ * background music is streamed by its own thread.
  *
  * @author Frederick Weld
  *
  */
 public class SoundPlayer {
 
-    private static class SoundFileBuffer {
+    static class SoundFileBuffer {
         private final Map<String,byte[]> fileBuffer = new HashMap<>();
         public synchronized BufferedInputStream getFileInputStream(String fileName) {
             if (!fileBuffer.containsKey(fileName)) {
@@ -43,110 +45,22 @@ public class SoundPlayer {
         }
     }
 
-    private class PlayerThread extends Thread {
-        protected String fileName;
-        private PlayerThread priorThread;
-        private boolean playingDone;
-        public PlayerThread(String fileName) {
+    private class LoopPlayerThread extends Thread {
+        private final String fileName;
+        private volatile boolean isStopped = false;
+        private Player player = null;
+        private LoopPlayerThread previousLoopPlayerThread = null;
+        public LoopPlayerThread(String fileName) {
             this.fileName = fileName;
-            priorThread = null;
-            playingDone = false;
-        }
-        public void setPriorThread(PlayerThread priorThread) {
-            this.priorThread = priorThread;
-        }
-        //returns once playing is done
-        public synchronized void waitForPlayingDone() {
-            if (!playingDone) {
-                try {
-                    wait();
-                } catch (InterruptedException e) {}
-            }
         }
         public void run() {
-            //wait until prior thread has finished playing
-            if (priorThread != null) priorThread.waitForPlayingDone();
-            priorThread = null; //release handle
-
-            play();
-
-            //wake the subsequent thread if there is one waiting
-            synchronized (this) {
-                notifyAll();
-                playingDone = true;
-            }
-        }
-        public void play() {
-            try {
-                Player player = new Player(soundFileBuffer.getFileInputStream(fileName));
-                player.play();
-                player.close();
-            }
-            catch (Exception e) {
-                //if anything goes wrong, don't play anything
-            }
-        }
-    }
-    private class PortionPlayerThread extends PlayerThread {
-        private double startPos;
-        private double endPos;
-        /**
-         * @param startPos Relative offset [0..1] - first mp3 frame played
-         * @param endPos Relative offset [0..1] - last mp3 frame played
-         */
-        public PortionPlayerThread(String fileName, double startPos, double endPos) {
-            super(fileName);
-            this.startPos = startPos;
-            this.endPos = endPos;
-        }
-        @Override
-        public void play() {
-            try {
-                PortionPlayer player = new PortionPlayer(
-                        soundFileBuffer.getFileInputStream(fileName));
-                player.play(startPos, endPos);
-                player.close();
-            }
-            catch (Exception e) {
-                //if anything goes wrong, don't play anything
-            }
-        }
-    }
-    private static class PortionPlayer extends AdvancedPlayer {
-        private BufferedInputStream bis;
-        public PortionPlayer(BufferedInputStream bis) throws JavaLayerException {
-            super(bis);
-            this.bis = bis;
-        }
-        /**
-         * @param startPos Relative offset [0..1] - first mp3 frame played
-         * @param endPos Relative offset [0..1] - last mp3 frame played
-         */
-        public void play(double startPos, double endPos) {
+            //wait until all sfx have finished playing
             try {
-                //first get number of frames
-                bis.mark(Integer.MAX_VALUE);
-                int frameNum = 0;
-                while (skipFrame()) {
-                    frameNum++;
-                }
-                int startFrame = (int)Math.floor(startPos * frameNum);
-                int endFrame = (int)Math.ceil(endPos * frameNum);
-                if (startFrame < endFrame) {
-                    bis.reset();
-                    play(startFrame, endFrame);
-                }
-            } catch (Exception e) {
-                //if anything goes wrong, don't play anything
+                soundMixer.awaitIdle();
+            } catch (InterruptedException e) {
+                return;
             }
-        }
-    }
-    private class LoopPlayerThread extends PlayerThread {
-        private boolean isStopped = false;
-        private Player player = null;
-        private LoopPlayerThread previousLoopPlayerThread = null;
-        public LoopPlayerThread(String fileName) {
-            super(fileName);
+            play();
         }
         public void play() {
             try {
@@ -176,22 +90,11 @@ public class SoundPlayer {
         }
     }
 
-    private PlayerThread lastSFXThread = null;
-
     private LoopPlayerThread lastBGMThread = null;
 
     private final SoundFileBuffer soundFileBuffer = new SoundFileBuffer();
 
-    /**
-     * atomic switching of the pointer to the last thread which played an sfx.
-     * @param newThread Player thread for the new sfx
-     * @return Player thread which was the last to play a sfx
-     */
-    private synchronized PlayerThread adjustLastSFXThread(PlayerThread newThread) {
-        PlayerThread pt = lastSFXThread;
-        lastSFXThread = newThread;
-        return pt;
-    }
+    private final SoundMixer soundMixer = new SoundMixer(soundFileBuffer);
 
     /**
      * atomic switching of the pointer to the last thread which played music.
@@ -204,21 +107,12 @@ public class SoundPlayer {
         return pt;
     }
 
-    private void playSFX(PlayerThread newPlayerThread,boolean playImmediately) {
-        PlayerThread oldPlayerThread = adjustLastSFXThread(newPlayerThread);
-        if (!playImmediately) {
-            newPlayerThread.setPriorThread(oldPlayerThread);
-        }
-        newPlayerThread.start();
-    }
-
     private void playSFX(String fileName, boolean playImmediately) {
-        playSFX(new PlayerThread (fileName),playImmediately);
+        soundMixer.play(fileName, 1, playImmediately);
     }
 
     private void playSFX(String fileName, double playSoundProportion, boolean playImmediately) {
-        playSFX(new PortionPlayerThread (fileName, 1 - playSoundProportion, 1)
-                ,playImmediately);
+        soundMixer.play(fileName, playSoundProportion, playImmediately);
     }
 
     /**
@@ -251,11 +145,9 @@ public class SoundPlayer {
         LoopPlayerThread oldPlayerThread = adjustLastBGMThread(newPlayerThread);
 
         //interrupt old bgm when starting the new bgm
+        //(playing starts once all sfx have finished playing)
         newPlayerThread.setPreviousLoopPlayer(oldPlayerThread);
 
-        //wait for playing new bgm until all sfx have finished playing
-        newPlayerThread.setPriorThread(lastSFXThread);
-
         newPlayerThread.start();
     }
 
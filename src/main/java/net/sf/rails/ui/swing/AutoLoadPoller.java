@@ -1,7 +1,16 @@
 package net.sf.rails.ui.swing;
 
 import java.io.*;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.SwingUtilities;
 
@@ -12,26 +21,46 @@ import org.slf4j.LoggerFactory;
 import rails.game.action.GameAction;
 
 
+/**
+ * AutoLoadPoller waits for the saved files of the other players and triggers the reload.
+ * <p>
+ * The save directory is watched by a WatchService, the last-filename file is only read
+ * if a file of the directory has changed. Some file systems (e.g. network shares) do not
+ * report changes by other machines, thus the file is still read every WATCH_POLLING_FACTOR polling intervals.
+ * If no WatchService is available, the file is read every polling interval.
+ * <p>
+ * The size of the saved file is read from a separate size file (see {@link GameUIManager#DEFAULT_SAVE_SIZE_EXTENSION}),
+ * the last-filename file contains only the filename, as expected by older versions.
+ */
 public class AutoLoadPoller extends Thread {
 
     private final GameUIManager guiMgr;
-    private String saveDirectory;
-    private String savePrefix;
+    private volatile String saveDirectory;
+    private volatile String savePrefix;
     private String ownPostfix;
-    private int pollingInterval;
-    private int pollingStatus;
+    private volatile int pollingInterval;
+    private volatile int pollingStatus;
 
-    private boolean pollingActive = false;
+    private volatile boolean pollingActive = false;
 
-    private boolean doPolling = true;
+    private volatile boolean doPolling = true;
 
-    private final String lastSavedFilenameFilepath;
-    private String lastSavedFilename;
+    private volatile String lastSavedFilename;
+
+    // the file has to be read at the next opportunity (activation, incomplete saved file)
+    private volatile boolean checkPending = true;
+
+    private WatchService watchService = null;
+    // the save directory has changed and has to be registered again
+    private volatile boolean watchPending = false;
 
     public static final int OFF = 0;
     public static final int ON = 1;
     public static final int SUSPENDED = 2;
 
+    // with a WatchService the file is read every WATCH_POLLING_FACTOR polling intervals without changes
+    private static final int WATCH_POLLING_FACTOR = 10;
+
     private static final Logger log = LoggerFactory.getLogger(AutoLoadPoller.class);
 
     public AutoLoadPoller (GameUIManager guiMgr, String saveDirectory, String savePrefix, String lastSavedFilename,
@@ -44,72 +73,191 @@ public class AutoLoadPoller extends Thread {
         this.pollingStatus = status;
         this.pollingInterval = pollingInterval;
 
-        lastSavedFilenameFilepath = saveDirectory + "/" + savePrefix + "." + GameUIManager.DEFAULT_SAVE_POLLING_EXTENSION;
-
         log.debug("Poller own postfix: {}", ownPostfix);
-        log.debug("Poller last-filename path: {}", lastSavedFilenameFilepath);
+        log.debug("Poller last-filename path: {}", getLastSavedFilenameFilepath());
     }
 
     @Override
     public void run () {
         log.info ("AutoLoadPoller started");
 
-        int currentPollInterval = 1;
-        int secs, sleepTime;
+        startWatching();
 
+        long lastCheck = 0;
         while ( doPolling ) {
-            secs = Calendar.getInstance().get(Calendar.SECOND);
-            try {
-                sleepTime = 1000 * (currentPollInterval - secs%currentPollInterval);
-                Thread.sleep(sleepTime);
-            } catch (InterruptedException e) {
-                continue;
+            if (watchPending) {
+                watchPending = false;
+                stopWatching();
+                startWatching();
             }
 
-            if (pollingActive && pollingStatus == ON) {
-                try (BufferedReader in = new BufferedReader (new FileReader (lastSavedFilenameFilepath))){
-                    String currentFilename = in.readLine();
-                    String fileSize = in.readLine();
-                    in.close();
-                    log.trace("Read filename {}; last seen filename {}", currentFilename, lastSavedFilename);
-
-                    if (!lastSavedFilename.equals(currentFilename)) {
-                        File currFile = new File(saveDirectory+"/"+currentFilename);
-                        if ( ! currFile.exists() ) {
-                            log.debug("Saved file {} missing, waiting", currFile);
-                            currentPollInterval = 1;
-                            continue;
-                        }
-
-                        if ( fileSize != null ) {
-                            long fileSizeNum = Long.parseLong(fileSize);
-                            if ( currFile.getTotalSpace() != fileSizeNum ) {
-                                // file size doesn't match, could be it the process of being written
-                                // or due to network errors, might be zero length so lets ignore it
-                                log.debug("file goes not match expected size {} (expected {})", currFile.getTotalSpace(), fileSizeNum);
-                                currentPollInterval = 1;
-                                continue;
-                            }
-                        }
-                        lastSavedFilename = currentFilename;
-
-                        log.debug("Read filename {}; last seen filename {} -- triggering reload", currentFilename, lastSavedFilename);
-
-                        final GameAction reload = new GameAction(guiMgr.getRoot(), GameAction.Mode.RELOAD);
-                        reload.setFilepath(saveDirectory+"/"+currentFilename);
-
-                        // The GUI must be accessed on the event dispatch thread only.
-                        SwingUtilities.invokeLater (() -> guiMgr.processAction(reload));
-                    }
-                } catch (IOException e) {
-                    log.error("Exception whilst polling {}", lastSavedFilenameFilepath, e);
+            boolean changed;
+            if (watchService != null) {
+                changed = waitForChange();
+                long now = System.currentTimeMillis();
+                if (now - lastCheck >= 1000L * pollingInterval * WATCH_POLLING_FACTOR) {
+                    changed = true;
                 }
+            } else {
+                changed = waitForInterval();
+            }
 
+            if (pollingActive && pollingStatus == ON) {
+                if (changed || checkPending) {
+                    lastCheck = System.currentTimeMillis();
+                    checkPending = !checkLastSavedFile();
+                }
             } else {
                 log.trace("Polling status={} active={}", pollingStatus, pollingActive);
             }
-            currentPollInterval = pollingInterval;
         }
+        stopWatching();
+    }
+
+    /**
+     * Registers the save directory at a WatchService, without it the poller falls back to polling
+     */
+    private void startWatching() {
+        String saveDirectory = this.saveDirectory;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Paths.get(saveDirectory).register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            log.debug("Watching directory {}", saveDirectory);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to watch directory {}, polling instead", saveDirectory, e);
+            stopWatching();
+        }
+    }
+
+    private void stopWatching() {
+        if (watchService == null) return;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.debug("Exception whilst closing the watch service", e);
+        }
+        watchService = null;
+    }
+
+    /**
+     * Waits up to a second for changes of the save directory
+     * @return true if the last-filename file or a saved game might have changed
+     */
+    private boolean waitForChange() {
+        WatchKey key;
+        try {
+            key = watchService.poll(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            return false;
+        } catch (ClosedWatchServiceException e) {
+            stopWatching();
+            return true;
+        }
+        if (key == null) return false;
+
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+            } else if (event.context() instanceof Path) {
+                String filename = event.context().toString();
+                changed |= filename.startsWith(savePrefix);
+            }
+        }
+        if (!key.reset()) {
+            // the directory is no longer accessible
+            log.warn("Watching directory {} stopped, polling instead", saveDirectory);
+            stopWatching();
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Waits until the next multiple of the polling interval (or a second, if a check is pending)
+     * @return true if the interval has passed
+     */
+    private boolean waitForInterval() {
+        int currentPollInterval = checkPending ? 1 : Math.max(1, pollingInterval);
+        int secs = Calendar.getInstance().get(Calendar.SECOND);
+        try {
+            Thread.sleep(1000L * (currentPollInterval - secs % currentPollInterval));
+        } catch (InterruptedException e) {
+            return false;
+        }
+        return true;
+    }
+
+    private String getLastSavedFilenameFilepath() {
+        return saveDirectory + "/" + savePrefix + "." + GameUIManager.DEFAULT_SAVE_POLLING_EXTENSION;
+    }
+
+    /**
+     * Reads the size file, which is written before the last-filename file
+     * @return the size of the saved file, or null if the size file is missing or refers to another file
+     */
+    private String readFileSize(String saveDirectory, String currentFilename) {
+        String fileSizeFilepath = saveDirectory + "/" + savePrefix + "." + GameUIManager.DEFAULT_SAVE_SIZE_EXTENSION;
+        try (BufferedReader in = new BufferedReader (new FileReader (fileSizeFilepath))){
+            // the first line contains the filename, the second line its size
+            if (currentFilename.equals(in.readLine())) {
+                return in.readLine();
+            }
+        } catch (IOException e) {
+            // written by an older version, which does not provide the size
+            log.trace("Size file {} not readable", fileSizeFilepath);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the last-filename file and triggers a reload if another file was saved
+     * @return false if the saved file is not yet complete and the check has to be repeated
+     */
+    private boolean checkLastSavedFile() {
+        String saveDirectory = this.saveDirectory;
+        String lastSavedFilenameFilepath = getLastSavedFilenameFilepath();
+        try (BufferedReader in = new BufferedReader (new FileReader (lastSavedFilenameFilepath))){
+            String currentFilename = StringUtils.trim(in.readLine());
+            log.trace("Read filename {}; last seen filename {}", currentFilename, lastSavedFilename);
+
+            if (currentFilename == null || lastSavedFilename.equals(currentFilename)) {
+                return true;
+            }
+
+            File currFile = new File(saveDirectory+"/"+currentFilename);
+            if ( ! currFile.exists() ) {
+                log.debug("Saved file {} missing, waiting", currFile);
+                return false;
+            }
+
+            String fileSize = readFileSize(saveDirectory, currentFilename);
+            if ( fileSize != null ) {
+                long fileSizeNum = Long.parseLong(fileSize.trim());
+                if ( currFile.length() != fileSizeNum ) {
+                    // file size doesn't match, could be it the process of being written
+                    // or due to network errors, might be zero length so lets ignore it
+                    log.debug("file does not match expected size {} (expected {})", currFile.length(), fileSizeNum);
+                    return false;
+                }
+            }
+
+            log.debug("Read filename {}; last seen filename {} -- triggering reload", currentFilename, lastSavedFilename);
+            lastSavedFilename = currentFilename;
+
+            final GameAction reload = new GameAction(guiMgr.getRoot(), GameAction.Mode.RELOAD);
+            reload.setFilepath(saveDirectory+"/"+currentFilename);
+
+            // The GUI must be accessed on the event dispatch thread only.
+            SwingUtilities.invokeLater (() -> guiMgr.processAction(reload));
+        } catch (FileNotFoundException e) {
+            log.debug("File {} missing, waiting", lastSavedFilenameFilepath);
+            return false;
+        } catch (IOException | NumberFormatException e) {
+            log.error("Exception whilst polling {}", lastSavedFilenameFilepath, e);
+        }
+        return true;
     }
 
     public String getSaveDirectory() {
@@ -117,7 +265,11 @@ public class AutoLoadPoller extends Thread {
     }
 
     public void setSaveDirectory(String saveDirectory) {
+        if (saveDirectory.equals(this.saveDirectory)) return;
         this.saveDirectory = saveDirectory;
+        // registered again by the polling thread
+        watchPending = true;
+        checkPending = true;
     }
 
     public String getSavePrefix() {
@@ -126,6 +278,7 @@ public class AutoLoadPoller extends Thread {
 
     public void setSavePrefix(String savePrefix) {
         this.savePrefix = savePrefix;
+        checkPending = true;
     }
 
     public String getOwnPostfix() {
@@ -157,6 +310,10 @@ public class AutoLoadPoller extends Thread {
     }
 
     public void setActive(boolean pollingActive) {
+        if (pollingActive && !this.pollingActive) {
+            // the file may have changed before the activation
+            checkPending = true;
+        }
         this.pollingActive = pollingActive;
         log.debug("AutoLoad polling set to {}", pollingActive);
     }
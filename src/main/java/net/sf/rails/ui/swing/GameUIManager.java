@@ -97,6 +97,8 @@ public class GameUIManager implements DialogOwner {
     public static final String DEFAULT_SAVE_EXTENSION = "rails";
 
     public static final String DEFAULT_SAVE_POLLING_EXTENSION = "lrails";
+    // contains the last saved filename and its size, which is not part of the last-filename file for compatibility
+    public static final String DEFAULT_SAVE_SIZE_EXTENSION = "lsize";
     protected static final String NEXT_PLAYER_SUFFIX = "NEXT_PLAYER";
     protected static final String CURRENT_ROUND_SUFFIX = "CURRENT_ROUND";
 
@@ -227,6 +229,7 @@ public class GameUIManager implements DialogOwner {
             autoLoadPoller.setActive(false);
             autoLoadPoller.close();
         }
+        railsRoot.getGameManager().closeRecoveryJournal();
         // TODO: terminate things like Discord
 
         // clean up config items that are game play specific (ie like Discord)
@@ -238,6 +241,7 @@ public class GameUIManager implements DialogOwner {
         // TODO: save relocation and resizing information of the FKStockChartWindow
 
         if (orWindow != null) orWindow.saveLayout();
+        railsRoot.getGameManager().closeRecoveryJournal();
         System.exit(0);
     }
 
@@ -891,6 +895,17 @@ public class GameUIManager implements DialogOwner {
     protected boolean saveAutoSavedFilename(String lastSavedFilename) {
         String lastSavedFilenameFilepath = saveDirectory + "/" + savePrefix + "." + GameUIManager.DEFAULT_SAVE_POLLING_EXTENSION;
         try {
+            // the size allows the AutoLoadPoller to wait until the file is complete,
+            // it is written first as the poller reads it after the last-filename file
+            File savedFile = new File(saveDirectory, lastSavedFilename);
+            if (savedFile.isFile()) {
+                File sizeFile = new File(saveDirectory, savePrefix + "." + GameUIManager.DEFAULT_SAVE_SIZE_EXTENSION);
+                PrintWriter sizeOut = new PrintWriter(new FileWriter(sizeFile));
+                sizeOut.println(lastSavedFilename);
+                sizeOut.println(savedFile.length());
+                sizeOut.close();
+            }
+
             File f = new File(lastSavedFilenameFilepath);
             PrintWriter out = new PrintWriter(new FileWriter(f));
             out.println(lastSavedFilename);
@@ -1153,6 +1168,9 @@ public class GameUIManager implements DialogOwner {
 
     public void setSaveDirectory(String saveDirectory) {
         this.saveDirectory = saveDirectory;
+        if (autoLoadPoller != null) {
+            autoLoadPoller.setSaveDirectory(saveDirectory);
+        }
     }
 
     public PossibleAction getLastAction() {
@@ -1,8 +1,19 @@
 package net.sf.rails.ui.swing;
 
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.util.*;
-
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -18,23 +29,77 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 
-import com.google.common.collect.HashBasedTable;
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 
 /**
  * This class handles loading our tile images. It provides BufferedImages to be
  * associated with the Hex.
+ * <p>
+ * The images are kept in a least recently used cache, bounded by the memory size
+ * configured in map.image.cache.size (in MB). The SVG documents are cached as well, bounded by their number.
+ * Images that are not cached can be rasterized in the background, which also prefetches
+ * the adjacent zoom steps of each requested image.
  */
 public class ImageLoader {
     private static final Logger log = LoggerFactory.getLogger(ImageLoader.class);
 
+    public static final String CONFIG_CACHE_SIZE = "map.image.cache.size";
+
+    private static final int DEFAULT_CACHE_SIZE = 128;
+    private static final int MAX_SVG_DOCUMENTS = 256;
+    private static final int MAX_ZOOM_STEP = 20;
+
+    private static final class ImageKey {
+        private final String tileID;
+        private final int zoomStep;
+
+        private ImageKey(String tileID, int zoomStep) {
+            this.tileID = tileID;
+            this.zoomStep = zoomStep;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ImageKey)) return false;
+            ImageKey key = (ImageKey) other;
+            return zoomStep == key.zoomStep && tileID.equals(key.tileID);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(tileID, zoomStep);
+        }
+    }
+
     private final DocumentBuilder svgDocBuilder;
 
-    private final Map<String, Document> svgMap = Maps.newHashMap();
-    private final HashBasedTable<String, Integer, BufferedImage> tileImages = HashBasedTable.create();
+    private final Map<String, Document> svgMap = new LinkedHashMap<String, Document>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Document> eldest) {
+            return size() > MAX_SVG_DOCUMENTS;
+        }
+    };
+
+    // access ordered, failed transcodings are not cached
+    private final Map<ImageKey, BufferedImage> tileImages = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxCachedBytes;
+    private long cachedBytes = 0;
+    // tile ids with failed transcodings, which are logged as error only once
+    private final Set<String> failedTileIDs = Collections.synchronizedSet(new HashSet<String>());
 
-    private final double[] zoomFactors = new double[21];
+    // background rasterization
+    private final ExecutorService rasterizer;
+    private final Map<ImageKey, Future<BufferedImage>> pending = Maps.newHashMap();
+    private final Map<ImageKey, List<Runnable>> listeners = Maps.newHashMap();
+    // increased if the cached images become invalid
+    private int generation = 0;
+
+    private final double[] zoomFactors = new double[MAX_ZOOM_STEP + 1];
 
     //defines adjustment of zoom factor (should be close to 1)
     //(used for perfect-fit sizing that requires arbitrary zoom)
@@ -72,52 +137,249 @@ public class ImageLoader {
             // do nothing
         }
         svgDocBuilder = db;
-    }
 
-    private BufferedImage getSVGTile(String tileID, double zoomFactor) {
-        String fn = "tile" + tileID + ".svg";
-
-        BufferedImage image;
+        maxCachedBytes = Math.max(1, Config.getInt(CONFIG_CACHE_SIZE, DEFAULT_CACHE_SIZE)) * 1024L * 1024L;
 
-        try {
-            if (!svgMap.containsKey(tileID)) {
-                 Document doc = null;
+        int nbThreads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+        rasterizer = Executors.newFixedThreadPool(nbThreads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "TileRasterizer-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
 
+    private Document getSVGDocument(String tileID) throws Exception {
+        synchronized (svgMap) {
+            Document doc = svgMap.get(tileID);
+            if (doc == null) {
+                String fn = "tile" + tileID + ".svg";
                 // Step 3: parse the input file to get a Document object
                 doc = svgDocBuilder.parse(ResourceLoader.getInputStream(fn, directory));
                 // Cache the doc
                 svgMap.put(tileID, doc);
                 log.trace("SVG document for tile id {} succeeded ", tileID);
             }
+            return doc;
+        }
+    }
+
+    private BufferedImage getSVGTile(String tileID, double zoomFactor) {
+        BufferedImage image;
+
+        try {
+            Document doc = getSVGDocument(tileID);
             BufferedImageTranscoder t = new BufferedImageTranscoder();
             t.addTranscodingHint(ImageTranscoder.KEY_MAX_WIDTH, (float) (svgWidth * zoomFactor));
             t.addTranscodingHint(ImageTranscoder.KEY_MAX_HEIGHT, (float) (svgHeight * zoomFactor));
-            TranscoderInput input = new TranscoderInput(svgMap.get(tileID));
-            t.transcode(input, null);
+            // the document is copied by the transcoder, which is not thread-safe
+            synchronized (doc) {
+                t.transcode(new TranscoderInput(doc), null);
+            }
             image = t.getImage();
             log.trace("SVG transcoding for tile id {} and zoomFactor {} succeeded", tileID, zoomFactor);
 
         } catch (Exception e) {
-            log.error("SVG transcoding for tile id {} failed", tileID, e);
+            logFailure(tileID, e);
             return null;
         }
 
         return image;
     }
 
-    public BufferedImage getTile(String tileID, int zoomStep) {
-        if (tileImages.contains(tileID, zoomStep)) {
-            return tileImages.get(tileID, zoomStep);
+    private void logFailure(String tileID, Throwable e) {
+        if (failedTileIDs.add(tileID)) {
+            log.error("SVG transcoding for tile id {} failed", tileID, e);
         } else {
-            BufferedImage image = getSVGTile(tileID, getZoomFactor(zoomStep));
-            tileImages.put(tileID, zoomStep, image);
-            return image;
+            log.debug("SVG transcoding for tile id {} failed again", tileID);
+        }
+    }
+
+    private static long getBytes(BufferedImage image) {
+        return image == null ? 0 : 4L * image.getWidth() * image.getHeight();
+    }
+
+    /**
+     * Stores the image and evicts the least recently used images above the memory limit
+     */
+    private void cacheImage(ImageKey key, BufferedImage image) {
+        cachedBytes += getBytes(image) - getBytes(tileImages.put(key, image));
+        Iterator<Map.Entry<ImageKey, BufferedImage>> iterator = tileImages.entrySet().iterator();
+        while (cachedBytes > maxCachedBytes && iterator.hasNext()) {
+            Map.Entry<ImageKey, BufferedImage> entry = iterator.next();
+            if (entry.getKey().equals(key)) continue;
+            cachedBytes -= getBytes(entry.getValue());
+            iterator.remove();
         }
     }
 
+    /**
+     * Returns the image of the tile, rasterizes it on the calling thread if it is not cached
+     */
+    public BufferedImage getTile(String tileID, int zoomStep) {
+        ImageKey key = new ImageKey(tileID, zoomStep);
+        Future<BufferedImage> future;
+        int currentGeneration;
+        synchronized (this) {
+            if (tileImages.containsKey(key)) {
+                return tileImages.get(key);
+            }
+            future = pending.get(key);
+            currentGeneration = generation;
+        }
+
+        if (future != null) {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                logFailure(tileID, e.getCause());
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (CancellationException e) {
+                // the cached images were invalidated, rasterize again
+            }
+        }
+
+        BufferedImage image = getSVGTile(tileID, getZoomFactor(zoomStep));
+        synchronized (this) {
+            if (image != null && generation == currentGeneration) {
+                cacheImage(key, image);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Returns the image of the tile if it is cached, otherwise the image is rasterized in the background.
+     * In both cases the adjacent zoom steps are prefetched.
+     * @param loaded called on the event dispatch thread if the image was not available
+     * @return the image, a scaled image of another zoom step as placeholder, or null
+     */
+    public BufferedImage getTile(String tileID, int zoomStep, Runnable loaded) {
+        ImageKey key = new ImageKey(tileID, zoomStep);
+        BufferedImage image = null;
+        boolean cached;
+        synchronized (this) {
+            cached = tileImages.containsKey(key);
+            if (cached) {
+                image = tileImages.get(key);
+            } else {
+                List<Runnable> keyListeners = listeners.get(key);
+                if (keyListeners == null) {
+                    keyListeners = Lists.newArrayList();
+                    listeners.put(key, keyListeners);
+                }
+                keyListeners.add(loaded);
+            }
+        }
+
+        if (!cached) {
+            rasterize(key);
+            image = getPlaceholder(tileID, zoomStep);
+        }
+        if (zoomStep > 0) rasterize(new ImageKey(tileID, zoomStep - 1));
+        if (zoomStep < MAX_ZOOM_STEP) rasterize(new ImageKey(tileID, zoomStep + 1));
+        return image;
+    }
+
+    private void rasterize(final ImageKey key) {
+        // zoom factors are defined on the calling thread
+        final double zoomFactor = getZoomFactor(key.zoomStep);
+        synchronized (this) {
+            if (tileImages.containsKey(key) || pending.containsKey(key)) return;
+
+            final int taskGeneration = generation;
+            FutureTask<BufferedImage> task = new FutureTask<>(() -> {
+                BufferedImage image = getSVGTile(key.tileID, zoomFactor);
+                rasterized(key, image, taskGeneration);
+                return image;
+            });
+            pending.put(key, task);
+            rasterizer.execute(task);
+        }
+    }
+
+    private void rasterized(ImageKey key, BufferedImage image, int taskGeneration) {
+        final List<Runnable> keyListeners;
+        synchronized (this) {
+            if (generation != taskGeneration) return;
+            pending.remove(key);
+            keyListeners = listeners.remove(key);
+            // a failed transcoding is retried at the next request, without repainting now
+            if (image == null) return;
+            cacheImage(key, image);
+        }
+        if (keyListeners != null) {
+            SwingUtilities.invokeLater(() -> {
+                for (Runnable listener : keyListeners) {
+                    listener.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the image of the nearest cached zoom step, scaled to the requested zoom step
+     */
+    private BufferedImage getPlaceholder(String tileID, int zoomStep) {
+        BufferedImage image = null;
+        int imageStep = 0;
+        synchronized (this) {
+            for (int d = 1; d <= MAX_ZOOM_STEP && image == null; d++) {
+                for (int step : new int[] {zoomStep - d, zoomStep + d}) {
+                    if (step < 0 || step > MAX_ZOOM_STEP) continue;
+                    image = tileImages.get(new ImageKey(tileID, step));
+                    if (image != null) {
+                        imageStep = step;
+                        break;
+                    }
+                }
+            }
+        }
+        if (image == null) return null;
+
+        double scale = getZoomFactor(zoomStep) / getZoomFactor(imageStep);
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        BufferedImage placeholder = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = placeholder.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return placeholder;
+    }
+
+    /**
+     * Removes all cached images, images rasterized in the background are dropped
+     */
+    private synchronized void clearImages() {
+        generation++;
+        tileImages.clear();
+        cachedBytes = 0;
+        for (Future<BufferedImage> future : pending.values()) {
+            future.cancel(false);
+        }
+        pending.clear();
+        // listeners are still called to repaint with the new images
+        for (Map.Entry<ImageKey, List<Runnable>> entry : listeners.entrySet()) {
+            final List<Runnable> keyListeners = entry.getValue();
+            SwingUtilities.invokeLater(() -> {
+                for (Runnable listener : keyListeners) {
+                    listener.run();
+                }
+            });
+        }
+        listeners.clear();
+    }
+
     public double getZoomFactor (int zoomStep) {
         if (zoomStep < 0) zoomStep = 0;
-        else if (zoomStep > 20) zoomStep = 20;
+        else if (zoomStep > MAX_ZOOM_STEP) zoomStep = MAX_ZOOM_STEP;
         if (zoomFactors[zoomStep] == 0.0) {
             zoomFactors[zoomStep] = zoomAdjustmentFactor * Math.pow(2.0, 0.25*(zoomStep-10));
         }
@@ -136,7 +398,7 @@ public class ImageLoader {
         Arrays.fill(zoomFactors, 0);
 
         //invalidate buffered tile scalings
-        tileImages.clear();
+        clearImages();
     }
 
     public void resetAdjustmentFactor() {
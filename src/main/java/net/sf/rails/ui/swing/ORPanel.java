@@ -125,7 +125,6 @@ implements ActionListener, KeyListener, RevenueListener {
 
     private boolean isRevenueValueToBeSet = false;
     private RevenueAdapter revenueAdapter = null;
-    private Thread revenueThread = null;
 
     private List<JFrame> openWindows = new ArrayList<>();
 
@@ -1102,10 +1101,8 @@ implements ActionListener, KeyListener, RevenueListener {
     }
 
     private void clearRevenueAdapter() {
-        if (revenueThread != null) {
-            revenueThread.interrupt();
-            revenueThread = null;
-        }
+        // cancels the running calculation and drops its results
+        RevenueCalculationService.getInstance().cancel(this);
         if (revenueAdapter != null) {
             revenueAdapter.removeRevenueListener();
             revenueAdapter = null;
@@ -1126,8 +1123,8 @@ implements ActionListener, KeyListener, RevenueListener {
             revenueAdapter = RevenueAdapter.createRevenueAdapter(root, orComp, root.getPhaseManager().getCurrentPhase());
             revenueAdapter.initRevenueCalculator(true);
             revenueAdapter.addRevenueListener(this);
-            revenueThread = new Thread(revenueAdapter);
-            revenueThread.start();
+            // a previous calculation of this panel is cancelled
+            RevenueCalculationService.getInstance().submit(this, revenueAdapter);
         } else {
 
             //remove current routes also if display option is not active
@@ -7,6 +7,7 @@ import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
 import java.net.URL;
 import java.util.List;
 
@@ -14,6 +15,9 @@ import javax.swing.*;
 import javax.swing.event.HyperlinkEvent;
 import javax.swing.event.HyperlinkListener;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.html.HTML;
 import javax.swing.text.html.HTMLDocument;
 
 import org.slf4j.Logger;
@@ -40,6 +44,7 @@ public class ReportWindow extends JFrame implements ActionListener, HyperlinkLis
 
     private final GameUIManager gameUIManager;
     private final ChangeStack changeStack;
+    private final ReportBuffer reportBuffer;
 
     private JLabel message;
 
@@ -60,7 +65,7 @@ public class ReportWindow extends JFrame implements ActionListener, HyperlinkLis
         this.isStatic = isStaticWindow;
         timeWarpMode = false;
 
-        ReportBuffer reportBuffer = gameUIManager.getRoot().getReportManager().getReportBuffer();
+        reportBuffer = gameUIManager.getRoot().getReportManager().getReportBuffer();
         reportBuffer.addObserver(this);
         changeStack = gameUIManager.getRoot().getStateManager().getChangeStack();
 
@@ -267,6 +272,8 @@ public class ReportWindow extends JFrame implements ActionListener, HyperlinkLis
     }
 
     private void gotoIndex(int index) {
+        // earlier ChangeSets may have been dropped
+        index = Math.max(index, changeStack.getMinimumIndex());
         int currentIndex = changeStack.getCurrentIndex();
         if (index > currentIndex) { // move forward
             GameAction action = new GameAction(gameUIManager.getRoot(), GameAction.Mode.REDO);
@@ -301,10 +308,42 @@ public class ReportWindow extends JFrame implements ActionListener, HyperlinkLis
 
     // ReportBuffer.Observer methods
 
-    // FIXME: Rails 2.0 Not used so far
     @Override
     public void append(String text) {
-        // do nothing
+        HTMLDocument document = (HTMLDocument) editorPane.getDocument();
+        Element body = document.getElement(document.getDefaultRootElement(),
+                StyleConstants.NameAttribute, HTML.Tag.BODY);
+        try {
+            document.insertBeforeEnd(body, text);
+        } catch (BadLocationException | IOException e) {
+            log.warn("Unable to append to report window, reload complete text", e);
+            update(reportBuffer.getCurrentText());
+            return;
+        }
+        scrollDown();
+    }
+
+    @Override
+    public void replace(String id, String text) {
+        HTMLDocument document = (HTMLDocument) editorPane.getDocument();
+        Element paragraph = document.getElement(id);
+        if (paragraph == null) {
+            log.warn("No paragraph {} in report window, reload complete text", id);
+            update(reportBuffer.getCurrentText());
+            return;
+        }
+        try {
+            if (text == null) {
+                document.removeElement(paragraph);
+            } else {
+                document.setOuterHTML(paragraph, text);
+            }
+        } catch (BadLocationException | IOException e) {
+            log.warn("Unable to replace in report window, reload complete text", e);
+            update(reportBuffer.getCurrentText());
+            return;
+        }
+        scrollDown();
     }
 
     @Override
@@ -253,9 +253,16 @@ public class GUIHex implements Observer {
     // handle racing conditions for mouse events.
     private int highlightCounter = 0;
 
+    // tile and rotation of the model at the last model update,
+    // tile layer is only repainted if one of them has changed
+    private Tile modelTile;
+    private HexSide modelRotation;
+
     public GUIHex(HexMap hexMap, MapHex hex, double scale) {
         this.hexMap = hexMap;
         this.hex = hex;
+        this.modelTile = hex.getCurrentTile();
+        this.modelRotation = hex.getCurrentTileRotation();
         hex.addObserver(this);
         this.setDimensions(scale, 1.0);
         this.state = State.NORMAL;
@@ -769,7 +776,15 @@ public class GUIHex implements Observer {
     // Observer methods
     @Override
     public void update(String text) {
-        update();
+        Tile tile = hex.getCurrentTile();
+        HexSide rotation = hex.getCurrentTileRotation();
+        if (tile != modelTile || rotation != modelRotation) {
+            modelTile = tile;
+            modelRotation = rotation;
+            hexMap.repaintTiles(getBounds());
+        }
+        // tokens, reservations and blocking privates are painted on the tokens layer
+        hexMap.repaintTokens(getBounds());
     }
 
     @Override
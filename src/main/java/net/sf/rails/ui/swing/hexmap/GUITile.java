@@ -34,8 +34,10 @@ public class GUITile {
         // MapHex refers back to Tile if necessary
         String picId = hex.getHex().getPictureId(tile);
 
+        // missing images are rasterized in the background, the hex is repainted afterwards
         ImageLoader imageLoader = ImageLoader.getInstance();
-        BufferedImage tileImage = imageLoader.getTile(picId, zoomStep);
+        BufferedImage tileImage = imageLoader.getTile(picId, zoomStep,
+                () -> hex.getHexMap().repaintTiles(hex.getBounds()));
 
         if (tileImage != null) {
 
@@ -60,7 +62,7 @@ public class GUITile {
             g2.drawImage(tileImage, aop, 0, 0);
 
         } else {
-            log.error("No image for tile {} on hex {}", tile, hex.toText());
+            log.debug("No image yet for tile {} on hex {}", tile, hex.toText());
         }
     }
 
@@ -14,6 +14,7 @@ import java.awt.event.MouseMotionListener;
 import java.awt.geom.GeneralPath;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -167,6 +168,97 @@ public abstract class HexMap implements MouseListener, MouseMotionListener {
         }
     }
 
+    /**
+     * Spatial index of the hexes: the map is divided into cells of the size of a hex,
+     * each cell stores the positions (in the list of hexes) of the hexes whose bounds intersect it.
+     * Lookups return the hexes in the order of the list of hexes, thus painting order is retained.
+     */
+    private static class HexIndex {
+        private final List<GUIHex> hexes;
+        private final int cellWidth;
+        private final int cellHeight;
+        private final int columns;
+        private final int rows;
+        private final int[][] cells;
+
+        private HexIndex(List<GUIHex> hexes) {
+            this.hexes = hexes;
+
+            int width = 1, height = 1, maxX = 0, maxY = 0;
+            for (GUIHex hex : hexes) {
+                Rectangle r = hex.getBounds();
+                width = Math.max(width, r.width);
+                height = Math.max(height, r.height);
+                maxX = Math.max(maxX, r.x + r.width);
+                maxY = Math.max(maxY, r.y + r.height);
+            }
+            cellWidth = width;
+            cellHeight = height;
+            columns = maxX / cellWidth + 1;
+            rows = maxY / cellHeight + 1;
+
+            List<List<Integer>> cellLists = new ArrayList<>(columns * rows);
+            for (int c = 0; c < columns * rows; c++) {
+                cellLists.add(new ArrayList<Integer>(4));
+            }
+            for (int i = 0; i < hexes.size(); i++) {
+                Rectangle r = hexes.get(i).getBounds();
+                for (int row = row(r.y); row <= row(r.y + r.height - 1); row++) {
+                    for (int col = column(r.x); col <= column(r.x + r.width - 1); col++) {
+                        cellLists.get(row * columns + col).add(i);
+                    }
+                }
+            }
+            cells = new int[columns * rows][];
+            for (int c = 0; c < cells.length; c++) {
+                List<Integer> cellList = cellLists.get(c);
+                cells[c] = new int[cellList.size()];
+                for (int j = 0; j < cells[c].length; j++) {
+                    cells[c][j] = cellList.get(j);
+                }
+            }
+        }
+
+        private int column(int x) {
+            return Math.max(0, Math.min(columns - 1, x / cellWidth));
+        }
+
+        private int row(int y) {
+            return Math.max(0, Math.min(rows - 1, y / cellHeight));
+        }
+
+        /**
+         * @return the hexes whose bounds intersect the given area
+         */
+        private List<GUIHex> getHexes(Rectangle area) {
+            BitSet found = new BitSet(hexes.size());
+            for (int row = row(area.y); row <= row(area.y + area.height - 1); row++) {
+                for (int col = column(area.x); col <= column(area.x + area.width - 1); col++) {
+                    for (int i : cells[row * columns + col]) {
+                        if (!found.get(i) && hexes.get(i).getBounds().intersects(area)) {
+                            found.set(i);
+                        }
+                    }
+                }
+            }
+            List<GUIHex> result = new ArrayList<>(found.cardinality());
+            for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+                result.add(hexes.get(i));
+            }
+            return result;
+        }
+
+        private GUIHex getHexContainingPoint(Point point) {
+            if (point.x < 0 || point.y < 0) return null;
+            for (int i : cells[row(point.y) * columns + column(point.x)]) {
+                if (hexes.get(i).contains(point)) {
+                    return hexes.get(i);
+                }
+            }
+            return null;
+        }
+    }
+
     private abstract static class HexLayer extends JComponent {
         private static final long serialVersionUID = 1L;
         protected final HexMap hexMap;
@@ -282,24 +374,21 @@ public abstract class HexMap implements MouseListener, MouseMotionListener {
         @Override
         public void paintImage(Graphics2D g) {
             try {
-                // Paint tiles
-                for (GUIHex hex:hexMap.getHexes()) {
-                    Rectangle hexrect = hex.getBounds();
+                // Abort if called too early.
+                Rectangle rectClip = g.getClipBounds();
+                if (rectClip == null) {
+                    return;
+                }
+                List<GUIHex> hexes = hexMap.getHexes(rectClip);
 
-                    if (g.hitClip(hexrect.x, hexrect.y, hexrect.width,
-                            hexrect.height)) {
-                        hex.paintTile(g);
-                    }
+                // Paint tiles
+                for (GUIHex hex : hexes) {
+                    hex.paintTile(g);
                 }
 
                 // Paint the impassability bars
-                for (GUIHex hex:hexMap.getHexes()) {
-                    Rectangle hexrect = hex.getBounds();
-
-                    if (g.hitClip(hexrect.x, hexrect.y, hexrect.width,
-                            hexrect.height)) {
-                        hex.paintBars(g);
-                    }
+                for (GUIHex hex : hexes) {
+                    hex.paintBars(g);
                 }
 
             } catch (NullPointerException ex) {
@@ -425,14 +514,9 @@ public abstract class HexMap implements MouseListener, MouseMotionListener {
                     return;
                 }
 
-                // Paint tiles
-                for (GUIHex hex : hexMap.getHexes()) {
-                    Rectangle hexrect = hex.getBounds();
-
-                    if (g.hitClip(hexrect.x, hexrect.y, hexrect.width,
-                            hexrect.height)) {
-                        hex.paintMarks(g);
-                    }
+                // Paint marks
+                for (GUIHex hex : hexMap.getHexes(rectClip)) {
+                    hex.paintMarks(g);
                 }
 
             } catch (NullPointerException ex) {
@@ -488,18 +572,13 @@ public abstract class HexMap implements MouseListener, MouseMotionListener {
                 }
 
                 // Paint station tokens and texts
-                for (GUIHex hex : hexMap.getHexes()) {
+                for (GUIHex hex : hexMap.getHexes(rectClip)) {
                     log.trace("hex ={}", hex);
-                    Rectangle hexrect = hex.getBounds();
-
-                    if (g.hitClip(hexrect.x, hexrect.y, hexrect.width,
-                            hexrect.height)) {
-                        hex.paintTokensAndText(g);
-                    }
+                    hex.paintTokensAndText(g);
                 }
 
                 // paint coordinates
-                boolean lettersGoHorizontal = hexMap.mapManager.getMapOrientation().lettersGoHorizontal();
+                boolean lettersGoHorizontal = hexMap.mapManager.lettersGoHorizontal();
                 int xLeft = (int) hexMap.calcXCoordinates(hexMap.minimum.getCol(), -hexMap.coordinateXMargin);
                 int xRight = (int) hexMap.calcXCoordinates(hexMap.maximum.getCol(), hexMap.coordinateXMargin);
 
@@ -550,6 +629,9 @@ public abstract class HexMap implements MouseListener, MouseMotionListener {
 
     protected Map<MapHex, GUIHex> hex2gui;
 
+    // spatial index of the hexes, rebuilt if the hex dimensions change
+    private HexIndex hexIndex;
+
     // dynamic variables
 
 
@@ -668,12 +750,14 @@ public abstract class HexMap implements MouseListener, MouseMotionListener {
             hexMapBuilder.put(hex, guiHex);
         }
         hex2gui = hexMapBuilder.build();
+        hexIndex = new HexIndex(ImmutableList.copyOf(hex2gui.values()));
     }
 
     protected void scaleHexesGUI() {
         for (GUIHex hex:hex2gui.values()) {
             hex.setDimensions(scale, zoomFactor);
         }
+        hexIndex = new HexIndex(ImmutableList.copyOf(hex2gui.values()));
     }
 
     private String getNumberLabel(int index) {
@@ -703,12 +787,7 @@ public abstract class HexMap implements MouseListener, MouseMotionListener {
     }
 
     GUIHex getHexContainingPoint(Point point) {
-        for (GUIHex hex : hex2gui.values()) {
-            if (hex.contains(point)) {
-                return hex;
-            }
-        }
-        return null;
+        return hexIndex.getHexContainingPoint(point);
     }
 
     public GUIHex getHex(MapHex hex) {
@@ -719,6 +798,13 @@ public abstract class HexMap implements MouseListener, MouseMotionListener {
         return hex2gui.values();
     }
 
+    /**
+     * @return the hexes whose bounds intersect the given area, in painting order
+     */
+    List<GUIHex> getHexes(Rectangle area) {
+        return hexIndex.getHexes(area);
+    }
+
     public boolean hasMapImage() {
         return displayMapImage;
     }
@@ -7,6 +7,7 @@ import net.sf.rails.common.parser.GameOptionsParser;
 import net.sf.rails.game.GameManager;
 import net.sf.rails.game.RailsRoot;
 import net.sf.rails.game.TrainCard;
+import net.sf.rails.game.round.RoundFacade;
 import net.sf.rails.ui.swing.GameUIManager;
 import net.sf.rails.ui.swing.SplashWindow;
 
@@ -37,13 +38,33 @@ public class GameLoader {
 
     // object data
     private ObjectInputStream ois = null;
+    // serialized actions of a recovery journal
+    private List<byte[]> journalActions = null;
+    // index of the first action in the list of actions, the previous ones are skipped (see reloadGameFromFile)
+    private int firstAction = 0;
     private RailsRoot railsRoot = null;
     private Exception exception = null;
+    private ReplayListener replayListener = null;
+
+    /**
+     * Listener informed about each replayed action, e.g. to measure the replay
+     */
+    public interface ReplayListener {
+        /**
+         * @param round the round that processed the action
+         * @param nanos time used to process the action
+         */
+        void actionReplayed(PossibleAction action, RoundFacade round, long nanos);
+    }
 
     public GameLoader() {
         // do nothing
     }
 
+    public void setReplayListener(ReplayListener replayListener) {
+        this.replayListener = replayListener;
+    }
+
     public static void loadAndStartGame(File gameFile) {
         SplashWindow splashWindow = new SplashWindow(true, gameFile.getAbsolutePath());
         splashWindow.notifyOfStep(SplashWindow.STEP_LOAD_GAME);
@@ -130,7 +151,16 @@ public class GameLoader {
         // FIXME: Removed the filename replacement expression
         // check if this still works
         // String filename = filePath.replaceAll(".*[/\\\\]", "");
-        ois = new RailsObjectInputStream(this, new FileInputStream(gameFile));
+        if (RecoveryJournal.isJournal(gameFile)) {
+            RecoveryJournal.Content journal = RecoveryJournal.read(gameFile);
+            ois = new RailsObjectInputStream(this, new ByteArrayInputStream(journal.getHeader()));
+            journalActions = journal.getActions();
+        } else {
+            ois = new RailsObjectInputStream(this, new BufferedInputStream(new FileInputStream(gameFile)));
+            journalActions = null;
+            // actions of the serialized stream can refer to previous ones, thus all of them are read
+            firstAction = 0;
+        }
 
         Object object = ois.readObject();
         String version;
@@ -213,6 +243,10 @@ public class GameLoader {
      */
     @SuppressWarnings("unchecked")
     public void convertGameData() throws Exception {
+        if (journalActions != null) {
+            convertJournalActions();
+            return;
+        }
         // Read game actions into gameData.listOfActions
         // read next object in stream
         Object actionObject = null;
@@ -269,6 +303,24 @@ public class GameLoader {
         ois = null;
     }
 
+    /**
+     * Convert the actions of a recovery journal, each action is serialized separately
+     */
+    private void convertJournalActions() throws Exception {
+        List<PossibleAction> actions = Lists.newArrayList();
+        firstAction = Math.min(firstAction, journalActions.size());
+        for (byte[] payload : journalActions.subList(firstAction, journalActions.size())) {
+            try (ObjectInputStream actionStream = new RailsObjectInputStream(this, new ByteArrayInputStream(payload))) {
+                actions.add((PossibleAction) actionStream.readObject());
+            }
+        }
+        gameIOData.setActions(actions);
+        log.debug("Read {} actions from recovery journal (skipped {})", actions.size(), firstAction);
+        journalActions = null;
+        ois.close();
+        ois = null;
+    }
+
     /**
      * @return false if exception occurred
      */
@@ -283,7 +335,13 @@ public class GameLoader {
             gameManager.getCurrentRound().setPossibleActions();
             for (PossibleAction action : gameIOData.getActions()) {
                 count++;
-                if (!gameManager.processOnReload(action)) {
+                RoundFacade round = gameManager.getCurrentRound();
+                long start = replayListener != null ? System.nanoTime() : 0;
+                boolean processed = gameManager.processOnReload(action);
+                if (replayListener != null) {
+                    replayListener.actionReplayed(action, round, System.nanoTime() - start);
+                }
+                if (!processed) {
                     log.warn("Replay of game interrupted at action "+count);
                     String message = LocalText.getText("LoadInterrupted", count);
                     exception = new RailsReplayException(message);
@@ -315,6 +373,14 @@ public class GameLoader {
         return gameIOData.getActions();
     }
 
+    /**
+     * @return index of the first action returned by getActions in the game file,
+     * larger than zero only if the previous actions were skipped by reloadGameFromFile
+     */
+    public int getFirstAction() {
+        return firstAction;
+    }
+
     public String getGameDataAsText() {
         return gameIOData.metaDataAsText() + gameIOData.gameOptionsAsText() + gameIOData.playerNamesAsText();
     }
@@ -387,8 +453,19 @@ public class GameLoader {
     }
 
     public boolean reloadGameFromFile(RailsRoot root, File file) {
+        return reloadGameFromFile(root, file, 0);
+    }
+
+    /**
+     * Reads the game data and the actions of a file for an existing game
+     * @param firstAction index of the first action to decode, the previous ones are known already.
+     * Only recovery journals allow to skip them,
+     * see getFirstAction for the index of the first returned action.
+     */
+    public boolean reloadGameFromFile(RailsRoot root, File file, int firstAction) {
         try {
             railsRoot = root;
+            this.firstAction = firstAction;
             // 1st: loadGameData
             loadGameData(file);
 
@@ -1,5 +1,6 @@
 package net.sf.rails.util;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
@@ -72,29 +73,9 @@ public class GameSaver {
     public void saveGame(File file) throws IOException {
         log.info("Saving to {}", file.getAbsoluteFile());
 
-        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(file.toPath()))) {
-            oos.writeObject(gameIOData.getVersion());
-            oos.writeObject(gameIOData.getDate());
-            oos.writeObject(gameIOData.getFileVersionID());
-            oos.writeObject(gameIOData.getGameData().getGameName());
-            oos.writeObject(gameIOData.getGameData().getGameOptions().getOptions());
-            // save game play related options
-            Map<String, String> gameOptions = new HashMap<>();
-            for ( Map.Entry<String, List<ConfigItem>> entry : ConfigManager.getInstance().getConfigSections().entrySet() ) {
-                for ( ConfigItem config : entry.getValue() ) {
-                    if ( config.isGameRelated ) {
-                        String value = Config.get(config.name);
-                        if ( StringUtils.isNotBlank(value) ) {
-                            gameOptions.put(config.name, Config.get(config.name));
-                        }
-                    }
-                }
-            }
-            if ( !gameOptions.isEmpty() ) {
-                oos.writeObject(gameOptions);
-            }
-
-            oos.writeObject(gameIOData.getGameData().getPlayers());
+        try (ObjectOutputStream oos = new ObjectOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+            writeHeader(oos);
             for ( PossibleAction action : gameIOData.getActions() ) {
                 oos.writeObject(action);
             }
@@ -102,6 +83,35 @@ public class GameSaver {
         log.debug("File save successful");
     }
 
+    /**
+     * Writes the game data (versions, game name, options and players) that precede the actions
+     * @param oos stream to write the header to
+     */
+    void writeHeader(ObjectOutputStream oos) throws IOException {
+        oos.writeObject(gameIOData.getVersion());
+        oos.writeObject(gameIOData.getDate());
+        oos.writeObject(gameIOData.getFileVersionID());
+        oos.writeObject(gameIOData.getGameData().getGameName());
+        oos.writeObject(gameIOData.getGameData().getGameOptions().getOptions());
+        // save game play related options
+        Map<String, String> gameOptions = new HashMap<>();
+        for ( Map.Entry<String, List<ConfigItem>> entry : ConfigManager.getInstance().getConfigSections().entrySet() ) {
+            for ( ConfigItem config : entry.getValue() ) {
+                if ( config.isGameRelated ) {
+                    String value = Config.get(config.name);
+                    if ( StringUtils.isNotBlank(value) ) {
+                        gameOptions.put(config.name, Config.get(config.name));
+                    }
+                }
+            }
+        }
+        if ( !gameOptions.isEmpty() ) {
+            oos.writeObject(gameOptions);
+        }
+
+        oos.writeObject(gameIOData.getGameData().getPlayers());
+    }
+
     /**
      * stores game to autosave file
      * @throws IOException
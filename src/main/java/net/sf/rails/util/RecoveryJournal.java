@@ -0,0 +1,302 @@
+package net.sf.rails.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.rails.common.GameData;
+import rails.game.action.PossibleAction;
+
+
+/**
+ * RecoveryJournal is an append-only recovery file of a running game.
+ * <p>
+ * The file starts with a magic number and a version, followed by records.
+ * Each record consists of its type (byte), the length of the payload (int), the payload
+ * and the CRC32 checksum of type and payload (int).
+ * <ul>
+ * <li>The header record contains the game data as written by GameSaver.</li>
+ * <li>Each action record contains one serialized PossibleAction.</li>
+ * <li>A truncation record (after undo) contains the number of actions that remain valid.</li>
+ * </ul>
+ * Records are flushed after each update and synced to disk in batches.
+ * On reading, an incomplete or corrupted record ends the journal,
+ * thus everything written before a crash is recovered.
+ */
+public class RecoveryJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RecoveryJournal.class);
+
+    // "RJNL"
+    private static final int MAGIC = 0x524A4E4C;
+    private static final int VERSION = 1;
+
+    private static final byte RECORD_HEADER = 1;
+    private static final byte RECORD_ACTION = 2;
+    private static final byte RECORD_TRUNCATE = 3;
+
+    /** number of records written before the journal is synced to disk */
+    public static final int SYNC_INTERVAL = 10;
+
+    // journal at the autosave location, closed before the file is replaced by a new journal
+    private static RecoveryJournal autosaveJournal = null;
+
+    private final FileOutputStream fileStream;
+    private final DataOutputStream out;
+
+    // actions already written to the journal
+    private final List<PossibleAction> journalActions = new ArrayList<>();
+    private int unsyncedRecords = 0;
+    private boolean closed = false;
+
+    private RecoveryJournal(File file) throws IOException {
+        fileStream = new FileOutputStream(file);
+        out = new DataOutputStream(new BufferedOutputStream(fileStream));
+    }
+
+    /**
+     * Creates a new journal at the autosave location, the previous recovery file becomes the backup.
+     * The journal previously created at the autosave location is closed first.
+     * @param gameData of the game to journal
+     */
+    public static synchronized RecoveryJournal create(GameData gameData) throws IOException {
+        if (autosaveJournal != null) {
+            autosaveJournal.close();
+            autosaveJournal = null;
+        }
+        File directory = SystemOS.get().getConfigurationFolder(GameSaver.AUTOSAVE_FOLDER, true);
+        File recoveryFile = new File(directory, GameSaver.AUTOSAVE_FILE);
+        if (recoveryFile.exists()) {
+            File backupFile = new File(directory, GameSaver.AUTOSAVE_FILE + ".bak");
+            if (backupFile.exists() && !backupFile.delete()) {
+                log.warn("Unable to delete file {}", backupFile);
+            }
+            if (!recoveryFile.renameTo(backupFile)) {
+                log.warn("Unable to rename recovery file {}", recoveryFile);
+            }
+        }
+        autosaveJournal = create(recoveryFile, gameData);
+        return autosaveJournal;
+    }
+
+    /**
+     * Creates a new journal
+     * @param file to write the journal to (an existing file is overwritten)
+     * @param gameData of the game to journal
+     */
+    public static RecoveryJournal create(File file, GameData gameData) throws IOException {
+        RecoveryJournal journal = new RecoveryJournal(file);
+        journal.out.writeInt(MAGIC);
+        journal.out.writeInt(VERSION);
+
+        GameSaver gameSaver = new GameSaver(gameData, Collections.<PossibleAction>emptyList());
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(header)) {
+            gameSaver.writeHeader(oos);
+        }
+        journal.writeRecord(RECORD_HEADER, header.toByteArray());
+        journal.sync();
+        log.debug("Created recovery journal at {}", file.getPath());
+        return journal;
+    }
+
+    /**
+     * Brings the journal in line with the executed actions:
+     * actions no longer executed (undo) are truncated, new actions are appended
+     */
+    public void update(List<PossibleAction> actions) throws IOException {
+        // find the actions that are already journaled
+        int common = 0;
+        int maxCommon = Math.min(journalActions.size(), actions.size());
+        while (common < maxCommon && journalActions.get(common) == actions.get(common)) {
+            common++;
+        }
+
+        boolean truncated = false;
+        if (common < journalActions.size()) {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            new DataOutputStream(payload).writeInt(common);
+            writeRecord(RECORD_TRUNCATE, payload.toByteArray());
+            journalActions.subList(common, journalActions.size()).clear();
+            truncated = true;
+            log.debug("Recovery journal truncated to {} actions", common);
+        }
+
+        for (PossibleAction action : actions.subList(common, actions.size())) {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(payload)) {
+                oos.writeObject(action);
+            }
+            writeRecord(RECORD_ACTION, payload.toByteArray());
+            journalActions.add(action);
+        }
+
+        out.flush();
+        if (truncated || unsyncedRecords >= SYNC_INTERVAL) {
+            sync();
+        }
+    }
+
+    private void writeRecord(byte type, byte[] payload) throws IOException {
+        out.writeByte(type);
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.writeInt(checksum(type, payload));
+        unsyncedRecords++;
+    }
+
+    private void sync() throws IOException {
+        out.flush();
+        fileStream.getChannel().force(false);
+        unsyncedRecords = 0;
+    }
+
+    /**
+     * Closes the journal, further calls have no effect
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        journalActions.clear();
+        synchronized (RecoveryJournal.class) {
+            if (autosaveJournal == this) {
+                autosaveJournal = null;
+            }
+        }
+        try {
+            sync();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * @return true if the journal is closed, e.g. as a new journal replaced it
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private static int checksum(byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * @return true if the file starts with the journal magic number
+     */
+    public static boolean isJournal(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Content of a journal: the serialized header and actions (still to be deserialized)
+     */
+    public static class Content {
+        private final byte[] header;
+        private final List<byte[]> actions;
+
+        private Content(byte[] header, List<byte[]> actions) {
+            this.header = header;
+            this.actions = actions;
+        }
+
+        public byte[] getHeader() {
+            return header;
+        }
+
+        public List<byte[]> getActions() {
+            return actions;
+        }
+    }
+
+    /**
+     * Reads a journal, truncations are applied.
+     * Reading stops at the first incomplete or corrupted record,
+     * including records with a length beyond the end of the file.
+     */
+    public static Content read(File file) throws IOException {
+        byte[] header = null;
+        List<byte[]> actions = new ArrayList<>();
+
+        // bytes not read yet, bounds the record lengths
+        long remainingBytes = file.length();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("File " + file.getName() + " is not a recovery journal");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Recovery journal version " + version + " is not supported");
+            }
+            remainingBytes -= 8;
+            while (true) {
+                int type = in.read();
+                if (type == -1) break;
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    // type and length are read, the payload is followed by the checksum
+                    remainingBytes -= 5;
+                    if (length < 0 || length > remainingBytes - 4) {
+                        log.warn("Recovery journal {}: invalid record length {}, stops after {} actions",
+                                file.getName(), length, actions.size());
+                        break;
+                    }
+                    remainingBytes -= length + 4;
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    if (in.readInt() != checksum((byte) type, payload)) {
+                        log.warn("Recovery journal {}: checksum mismatch, stops after {} actions", file.getName(), actions.size());
+                        break;
+                    }
+                } catch (EOFException e) {
+                    log.warn("Recovery journal {}: incomplete record, stops after {} actions", file.getName(), actions.size());
+                    break;
+                }
+                if (type == RECORD_HEADER) {
+                    header = payload;
+                } else if (type == RECORD_ACTION) {
+                    actions.add(payload);
+                } else if (type == RECORD_TRUNCATE) {
+                    int remaining = new DataInputStream(new ByteArrayInputStream(payload)).readInt();
+                    if (remaining < actions.size()) {
+                        actions.subList(remaining, actions.size()).clear();
+                    }
+                } else {
+                    log.warn("Recovery journal {}: unknown record type {}", file.getName(), type);
+                }
+            }
+        }
+        if (header == null) {
+            throw new IOException("Recovery journal " + file.getName() + " has no header");
+        }
+        log.debug("Read recovery journal {} with {} actions", file.getName(), actions.size());
+        return new Content(header, actions);
+    }
+
+}
@@ -0,0 +1,187 @@
+package net.sf.rails.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.sf.rails.game.Player;
+import net.sf.rails.game.RailsRoot;
+import net.sf.rails.game.state.ChangeAction;
+import net.sf.rails.game.state.ChangeStack;
+import net.sf.rails.game.state.IntegerState;
+import net.sf.rails.util.GameLoader;
+
+/**
+ * Checks that the incremental updates of the ReportBuffer observer result in the same html text as a full update,
+ * for new report sets with and without messages, undo and redo.
+ */
+public class ReportBufferTest {
+
+    private static final String GAME_FILE = "test/1830_ShareSelling_Test.rails";
+
+    private static final Pattern PARAGRAPH = Pattern.compile("<p id=(\\w+)>.*?</p>", Pattern.DOTALL);
+
+    /**
+     * Keeps the html paragraphs like the ReportWindow
+     */
+    private static final class ParagraphObserver implements ReportBuffer.Observer {
+        private final ReportBuffer reportBuffer;
+        private final Map<String, String> paragraphs = new LinkedHashMap<>();
+        private int updates;
+        private int unknownParagraphs;
+
+        private ParagraphObserver(ReportBuffer reportBuffer) {
+            this.reportBuffer = reportBuffer;
+        }
+
+        @Override
+        public void append(String text) {
+            Matcher matcher = PARAGRAPH.matcher(text);
+            assertTrue(text, matcher.matches());
+            paragraphs.put(matcher.group(1), text);
+        }
+
+        @Override
+        public void replace(String id, String text) {
+            if (!paragraphs.containsKey(id)) {
+                // the ReportWindow reloads the complete text
+                unknownParagraphs++;
+                update(reportBuffer.getCurrentText());
+            } else if (text == null) {
+                paragraphs.remove(id);
+            } else {
+                paragraphs.put(id, text);
+            }
+        }
+
+        @Override
+        public void update(String newText) {
+            updates++;
+            paragraphs.clear();
+            Matcher matcher = PARAGRAPH.matcher(newText);
+            while (matcher.find()) {
+                paragraphs.put(matcher.group(1), matcher.group());
+            }
+        }
+
+        private String getText() {
+            StringBuilder s = new StringBuilder("<html>");
+            for (String paragraph : paragraphs.values()) {
+                s.append(paragraph);
+            }
+            return s.append("</html>").toString();
+        }
+    }
+
+    private RailsRoot root;
+    private ReportBuffer reportBuffer;
+    private ChangeStack changeStack;
+    private IntegerState state;
+    private ParagraphObserver observer;
+
+    @BeforeClass
+    public static void setUpConfiguration() {
+        ConfigManager.initConfiguration(true);
+    }
+
+    @Before
+    public void setUp() {
+        GameLoader gameLoader = new GameLoader();
+        assertTrue(gameLoader.createFromFile(new File(Config.get("save.directory"), GAME_FILE)));
+        root = gameLoader.getRoot();
+        reportBuffer = root.getReportManager().getReportBuffer();
+        changeStack = root.getStateManager().getChangeStack();
+        state = IntegerState.create(root, "reportBufferTest");
+        observer = new ParagraphObserver(reportBuffer);
+        reportBuffer.addObserver(observer);
+    }
+
+    /**
+     * Closes a change set with the given messages
+     */
+    private void close(String... messages) {
+        for (String message : messages) {
+            ReportBuffer.add(root, message);
+        }
+        state.add(1);
+        final Player player = root.getPlayerManager().getCurrentPlayer();
+        changeStack.close(new ChangeAction() {
+            @Override
+            public Player getActionOwner() {
+                return player;
+            }
+        });
+        assertSynchronized();
+    }
+
+    private void undo() {
+        changeStack.undo();
+        assertSynchronized();
+    }
+
+    private void redo() {
+        changeStack.redo();
+        assertSynchronized();
+    }
+
+    private void assertSynchronized() {
+        assertEquals(reportBuffer.getCurrentText(), observer.getText());
+        assertEquals(0, observer.unknownParagraphs);
+    }
+
+    @Test
+    public void testAppend() {
+        close("first");
+        // the first report set requires a full update
+        assertEquals(1, observer.updates);
+        close("second", "third");
+        close("fourth");
+        assertEquals(1, observer.updates);
+    }
+
+    @Test
+    public void testMoveActive() {
+        close("first");
+        close("second");
+        close("third");
+        undo();
+        undo();
+        redo();
+        assertEquals(1, observer.updates);
+        // a new report set after undo discards the future
+        close("fourth");
+        close("fifth");
+    }
+
+    @Test
+    public void testEmptySets() {
+        close("first");
+        close();
+        close();
+        close("second");
+        close();
+        // undo and redo at the end of the report
+        undo();
+        redo();
+        close();
+        close("third");
+        assertEquals(1, observer.updates);
+
+        // an empty report set before the end is only displayed by a full update
+        undo();
+        undo();
+        redo();
+        redo();
+        close();
+    }
+
+}
@@ -0,0 +1,114 @@
+package net.sf.rails.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sf.rails.common.Config;
+import net.sf.rails.common.ConfigManager;
+import net.sf.rails.util.GameLoader;
+import net.sf.rails.util.RecoveryJournal;
+import rails.game.action.GameAction;
+import rails.game.action.NullAction;
+import rails.game.action.PossibleAction;
+
+/**
+ * Checks that GameManager.process writes each executed action to the recovery journal,
+ * including undo and redo.
+ */
+public class GameManagerRecoveryTest {
+
+    private static final String GAME_FILE = "test/1830_ShareSelling_Test.rails";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GameManager gameManager;
+    private File journalFile;
+
+    @BeforeClass
+    public static void setUpConfiguration() {
+        ConfigManager.initConfiguration(true);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        GameLoader gameLoader = new GameLoader();
+        assertTrue(gameLoader.createFromFile(new File(Config.get("save.directory"), GAME_FILE)));
+        RailsRoot root = gameLoader.getRoot();
+        gameManager = root.getGameManager();
+
+        // the journal is written to a temporary file instead of the autosave location
+        Config.set("save.recovery.active", "yes");
+        journalFile = folder.newFile("recovery.rails");
+        gameManager.recoveryJournal = RecoveryJournal.create(journalFile, root.getGameData());
+    }
+
+    @After
+    public void tearDown() {
+        gameManager.closeRecoveryJournal();
+        Config.set("save.recovery.active", "");
+    }
+
+    private <T extends PossibleAction> T findAction(Class<T> clazz) {
+        for (PossibleAction action : gameManager.getPossibleActions().getList()) {
+            if (clazz.isInstance(action)) {
+                return clazz.cast(action);
+            }
+        }
+        return null;
+    }
+
+    private GameAction findGameAction(GameAction.Mode mode) {
+        for (PossibleAction action : gameManager.getPossibleActions().getList()) {
+            if (action instanceof GameAction && ((GameAction) action).getMode() == mode) {
+                return (GameAction) action;
+            }
+        }
+        return null;
+    }
+
+    private int journaledActions() throws IOException {
+        return RecoveryJournal.read(journalFile).getActions().size();
+    }
+
+    @Test
+    public void testProcessWritesJournal() throws IOException {
+        int executed = gameManager.executedActions.size();
+
+        // the loaded actions are written with the first processed action
+        NullAction pass = findAction(NullAction.class);
+        assertNotNull(pass);
+        assertTrue(gameManager.process(pass));
+        assertEquals(executed + 1, gameManager.executedActions.size());
+        assertEquals(executed + 1, journaledActions());
+
+        GameAction undo = findGameAction(GameAction.Mode.FORCED_UNDO);
+        assertNotNull(undo);
+        assertTrue(gameManager.process(undo));
+        assertEquals(executed, journaledActions());
+
+        GameAction redo = findGameAction(GameAction.Mode.REDO);
+        assertNotNull(redo);
+        assertTrue(gameManager.process(redo));
+        assertEquals(executed + 1, journaledActions());
+    }
+
+    @Test
+    public void testRecoveryInactive() throws IOException {
+        Config.set("save.recovery.active", "no");
+        assertTrue(gameManager.process(findAction(NullAction.class)));
+        assertEquals(0, journaledActions());
+    }
+
+}
@@ -0,0 +1,54 @@
+package net.sf.rails.game;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class HexSidesSetTest {
+
+    private static int getBits(HexSidesSet sides) {
+        int bits = 0;
+        for (HexSide side : sides) {
+            bits |= 1 << side.getTrackPointNumber();
+        }
+        return bits;
+    }
+
+    @Test
+    public void testBits() {
+        for (int bits = 0; bits < 64; bits++) {
+            HexSidesSet sides = HexSidesSet.create(bits);
+            assertEquals(bits, sides.getBits());
+            assertEquals(bits, getBits(sides));
+        }
+    }
+
+    @Test
+    public void testRotateBits() {
+        for (int bits = 0; bits < 64; bits++) {
+            for (HexSide rotation : HexSide.all()) {
+                HexSidesSet.Builder expected = HexSidesSet.builder();
+                for (HexSide side : HexSidesSet.create(bits)) {
+                    expected.set(side.rotate(rotation));
+                }
+                assertEquals("bits " + bits + ", rotation " + rotation,
+                        getBits(expected.build()), HexSidesSet.rotateBits(bits, rotation));
+            }
+        }
+    }
+
+    @Test
+    public void testRotated() {
+        for (int bits = 0; bits < 64; bits++) {
+            for (HexSide rotation : HexSide.all()) {
+                HexSidesSet.Builder expected = HexSidesSet.builder();
+                for (HexSide side : HexSidesSet.create(bits)) {
+                    expected.setRotated(side, rotation.negative());
+                }
+                assertEquals("bits " + bits + ", rotation " + rotation,
+                        getBits(expected.build()), HexSidesSet.rotated(HexSidesSet.create(bits), rotation).getBits());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,351 @@
+package net.sf.rails.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Sets.SetView;
+
+import net.sf.rails.common.ConfigManager;
+import net.sf.rails.common.GameData;
+import net.sf.rails.common.GameInfo;
+import net.sf.rails.common.parser.ConfigurationException;
+import net.sf.rails.common.parser.GameInfoParser;
+import net.sf.rails.common.parser.GameOptionsParser;
+
+/**
+ * Compares the precomputed TileUpgradeTable with the previous algorithm of TileUpgrade,
+ * which derived the rotations from the track configurations, for all upgrades of the shipped tile sets.
+ */
+public class TileUpgradeTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TileUpgradeTest.class);
+
+    // games of the test files, which have to be configured completely
+    private static final String[] TEST_GAMES = { "1830", "1835", "1851", "1856", "1880", "1889", "18AL", "18EU" };
+
+    // impassable sides tested for each combination of connected sides, null is no impassable side
+    private static final Integer[] IMPASSABLE = { null, 0, 0x01, 0x03, 0x05, 0x09, 0x15, 0x38, 0x3F };
+
+    /**
+     * Rotation of the previous algorithm
+     */
+    private static final class ReferenceRotation {
+        private final HexSidesSet connectedSides;
+        private final HexSidesSet sidesWithNewTrack;
+        private final Map<Station, Station> stationMapping;
+        private final Set<Station> stationsWithNewTrack;
+        private final boolean symmetric;
+
+        private ReferenceRotation(Set<Track> connectedTracks, Set<Track> newTracks,
+                                  Map<Station, Station> mapping, boolean symmetric) {
+            this.stationMapping = mapping;
+            this.symmetric = symmetric;
+
+            HexSidesSet.Builder sidesBuilder = HexSidesSet.builder();
+            for (Track t : connectedTracks) {
+                if (t.getStart().getTrackPointType() == TrackPoint.Type.SIDE) {
+                    sidesBuilder.set((HexSide) t.getStart());
+                }
+                if (t.getEnd().getTrackPointType() == TrackPoint.Type.SIDE) {
+                    sidesBuilder.set((HexSide) t.getEnd());
+                }
+            }
+            connectedSides = sidesBuilder.build();
+
+            sidesBuilder = HexSidesSet.builder();
+            ImmutableSet.Builder<Station> stationBuilder = ImmutableSet.builder();
+            for (Track t : newTracks) {
+                if (t.getStart().getTrackPointType() == TrackPoint.Type.SIDE) {
+                    sidesBuilder.set((HexSide) t.getStart());
+                } else {
+                    stationBuilder.add((Station) t.getStart());
+                }
+                if (t.getEnd().getTrackPointType() == TrackPoint.Type.SIDE) {
+                    sidesBuilder.set((HexSide) t.getEnd());
+                } else {
+                    stationBuilder.add((Station) t.getEnd());
+                }
+            }
+            stationsWithNewTrack = stationBuilder.build();
+
+            if (stationMapping != null && !stationsWithNewTrack.isEmpty()) {
+                for (Track t : connectedTracks) {
+                    if (t.getStart().getTrackPointType() == TrackPoint.Type.STATION
+                            && t.getEnd().getTrackPointType() == TrackPoint.Type.SIDE) {
+                        Station start = (Station) t.getStart();
+                        if (stationsWithNewTrack.contains(start)
+                                && stationMapping.containsKey(start)
+                                && start.getBaseSlots()
+                                < stationMapping.get(start).getBaseSlots()) {
+                            sidesBuilder.set((HexSide) t.getEnd());
+                        }
+                    }
+                }
+            }
+            sidesWithNewTrack = sidesBuilder.build();
+        }
+    }
+
+    /**
+     * Upgrade of the previous algorithm
+     */
+    private static final class ReferenceUpgrade {
+        private final Map<HexSide, ReferenceRotation> rotations = Maps.newHashMap();
+        private final HexSidesSet rotationSides;
+
+        private ReferenceUpgrade(Tile baseTile, Tile targetTile) {
+            HexSidesSet.Builder sideBuilder = HexSidesSet.builder();
+            for (HexSide side : HexSide.all()) {
+                ReferenceRotation rotation = processRotations(baseTile, targetTile, side);
+                if (rotation != null) {
+                    sideBuilder.set(side);
+                    rotations.put(side, rotation);
+                }
+            }
+            rotationSides = sideBuilder.build();
+        }
+
+        private HexSidesSet getAllowedRotations(HexSidesSet connected, HexSidesSet impassable, HexSide baseRotation,
+                                                Collection<Station> stations, boolean restrictive) {
+            HexSidesSet.Builder builder = HexSidesSet.builder();
+            for (HexSide side : rotationSides) {
+                ReferenceRotation rotation = rotations.get(side);
+                if (impassable != null && rotation.connectedSides.intersects(impassable)) continue;
+                if (checkSideConnectivity(rotation, connected, restrictive) ||
+                        checkStationConnectivity(rotation, stations)) {
+                    builder.set(side.rotate(baseRotation));
+                }
+            }
+            return builder.build();
+        }
+
+        private static boolean checkSideConnectivity(ReferenceRotation rotation, HexSidesSet connected,
+                                                     boolean restrictive) {
+            if (connected == null) return true;
+            if (restrictive && !rotation.sidesWithNewTrack.isEmpty()) {
+                return rotation.sidesWithNewTrack.intersects(connected);
+            } else {
+                return rotation.connectedSides.intersects(connected);
+            }
+        }
+
+        private static boolean checkStationConnectivity(ReferenceRotation rotation, Collection<Station> stations) {
+            if (rotation.stationMapping == null) return false;
+            for (Station station : stations) {
+                Station targetStation = rotation.stationMapping.get(station);
+                if (targetStation != null && rotation.stationsWithNewTrack.contains(targetStation)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static ReferenceRotation processRotations(Tile baseTile, Tile targetTile, HexSide side) {
+            TrackConfig base = baseTile.getTrackConfig();
+            TrackConfig target = targetTile.getTrackConfig();
+            if (side != HexSide.get(0)) {
+                target = TrackConfig.createByRotation(target, side);
+            }
+            Map<Station, Station> stationMapping = assignStations(base, target);
+            if (stationMapping != null && !stationMapping.isEmpty()) {
+                if (stationMapping.containsValue(null)) {
+                    base = TrackConfig.createByDowngrade(base, base.getTile().getStation(1));
+                }
+                base = TrackConfig.createByStationMapping(base, stationMapping);
+            }
+
+            Set<Track> baseTracks = base.getTracks();
+            Set<Track> targetTracks = target.getTracks();
+            if (!Sets.difference(baseTracks, targetTracks).isEmpty()) return null;
+            SetView<Track> newTracks = Sets.difference(targetTracks, baseTracks);
+            return new ReferenceRotation(targetTracks, newTracks, stationMapping,
+                    targetTile.getPossibleRotations().get(side));
+        }
+
+        private static Map<Station, Station> assignStations(TrackConfig base, TrackConfig target) {
+            int baseNb = base.getTile().getNumStations();
+            if (baseNb == 0) return null;
+
+            int targetNb = target.getTile().getNumStations();
+            Map<Station, Station> stationMap = Maps.newHashMapWithExpectedSize(baseNb);
+            if (baseNb == 1) {
+                Station baseStation = base.getTile().getStation(1);
+                if (targetNb == 1) {
+                    stationMap.put(baseStation, target.getTile().getStation(1));
+                } else if (targetNb == 0) {
+                    Set<TrackPoint> baseTrack = base.getStationTracks(baseStation);
+                    for (TrackPoint side : baseTrack) {
+                        Set<TrackPoint> targetTrack = target.getSideTracks((HexSide) side);
+                        targetTrack.add(side);
+                        if (!Sets.difference(baseTrack, targetTrack).isEmpty()) return null;
+                    }
+                    stationMap.put(baseStation, null);
+                }
+            } else {
+                List<Station> noTrackBaseStations = Lists.newArrayList();
+                TreeSet<Station> targetStations = Sets.newTreeSet(target.getTile().getStations());
+                for (Station b : base.getTile().getStations()) {
+                    Set<TrackPoint> baseTrack = base.getStationTracks(b);
+                    if (baseTrack.isEmpty()) {
+                        noTrackBaseStations.add(b);
+                    } else {
+                        for (Station t : target.getTile().getStations()) {
+                            if (checkTrackConnectivity(baseTrack, target.getStationTracks(t))) {
+                                stationMap.put(b, t);
+                                targetStations.remove(t);
+                                break;
+                            }
+                        }
+                    }
+                }
+                for (Station b : noTrackBaseStations) {
+                    Station t = targetStations.pollFirst();
+                    if (t != null) {
+                        stationMap.put(b, t);
+                    }
+                }
+                if (stationMap.keySet().size() != baseNb ||
+                        Sets.newHashSet(stationMap.values()).size() != targetNb) {
+                    stationMap = null;
+                }
+            }
+            return stationMap;
+        }
+
+        private static boolean checkTrackConnectivity(Set<TrackPoint> baseTrack, Set<TrackPoint> targetTrack) {
+            SetView<TrackPoint> diffTrack = Sets.difference(baseTrack, targetTrack);
+            if (diffTrack.isEmpty()) return true;
+            Predicate<TrackPoint> checkForStation = new Predicate<TrackPoint>() {
+                public boolean apply(TrackPoint p) {
+                    return (p.getTrackPointType() == TrackPoint.Type.SIDE);
+                }
+            };
+            return Sets.filter(diffTrack, checkForStation).isEmpty();
+        }
+    }
+
+    private int upgrades;
+    private int downgrades;
+    private int multiStationMappings;
+
+    @BeforeClass
+    public static void setUpConfiguration() {
+        ConfigManager.initConfiguration(true);
+    }
+
+    /**
+     * @return the root of the game, null if the configuration of the game is incomplete (prototypes)
+     */
+    private static RailsRoot createRoot(GameInfo game) {
+        List<String> players = new ArrayList<>();
+        for (int i = 1; i <= game.getMaxPlayers(); i++) {
+            players.add("Player " + i);
+        }
+        try {
+            return RailsRoot.create(GameData.create(game, GameOptionsParser.load(game.getName()), players));
+        } catch (ConfigurationException | RuntimeException e) {
+            log.info("Game {} skipped: {}", game.getName(), e.toString());
+            return null;
+        }
+    }
+
+    private static List<Collection<Station>> stationSubsets(Tile tile) {
+        List<Station> stations = new ArrayList<>(tile.getStations());
+        List<Collection<Station>> subsets = new ArrayList<>();
+        for (int bits = 0; bits < 1 << stations.size(); bits++) {
+            List<Station> subset = new ArrayList<>();
+            for (int s = 0; s < stations.size(); s++) {
+                if ((bits & 1 << s) != 0) subset.add(stations.get(s));
+            }
+            subsets.add(subset);
+        }
+        return subsets;
+    }
+
+    private void assertUpgrade(String message, TileUpgrade upgrade, Tile baseTile) {
+        ReferenceUpgrade reference = new ReferenceUpgrade(baseTile, upgrade.getTargetTile());
+        upgrades++;
+
+        assertEquals(message, reference.rotationSides.getBits(), upgrade.getRotationSet().getBits());
+        for (HexSide side : reference.rotationSides) {
+            ReferenceRotation expected = reference.rotations.get(side);
+            TileUpgrade.Rotation actual = upgrade.getRotation(side);
+            String rotationMessage = message + ", rotation " + side;
+            assertNotNull(rotationMessage, actual);
+            assertEquals(rotationMessage, expected.connectedSides.getBits(), actual.getConnectedSides().getBits());
+            assertEquals(rotationMessage, expected.sidesWithNewTrack.getBits(), actual.getSidesWithNewTrack().getBits());
+            assertEquals(rotationMessage, expected.stationMapping, actual.getStationMapping());
+            assertEquals(rotationMessage, expected.stationsWithNewTrack, actual.getStationsWithNewTrack());
+            assertEquals(rotationMessage, expected.symmetric, actual.isSymmetric());
+
+            if (expected.stationMapping != null) {
+                if (expected.stationMapping.containsValue(null)) downgrades++;
+                if (expected.stationMapping.size() > 1) multiStationMappings++;
+            }
+        }
+
+        List<Collection<Station>> stationSubsets = stationSubsets(baseTile);
+        int n = 0;
+        for (int c = -1; c < 64; c++) {
+            HexSidesSet connected = c < 0 ? null : HexSidesSet.create(c);
+            for (Integer i : IMPASSABLE) {
+                HexSidesSet impassable = i == null ? null : HexSidesSet.create(i);
+                for (Collection<Station> stations : stationSubsets) {
+                    for (boolean restrictive : new boolean[] { false, true }) {
+                        HexSide baseRotation = HexSide.get(n++ % 6);
+                        assertEquals(message + ", connected " + connected + ", impassable " + impassable
+                                        + ", base rotation " + baseRotation + ", stations " + stations
+                                        + ", restrictive " + restrictive,
+                                reference.getAllowedRotations(connected, impassable, baseRotation, stations,
+                                        restrictive).getBits(),
+                                upgrade.getAllowedRotations(connected, impassable, baseRotation, stations,
+                                        restrictive).getBits());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUpgradesOfShippedTileSets() throws ConfigurationException {
+        Set<String> games = Sets.newTreeSet();
+        for (GameInfo game : new GameInfoParser().processGameList()) {
+            RailsRoot root = createRoot(game);
+            if (root == null || root.getTileManager().getTiles() == null) continue;
+            games.add(game.getName());
+
+            for (Tile baseTile : root.getTileManager().getTiles()) {
+                if (baseTile.getTileUpgrades() == null) continue;
+                for (TileUpgrade upgrade : baseTile.getTileUpgrades()) {
+                    assertUpgrade(game.getName() + ": " + baseTile.getId() + " => " + upgrade.getTileId(),
+                            upgrade, baseTile);
+                }
+            }
+        }
+        log.info("Compared {} upgrades of {}", upgrades, games);
+        assertTrue(games.containsAll(Arrays.asList(TEST_GAMES)));
+        assertTrue(upgrades > 0);
+        assertTrue(downgrades > 0);
+        assertTrue(multiStationMappings > 0);
+    }
+
+}
@@ -131,4 +131,60 @@ public class ChangeStackTest {
         testUndoAfterClose();
     }
 
+    private void toggleState(int times) {
+        for (int i = 0; i < times; i++) {
+            state.set(!state.value());
+            StateTestUtils.close(root);
+        }
+    }
+
+    @Test
+    public void testArchivedHistory() {
+        changeStack.setHistoryLimit(2, true);
+        toggleState(5);
+        assertEquals(8, changeStack.getCurrentIndex());
+        assertFalse(state.value());
+
+        // undo reads the archived ChangeSets
+        changeStack.undo(2);
+        assertEquals(2, changeStack.getCurrentIndex());
+        assertEquals(8, changeStack.getMaximumIndex());
+        assertFalse(state.value());
+        changeStack.undo();
+        assertEquals(1, changeStack.getCurrentIndex());
+        assertTrue(state.value());
+        assertFalse(changeStack.isUndoPossible());
+
+        // redo reads the archived ChangeSets
+        changeStack.redo(8);
+        assertEquals(8, changeStack.getCurrentIndex());
+        assertFalse(state.value());
+        assertFalse(changeStack.isRedoPossible());
+
+        changeStack.undo(3);
+        assertTrue(state.value());
+    }
+
+    @Test
+    public void testDroppedHistory() {
+        changeStack.setHistoryLimit(2, false);
+        // set_1 and set_2 are dropped
+        assertEquals(3, changeStack.getCurrentIndex());
+        assertEquals(2, changeStack.getMinimumIndex());
+        assertSame(set_3, changeStack.getClosedChangeSet());
+
+        changeStack.undo();
+        assertEquals(2, changeStack.getCurrentIndex());
+        assertFalse(state.value());
+        assertFalse(changeStack.isUndoPossible());
+
+        changeStack.redo();
+        assertEquals(3, changeStack.getCurrentIndex());
+        assertTrue(state.value());
+
+        toggleState(3);
+        assertEquals(6, changeStack.getCurrentIndex());
+        assertEquals(4, changeStack.getMinimumIndex());
+    }
+
 }
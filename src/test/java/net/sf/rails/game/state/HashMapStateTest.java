@@ -4,6 +4,7 @@ import static org.fest.assertions.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Map;
@@ -179,4 +180,24 @@ public class HashMapStateTest {
         assertThat(state_default.viewValues()).containsAll(testMap.values());
     }
 
+    @Test
+    public void testCachedViews() {
+        state_default.putAll(testMap);
+        StateTestUtils.close(root);
+        // unchanged state returns the identical copies
+        assertSame(state_default.view(), state_default.view());
+        assertSame(state_default.viewKeySet(), state_default.viewKeySet());
+        assertSame(state_default.viewValues(), state_default.viewValues());
+
+        // a change replaces the copies
+        state_default.put(THIRD_ITEM_ID, thirdItem);
+        assertThat(state_default.viewKeySet()).contains(THIRD_ITEM_ID);
+        assertThat(state_default.viewValues()).contains(thirdItem);
+        assertEquals(thirdItem, state_default.view().get(THIRD_ITEM_ID));
+        // and also undo
+        StateTestUtils.closeAndUndo(root);
+        assertEquals(testMap, state_default.view());
+        assertThat(state_default.viewValues()).doesNotContain(thirdItem);
+    }
+
 }
@@ -184,6 +184,25 @@ public class HashMultimapStateTest {
         assertTestIterator(thirdItem);
     }
 
+    @Test
+    public void testCachedCopies() {
+        initState();
+        // unchanged state returns the identical copies
+        assertSame(state.get(ITEM_A_ID), state.get(ITEM_A_ID));
+        assertSame(state.keySet(), state.keySet());
+        assertSame(state.values(), state.values());
+        assertSame(state.view(), state.view());
+
+        // a change replaces the copies
+        Set<Item> values = state.get(ITEM_A_ID);
+        state.remove(ITEM_A_ID, itemA);
+        assertThat(values).containsOnly(itemA, itemB, itemC);
+        assertThat(state.get(ITEM_A_ID)).containsOnly(itemB, itemC);
+        // and also undo
+        StateTestUtils.closeAndUndo(root);
+        assertThat(state.get(ITEM_A_ID)).containsOnly(itemA, itemB, itemC);
+        assertThat(state.values()).hasSize(initContents.size());
+    }
     
 
 }
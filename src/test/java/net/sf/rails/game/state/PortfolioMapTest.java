@@ -151,4 +151,18 @@ public class PortfolioMapTest {
         assertFalse(it.hasNext());
     }
 
+    @Test
+    public void testCachedItems() {
+        item.moveTo(ownerMap);
+        StateTestUtils.close(root);
+        assertSame(portfolioMap.items(), portfolioMap.items());
+        assertSame(portfolioMap.keySet(), portfolioMap.keySet());
+
+        anotherItem.moveTo(ownerMap);
+        assertThat(portfolioMap.items()).containsOnly(item, anotherItem);
+        assertThat(portfolioMap.keySet()).containsOnly(TYPE_ID, ANOTHER_TYPE_ID);
+        StateTestUtils.closeAndUndo(root);
+        assertThat(portfolioMap.items()).containsOnly(item);
+    }
+
 }
@@ -107,4 +107,33 @@ public class RootTest {
         root.removeItem(item);
     }
 
+    @Test
+    public void testDeregister() {
+        ModelImpl model = ModelImpl.create(manager, "model", "text");
+        State state = model.getState();
+        StateTestUtils.close(root);
+
+        root.deregister(manager);
+        StateTestUtils.close(root);
+        assertNull(root.locate(manager.getFullURI()));
+        assertNull(root.locate(anotherItem.getFullURI()));
+        assertNull(root.locate(state.getFullURI()));
+        assertSame(item, root.locate(item.getFullURI()));
+        assertThat(root.getStateManager().getAllStates()).doesNotContain(state);
+        assertThat(state.getModels()).isEmpty();
+
+        // undo registers the items again
+        StateTestUtils.undo(root);
+        assertSame(manager, root.locate(manager.getFullURI()));
+        assertSame(anotherItem, root.locate(anotherItem.getFullURI()));
+        assertSame(state, root.locate(state.getFullURI()));
+        assertThat(root.getStateManager().getAllStates()).contains(state);
+        assertThat(state.getModels()).containsOnly(model);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testDeregisterFail() {
+        root.deregister(root);
+    }
+
 }
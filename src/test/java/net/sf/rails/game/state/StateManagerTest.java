@@ -168,6 +168,23 @@ public class StateManagerTest {
           }
     }
 
+    @Test
+    public void testObservablesToUpdateAfterModelChange() {
+        // the update of the created states would reach the cycle of E and F
+        m_E.removeModel(m_F);
+        StateTestUtils.close(root);
+        assertObservables(ImmutableList.of(m_B1, m_C1), ImmutableSet.of(m_B1));
+        // the compiled order follows changes of the models
+        m_B1.removeModel(m_C1);
+        assertObservables(ImmutableList.<Model>of(m_B1), ImmutableSet.of(m_B1));
+        m_C3.addModel(m_C1);
+        assertObservables(ImmutableList.of(m_A3, m_C3, m_C1, m_D), ImmutableSet.of(m_A3));
+        // ... and undo
+        StateTestUtils.closeAndUndo(root);
+        assertObservables(ImmutableList.of(m_B1, m_C1), ImmutableSet.of(m_B1));
+        assertObservables(ImmutableList.of(m_A3, m_C3, m_D), ImmutableSet.of(m_A3));
+    }
+
     @Test
     public void testUpdateObservers() {
         sm.updateObservers(ImmutableSet.of(m_A1.getState()));
@@ -0,0 +1,81 @@
+package net.sf.rails.game.state;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSortedSet;
+
+/**
+ * Microbenchmark of the read accessors of multimap and portfolio states:
+ * compares the cached copies with copying on each call.
+ * <p>
+ * Usage: StateViewBenchmark [calls]
+ */
+public final class StateViewBenchmark {
+
+    private static final int ITEMS = 200;
+    private static final int TYPES = 10;
+
+    private static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // avoids dead code elimination
+    private static int sink;
+
+    private StateViewBenchmark() {}
+
+    private static void measure(String name, int calls, Supplier<? extends Iterable<?>> supplier) {
+        // warmup
+        for (int i = 0; i < calls; i++) {
+            sink += supplier.get().hashCode();
+        }
+        long thread = Thread.currentThread().getId();
+        long bytes = threadBean.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            for (Object value : supplier.get()) {
+                sink += value.hashCode();
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        bytes = threadBean.getThreadAllocatedBytes(thread) - bytes;
+        System.out.println(String.format("%-30s %10.1f ns/call %10d bytes/call", name,
+                (double) nanos / calls, bytes / calls));
+    }
+
+    public static void main(String[] args) {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        Root root = StateTestUtils.setUpRoot();
+        Owner owner = OwnerImpl.create(root, "Owner");
+        PortfolioMap<String, TypeOwnableItemImpl> portfolio = PortfolioMap.create(owner, "Portfolio",
+                TypeOwnableItemImpl.class);
+        HashMultimapState<String, Item> multimap = HashMultimapState.create(root, "Multimap");
+        for (int i = 0; i < ITEMS; i++) {
+            TypeOwnableItemImpl item = TypeOwnableItemImpl.create(root, "Item" + i, "Type" + (i % TYPES));
+            item.moveTo(owner);
+            multimap.put("Type" + (i % TYPES), item);
+        }
+        StateTestUtils.close(root);
+
+        measure("PortfolioMap.items (copy)", calls, () -> ImmutableSortedSet.copyOf(portfolio.view().values()));
+        measure("PortfolioMap.items", calls, portfolio::items);
+        measure("MultimapState.values (copy)", calls, () -> ImmutableList.copyOf(multimap.view().values()));
+        measure("MultimapState.values", calls, multimap::values);
+        measure("MultimapState.view (copy)", calls, () -> ImmutableMultimap.copyOf(multimap.view()).values());
+        measure("MultimapState.view", calls, () -> multimap.view().values());
+        measure("MultimapState.get", calls, () -> multimap.get("Type0"));
+        measure("MultimapState.iterator", calls, () -> multimap);
+
+        // interleaved changes invalidate the caches
+        measure("MultimapState.values changed", calls / 10, () -> {
+            multimap.remove("Type0", portfolio.items().first());
+            multimap.put("Type0", portfolio.items().first());
+            return multimap.values();
+        });
+        System.out.println(sink == 0 ? "" : "done");
+    }
+
+}
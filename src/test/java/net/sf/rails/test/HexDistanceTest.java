@@ -0,0 +1,82 @@
+package net.sf.rails.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Table;
+
+import net.sf.rails.common.Config;
+import net.sf.rails.common.ConfigManager;
+import net.sf.rails.game.HexSide;
+import net.sf.rails.game.MapHex;
+import net.sf.rails.game.MapManager;
+import net.sf.rails.util.GameLoader;
+
+/**
+ * Compares the precalculated hex distances of the MapManager with the
+ * previous recursive calculation on the maps of several games.
+ */
+public class HexDistanceTest {
+
+    private static final List<String> GAME_FILES = ImmutableList.of(
+            "real/1830_B.rails",
+            "real/1835_KoIT3.rails",
+            "real/1856_A.rails",
+            "real/1880_ATG1.rails",
+            "real/1889_A.rails",
+            "real/18AL_A.rails",
+            "real/18EU_A.rails",
+            "test/1851_Late.rails");
+
+    @BeforeClass
+    public static void setUpConfiguration() {
+        ConfigManager.initConfiguration(true);
+    }
+
+    /**
+     * The recursive depth-first relaxation used before the breadth-first search
+     */
+    private static void calculateHexDistances(MapManager mapManager, Table<MapHex, MapHex, Integer> hexDistances,
+            MapHex initHex, MapHex currentHex, int depth) {
+        hexDistances.put(initHex, currentHex, depth);
+
+        depth++;
+        for (HexSide side : HexSide.all()) {
+            MapHex nextHex = mapManager.getNeighbour(currentHex, side);
+            if (nextHex != null && (!hexDistances.contains(initHex, nextHex)
+                    || depth < hexDistances.get(initHex, nextHex))) {
+                calculateHexDistances(mapManager, hexDistances, initHex, nextHex, depth);
+            }
+        }
+    }
+
+    @Test
+    public void testDistancesAsRecursiveCalculation() {
+        for (String gameFile : GAME_FILES) {
+            GameLoader gameLoader = new GameLoader();
+            assertTrue(gameFile, gameLoader.createFromFile(new File(Config.get("save.directory"), gameFile)));
+            MapManager mapManager = gameLoader.getRoot().getMapManager();
+
+            Table<MapHex, MapHex, Integer> hexDistances = HashBasedTable.create();
+            for (MapHex initHex : mapManager.getHexes()) {
+                calculateHexDistances(mapManager, hexDistances, initHex, initHex, 0);
+                for (MapHex otherHex : mapManager.getHexes()) {
+                    // hexes without a connection have no entry in the recursive calculation
+                    Integer expected = hexDistances.get(initHex, otherHex);
+                    assertEquals(gameFile + ": " + initHex + " - " + otherHex,
+                            expected == null ? -1 : expected.intValue(),
+                            mapManager.getHexDistance(initHex, otherHex));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package net.sf.rails.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.SortedSet;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+import net.sf.rails.algorithms.NetworkEdge;
+import net.sf.rails.algorithms.NetworkGraph;
+import net.sf.rails.algorithms.NetworkVertex;
+import net.sf.rails.common.Config;
+import net.sf.rails.common.ConfigManager;
+import net.sf.rails.game.RailsRoot;
+import net.sf.rails.game.state.ChangeStack;
+import net.sf.rails.util.GameLoader;
+
+/**
+ * Checks that the map graph of the MapGraphCache, which updates the changed hexes only,
+ * is equal to a map graph built from scratch after each action of a replay, undo and redo.
+ */
+public class MapGraphCacheTest {
+
+    private static final List<String> GAME_FILES = ImmutableList.of(
+            "real/1830_B.rails",
+            "real/1856_A.rails",
+            "real/18EU_A.rails");
+
+    // number of actions undone and redone one by one
+    private static final int UNDO_STEPS = 50;
+
+    @BeforeClass
+    public static void setUpConfiguration() {
+        ConfigManager.initConfiguration(true);
+    }
+
+    /**
+     * @return the vertices and edges of the graph in a comparable form
+     */
+    private static SortedSet<String> describe(NetworkGraph mapGraph) {
+        SortedSet<String> description = Sets.newTreeSet();
+        for (NetworkVertex vertex : mapGraph.getGraph().vertexSet()) {
+            description.add(vertex.getIdentifier() + " " + vertex + " value " + vertex.getValue());
+        }
+        for (NetworkEdge edge : mapGraph.getGraph().edgeSet()) {
+            description.add(edge.getOrderedConnection() + " greedy " + edge.isGreedy()
+                    + " distance " + edge.getDistance() + " hidden " + edge.getHiddenVertices());
+        }
+        return description;
+    }
+
+    private static void assertUpdatedGraph(String message, RailsRoot root) {
+        assertEquals(message, describe(NetworkGraph.createMapGraph(root)),
+                describe(root.getMapGraphCache().getMapGraph()));
+    }
+
+    @Test
+    public void testUpdateEqualsRebuild() {
+        for (String gameFile : GAME_FILES) {
+            GameLoader gameLoader = new GameLoader();
+            gameLoader.setReplayListener((action, round, nanos) ->
+                    assertUpdatedGraph(gameFile + ", replay of " + action, gameLoader.getRoot()));
+            assertTrue(gameFile, gameLoader.createFromFile(new File(Config.get("save.directory"), gameFile)));
+            RailsRoot root = gameLoader.getRoot();
+            assertUpdatedGraph(gameFile, root);
+
+            ChangeStack changeStack = root.getStateManager().getChangeStack();
+            int maximumIndex = changeStack.getMaximumIndex();
+            int steps = Math.min(UNDO_STEPS, maximumIndex - changeStack.getMinimumIndex());
+            for (int i = 0; i < steps; i++) {
+                changeStack.undo();
+                assertUpdatedGraph(gameFile + ", undo to " + changeStack.getCurrentIndex(), root);
+            }
+            for (int i = 0; i < steps; i++) {
+                changeStack.redo();
+                assertUpdatedGraph(gameFile + ", redo to " + changeStack.getCurrentIndex(), root);
+            }
+
+            // undo and redo of the complete game at once
+            changeStack.undo(changeStack.getMinimumIndex());
+            assertUpdatedGraph(gameFile + ", undo to start", root);
+            changeStack.redo(maximumIndex);
+            assertUpdatedGraph(gameFile + ", redo to end", root);
+        }
+    }
+
+}
@@ -0,0 +1,260 @@
+package net.sf.rails.test;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.sf.rails.common.Config;
+import net.sf.rails.common.ConfigManager;
+import net.sf.rails.common.parser.TagCache;
+import net.sf.rails.util.GameLoader;
+
+
+/**
+ * Replays all test games headless and measures the throughput of the game engine.
+ * <p>
+ * Each game is replayed on its own RailsRoot, by default one game after another. Reported are the replayed
+ * actions per second, the time spent in each round type, the peak heap usage and the time saved by the TagCache.
+ * The game reports are compared with the report files, as in TestGame.
+ * <p>
+ * With more than one thread the games are replayed concurrently. The outcome, the number of actions
+ * and the report of each game are compared with the first run (including the warmup),
+ * the benchmark stops with an exception if a result differs.
+ * <p>
+ * Usage: ReplayBenchmark [-threads n] [-warmup n] [-iterations n] [directories or games below the test directory]
+ * <p>
+ * Example for the state framework on a single 1830 game: ReplayBenchmark real/1830_B.rails
+ */
+public final class ReplayBenchmark {
+
+    private enum Outcome { MATCH, DIFFERENT, NO_REPORT, FAILED }
+
+    private static final class Result {
+        private final File gameFile;
+        private final Outcome outcome;
+        private final int actions;
+        // hash of the report, 0 if the game failed
+        private final int reportHash;
+        private final long nanos;
+
+        private Result(File gameFile, Outcome outcome, int actions, int reportHash, long nanos) {
+            this.gameFile = gameFile;
+            this.outcome = outcome;
+            this.actions = actions;
+            this.reportHash = reportHash;
+            this.nanos = nanos;
+        }
+
+        private boolean sameAs(Result other) {
+            return outcome == other.outcome && actions == other.actions && reportHash == other.reportHash;
+        }
+
+        @Override
+        public String toString() {
+            return outcome + ", " + actions + " actions, report hash " + reportHash;
+        }
+    }
+
+    // replay time and actions by round type
+    private final ConcurrentMap<String, LongAdder> roundNanos = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> roundActions = new ConcurrentHashMap<>();
+
+    // results of the first run by game
+    private final Map<File, Result> firstResults = new HashMap<>();
+
+    private ReplayBenchmark() {}
+
+    private Result replay(File gameFile) {
+        LongAdder actions = new LongAdder();
+        GameLoader gameLoader = new GameLoader();
+        gameLoader.setReplayListener((action, round, nanos) -> {
+            String roundType = round == null ? "none" : round.getClass().getSimpleName();
+            roundNanos.computeIfAbsent(roundType, k -> new LongAdder()).add(nanos);
+            roundActions.computeIfAbsent(roundType, k -> new LongAdder()).increment();
+            actions.increment();
+        });
+
+        long start = System.nanoTime();
+        boolean loaded = gameLoader.createFromFile(gameFile);
+        long nanos = System.nanoTime() - start;
+        if (!loaded) {
+            return new Result(gameFile, Outcome.FAILED, actions.intValue(), 0, nanos);
+        }
+        List<String> report = gameLoader.getRoot().getReportManager().getReportBuffer().getAsList();
+        return new Result(gameFile, compareReport(gameFile, report), actions.intValue(), report.hashCode(),
+                nanos);
+    }
+
+    private static Outcome compareReport(File gameFile, List<String> report) {
+        String gameName = gameFile.getName().substring(0, gameFile.getName().lastIndexOf('.'));
+        File reportFile = new File(gameFile.getParentFile(), gameName + "." + Config.get("report.filename.extension"));
+        if (!reportFile.exists()) {
+            return Outcome.NO_REPORT;
+        }
+        // read as in TestGame
+        List<String> expectedReport = new ArrayList<>();
+        try (Scanner reportScanner = new Scanner(new FileReader(reportFile))) {
+            while (reportScanner.hasNext()) {
+                expectedReport.add(reportScanner.nextLine());
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot read report file " + reportFile);
+            return Outcome.DIFFERENT;
+        }
+        return expectedReport.equals(report) ? Outcome.MATCH : Outcome.DIFFERENT;
+    }
+
+    private List<Result> runIteration(List<File> gameFiles, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (File gameFile : gameFiles) {
+            futures.add(executor.submit(() -> replay(gameFile)));
+        }
+        executor.shutdown();
+
+        List<Result> results = new ArrayList<>();
+        for (Future<Result> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                System.err.println("Replay failed: " + e.getCause());
+            }
+        }
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        checkResults(results);
+        return results;
+    }
+
+    /**
+     * Compares the results with the first run
+     * @throws IllegalStateException if the result of a game differs
+     */
+    private void checkResults(List<Result> results) {
+        List<String> differences = new ArrayList<>();
+        for (Result result : results) {
+            Result first = firstResults.putIfAbsent(result.gameFile, result);
+            if (first != null && !first.sameAs(result)) {
+                differences.add(result.gameFile.getPath() + ": " + first + " before, " + result + " now");
+            }
+        }
+        if (!differences.isEmpty()) {
+            throw new IllegalStateException("Results differ between runs: " + differences);
+        }
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    /**
+     * @return true if all games were replayed and match their report files
+     */
+    private boolean measure(List<File> gameFiles, int threads, int warmup, int iterations)
+            throws InterruptedException {
+        for (int i = 1; i <= warmup; i++) {
+            runIteration(gameFiles, threads);
+            System.out.println("Warmup " + i + " finished");
+        }
+
+        boolean passed = true;
+        for (int i = 1; i <= iterations; i++) {
+            roundNanos.clear();
+            roundActions.clear();
+            System.gc();
+            List<MemoryPoolMXBean> pools = heapPools();
+            for (MemoryPoolMXBean pool : pools) {
+                pool.resetPeakUsage();
+            }
+
+            long start = System.nanoTime();
+            List<Result> results = runIteration(gameFiles, threads);
+            long nanos = System.nanoTime() - start;
+
+            long peakHeap = 0;
+            for (MemoryPoolMXBean pool : pools) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+            passed &= printIteration(i, results, nanos, peakHeap);
+        }
+        return passed;
+    }
+
+    private boolean printIteration(int iteration, List<Result> results, long nanos, long peakHeap) {
+        long actions = 0;
+        long replayNanos = 0;
+        boolean passed = true;
+        Map<Outcome, Integer> outcomes = new TreeMap<>();
+        for (Result result : results) {
+            actions += result.actions;
+            replayNanos += result.nanos;
+            outcomes.merge(result.outcome, 1, Integer::sum);
+            if (result.outcome == Outcome.DIFFERENT || result.outcome == Outcome.FAILED) {
+                System.out.println("  " + result.outcome + ": " + result.gameFile.getPath());
+                passed = false;
+            }
+        }
+
+        System.out.println(String.format("Iteration %d: %d games, %d actions in %.1f s, %.0f actions/s, "
+                + "peak heap %d MB", iteration, results.size(), actions, nanos / 1e9,
+                actions / (nanos / 1e9), peakHeap / (1024 * 1024)));
+        System.out.println(String.format("  load and replay time of all games %.1f s, outcomes %s",
+                replayNanos / 1e9, outcomes));
+        System.out.println("  game definitions " + TagCache.getStatistics());
+        for (Map.Entry<String, LongAdder> round : new TreeMap<>(roundNanos).entrySet()) {
+            long roundCount = roundActions.get(round.getKey()).sum();
+            System.out.println(String.format("  %-30s %8d actions %10.1f ms %8.3f ms/action", round.getKey(),
+                    roundCount, round.getValue().sum() / 1e6, round.getValue().sum() / 1e6 / roundCount));
+        }
+        return passed;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = 1;
+        int warmup = 1;
+        int iterations = 3;
+        List<String> directories = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("-warmup".equals(args[i]) && i + 1 < args.length) {
+                warmup = Integer.parseInt(args[++i]);
+            } else if ("-iterations".equals(args[i]) && i + 1 < args.length) {
+                iterations = Integer.parseInt(args[++i]);
+            } else {
+                directories.add(args[i]);
+            }
+        }
+
+        ConfigManager.initConfiguration(true);
+
+        List<File> gameFiles = TestGameBuilder.findGameFiles(directories.toArray(new String[0]));
+        System.out.println("Replaying " + gameFiles.size() + " games with " + threads + " threads");
+
+        boolean passed = new ReplayBenchmark().measure(gameFiles, threads, warmup, iterations);
+        System.exit(passed ? 0 : 1);
+    }
+
+}
@@ -0,0 +1,153 @@
+package net.sf.rails.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.rails.algorithms.RevenueAdapter;
+import net.sf.rails.algorithms.RevenueStatistics;
+import net.sf.rails.common.ConfigManager;
+import net.sf.rails.game.PublicCompany;
+import net.sf.rails.game.RailsRoot;
+import net.sf.rails.util.GameLoader;
+
+
+/**
+ * Measures the revenue calculation on the networks of saved games.
+ * <p>
+ * Each game is loaded once, the networks of all operating companies with trains at the end of the game
+ * are extracted once and the revenue calculation is then repeated on those fixed networks
+ * (the RevenueCache is cleared before each calculation).
+ * Only the calculation itself (predictions and search) is timed, the extraction and the setup
+ * of the revenue calculator are excluded. The revenues of all iterations have to be identical.
+ * <p>
+ * Usage: RevenueBenchmark [-warmup n] [-iterations n] [-simple] [directories or games below the test directory]
+ * <p>
+ * Example: RevenueBenchmark -iterations 10 real/1830_B.rails
+ */
+public final class RevenueBenchmark {
+
+    private static final class Network {
+        private final String name;
+        private final RailsRoot root;
+        private final RevenueAdapter revenueAdapter;
+        private int revenue = -1;
+        private long nanos;
+        private RevenueStatistics statistics;
+
+        private Network(String name, RailsRoot root, RevenueAdapter revenueAdapter) {
+            this.name = name;
+            this.root = root;
+            this.revenueAdapter = revenueAdapter;
+        }
+    }
+
+    private final boolean useMultiGraph;
+
+    private RevenueBenchmark(boolean useMultiGraph) {
+        this.useMultiGraph = useMultiGraph;
+    }
+
+    private static List<Network> extractNetworks(File gameFile) {
+        List<Network> networks = new ArrayList<>();
+        GameLoader gameLoader = new GameLoader();
+        if (!gameLoader.createFromFile(gameFile)) {
+            System.err.println("Cannot load " + gameFile);
+            return networks;
+        }
+        RailsRoot root = gameLoader.getRoot();
+        for (PublicCompany company : root.getCompanyManager().getAllPublicCompanies()) {
+            if (!company.hasFloated() || company.isClosed() || company.getNumberOfTrains() == 0) continue;
+            RevenueAdapter revenueAdapter = RevenueAdapter.createRevenueAdapter(root, company,
+                    root.getPhaseManager().getCurrentPhase());
+            networks.add(new Network(gameFile.getName() + " " + company.getId(), root, revenueAdapter));
+        }
+        return networks;
+    }
+
+    /**
+     * @return true if the revenue is identical to the previous calculations
+     */
+    private boolean calculate(Network network) {
+        network.root.getRevenueCache().clear();
+        network.revenueAdapter.initRevenueCalculator(useMultiGraph);
+        long start = System.nanoTime();
+        int revenue = network.revenueAdapter.calculateRevenue();
+        network.nanos += System.nanoTime() - start;
+        network.statistics = network.revenueAdapter.getStatistics();
+
+        if (network.revenue == -1) {
+            network.revenue = revenue;
+        } else if (network.revenue != revenue) {
+            System.out.println("  DIFFERENT: " + network.name + " " + revenue + " instead of " + network.revenue);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean measure(List<Network> networks, int warmup, int iterations) {
+        boolean passed = true;
+        for (int i = 1; i <= warmup; i++) {
+            for (Network network : networks) {
+                passed &= calculate(network);
+            }
+            System.out.println("Warmup " + i + " finished");
+        }
+        for (Network network : networks) {
+            network.nanos = 0;
+        }
+
+        for (int i = 1; i <= iterations; i++) {
+            long nanos = 0;
+            for (Network network : networks) {
+                long previous = network.nanos;
+                passed &= calculate(network);
+                nanos += network.nanos - previous;
+            }
+            System.out.println(String.format("Iteration %d: %d calculations in %.1f ms, %.3f ms/calculation",
+                    i, networks.size(), nanos / 1e6, nanos / 1e6 / networks.size()));
+        }
+
+        // the slowest networks
+        List<Network> sorted = new ArrayList<>(networks);
+        sorted.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+        for (Network network : sorted.subList(0, Math.min(10, sorted.size()))) {
+            System.out.println(String.format("  %-40s revenue %5d %10.3f ms/calculation, %d nodes, %d prunes",
+                    network.name, network.revenue, network.nanos / 1e6 / iterations,
+                    network.statistics.getNodes(), network.statistics.getPrunes()));
+        }
+        return passed;
+    }
+
+    public static void main(String[] args) {
+        int warmup = 2;
+        int iterations = 5;
+        boolean useMultiGraph = true;
+        List<String> directories = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-warmup".equals(args[i]) && i + 1 < args.length) {
+                warmup = Integer.parseInt(args[++i]);
+            } else if ("-iterations".equals(args[i]) && i + 1 < args.length) {
+                iterations = Integer.parseInt(args[++i]);
+            } else if ("-simple".equals(args[i])) {
+                useMultiGraph = false;
+            } else {
+                directories.add(args[i]);
+            }
+        }
+
+        ConfigManager.initConfiguration(true);
+
+        List<File> gameFiles = TestGameBuilder.findGameFiles(directories.toArray(new String[0]));
+
+        List<Network> networks = new ArrayList<>();
+        for (File gameFile : gameFiles) {
+            networks.addAll(extractNetworks(gameFile));
+        }
+        System.out.println("Calculating " + networks.size() + " networks of " + gameFiles.size() + " games");
+
+        boolean passed = new RevenueBenchmark(useMultiGraph).measure(networks, warmup, iterations);
+        System.exit(passed ? 0 : 1);
+    }
+
+}
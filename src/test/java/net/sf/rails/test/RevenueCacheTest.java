@@ -0,0 +1,210 @@
+package net.sf.rails.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.sf.rails.algorithms.RevenueAdapter;
+import net.sf.rails.algorithms.RevenuePrimitiveModifier;
+import net.sf.rails.algorithms.RevenueRunState;
+import net.sf.rails.algorithms.RevenueStatistics;
+import net.sf.rails.algorithms.RevenueTrainRun;
+import net.sf.rails.common.Config;
+import net.sf.rails.common.ConfigManager;
+import net.sf.rails.game.PublicCompany;
+import net.sf.rails.game.RailsRoot;
+import net.sf.rails.util.GameLoader;
+
+/**
+ * Checks that the RevenueCache distinguishes the state of dynamic modifiers
+ * on the network of a replayed game.
+ */
+public class RevenueCacheTest {
+
+    private static final String GAME_FILE = "real/1830_B.rails";
+    // operates with a revenue at the end of the game
+    private static final String COMPANY = "NYNH";
+
+    /**
+     * Adds a fixed value to the revenue, the value can change between calculations
+     */
+    private static final class BonusModifier implements RevenuePrimitiveModifier {
+        private final boolean cacheable;
+        private int value;
+
+        private BonusModifier(boolean cacheable) {
+            this.cacheable = cacheable;
+        }
+
+        @Override
+        public boolean prepareModifier(RevenueAdapter revenueAdapter) {
+            return true;
+        }
+
+        @Override
+        public boolean preparePrimitive(RevenueAdapter revenueAdapter) {
+            return true;
+        }
+
+        @Override
+        public void vertexEntered(int trainId, int vertexId) {}
+
+        @Override
+        public void vertexLeft(int trainId, int vertexId) {}
+
+        @Override
+        public int predictionValue(RevenueRunState run) {
+            return value;
+        }
+
+        @Override
+        public int evaluationValue(RevenueRunState run) {
+            return value;
+        }
+
+        @Override
+        public int predictionValue(List<RevenueTrainRun> runs) {
+            return value;
+        }
+
+        @Override
+        public int evaluationValue(List<RevenueTrainRun> runs, boolean optimalRuns) {
+            return value;
+        }
+
+        @Override
+        public void adjustOptimalRun(List<RevenueTrainRun> optimalRuns) {}
+
+        @Override
+        public String prettyPrint(RevenueAdapter revenueAdapter) {
+            return null;
+        }
+
+        @Override
+        public String getCacheKey() {
+            return cacheable ? String.valueOf(value) : null;
+        }
+    }
+
+    private RailsRoot root;
+    private PublicCompany company;
+    private BonusModifier modifier;
+
+    @BeforeClass
+    public static void setUpConfiguration() {
+        ConfigManager.initConfiguration(true);
+    }
+
+    @Before
+    public void setUp() {
+        GameLoader gameLoader = new GameLoader();
+        assertTrue(gameLoader.createFromFile(new File(Config.get("save.directory"), GAME_FILE)));
+        root = gameLoader.getRoot();
+        company = root.getCompanyManager().getPublicCompany(COMPANY);
+        assertNotNull(company);
+        root.getRevenueCache().clear();
+    }
+
+    @After
+    public void tearDown() {
+        if (modifier != null) {
+            root.getRevenueManager().removeDynamicModifier(modifier);
+        }
+        Config.set(RevenueAdapter.CONFIG_CACHE_ENABLED, "yes");
+    }
+
+    private RevenueStatistics calculate() {
+        RevenueAdapter revenueAdapter = RevenueAdapter.createRevenueAdapter(root, company,
+                root.getPhaseManager().getCurrentPhase());
+        revenueAdapter.initRevenueCalculator(true);
+        int revenue = revenueAdapter.calculateRevenue();
+        RevenueStatistics statistics = revenueAdapter.getStatistics();
+        assertEquals(revenue, statistics.getRevenue());
+        return statistics;
+    }
+
+    @Test
+    public void testIdenticalCalculationCached() {
+        RevenueStatistics first = calculate();
+        assertFalse(first.isCached());
+        assertTrue(first.getRevenue() > 0);
+        RevenueStatistics second = calculate();
+        assertTrue(second.isCached());
+        assertEquals(first.getRevenue(), second.getRevenue());
+    }
+
+    @Test
+    public void testModifierValueChanged() {
+        modifier = new BonusModifier(true);
+        root.getRevenueManager().addDynamicModifier(modifier);
+
+        RevenueStatistics first = calculate();
+        assertFalse(first.isCached());
+
+        // same graph, different modifier state
+        modifier.value = 10;
+        RevenueStatistics second = calculate();
+        assertFalse(second.isCached());
+        assertEquals(first.getRevenue() + 10, second.getRevenue());
+
+        RevenueStatistics third = calculate();
+        assertTrue(third.isCached());
+        assertEquals(second.getRevenue(), third.getRevenue());
+
+        modifier.value = 0;
+        RevenueStatistics fourth = calculate();
+        assertTrue(fourth.isCached());
+        assertEquals(first.getRevenue(), fourth.getRevenue());
+    }
+
+    @Test
+    public void testModifierReplaced() {
+        modifier = new BonusModifier(true);
+        modifier.value = 10;
+        root.getRevenueManager().addDynamicModifier(modifier);
+        RevenueStatistics first = calculate();
+        assertFalse(first.isCached());
+        root.getRevenueManager().removeDynamicModifier(modifier);
+
+        // an equal modifier, as created by a reload of the game
+        modifier = new BonusModifier(true);
+        modifier.value = 10;
+        root.getRevenueManager().addDynamicModifier(modifier);
+        RevenueStatistics second = calculate();
+        assertTrue(second.isCached());
+        assertEquals(first.getRevenue(), second.getRevenue());
+    }
+
+    @Test
+    public void testModifierWithoutCacheKey() {
+        modifier = new BonusModifier(false);
+        root.getRevenueManager().addDynamicModifier(modifier);
+
+        RevenueStatistics first = calculate();
+        modifier.value = 10;
+        RevenueStatistics second = calculate();
+        assertFalse(second.isCached());
+        assertEquals(first.getRevenue() + 10, second.getRevenue());
+        assertEquals(0, root.getRevenueCache().size());
+    }
+
+    @Test
+    public void testCacheDisabled() {
+        Config.set(RevenueAdapter.CONFIG_CACHE_ENABLED, "no");
+        RevenueStatistics first = calculate();
+        RevenueStatistics second = calculate();
+        assertFalse(second.isCached());
+        assertEquals(first.getRevenue(), second.getRevenue());
+        assertEquals(0, root.getRevenueCache().size());
+    }
+
+}
@@ -0,0 +1,79 @@
+package net.sf.rails.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.sf.rails.algorithms.RevenueAdapter;
+import net.sf.rails.common.Config;
+import net.sf.rails.common.ConfigManager;
+import net.sf.rails.game.Phase;
+import net.sf.rails.game.PublicCompany;
+import net.sf.rails.game.RailsRoot;
+import net.sf.rails.util.GameLoader;
+
+/**
+ * Checks that the parallel search finds the same revenue as the sequential search,
+ * for the networks of all companies with trains in all phases of the test games.
+ * <p>
+ * Of several runs with the optimal value, the searches may select different ones.
+ */
+public class RevenueParallelTest {
+
+    private static final String THREADS = "4";
+
+    @BeforeClass
+    public static void setUpConfiguration() {
+        ConfigManager.initConfiguration(true);
+    }
+
+    @After
+    public void tearDown() {
+        Config.set(RevenueAdapter.CONFIG_PARALLEL_ENABLED, "no");
+        Config.set(RevenueAdapter.CONFIG_PARALLEL_THREADS, "");
+        Config.set(RevenueAdapter.CONFIG_CACHE_ENABLED, "yes");
+    }
+
+    private static int calculate(RailsRoot root, PublicCompany company, Phase phase, boolean parallel) {
+        Config.set(RevenueAdapter.CONFIG_PARALLEL_ENABLED, parallel ? "yes" : "no");
+        RevenueAdapter revenueAdapter = RevenueAdapter.createRevenueAdapter(root, company, phase);
+        revenueAdapter.initRevenueCalculator(true);
+        return revenueAdapter.calculateRevenue();
+    }
+
+    @Test
+    public void testParallelKeepsRevenue() {
+        // both calculations have to search the network
+        Config.set(RevenueAdapter.CONFIG_CACHE_ENABLED, "no");
+        // a fixed number of threads, independent of the processors of the test machine
+        Config.set(RevenueAdapter.CONFIG_PARALLEL_THREADS, THREADS);
+
+        List<File> gameFiles = TestGameBuilder.findGameFiles();
+        assertFalse(gameFiles.isEmpty());
+
+        int networks = 0;
+        for (File gameFile : gameFiles) {
+            GameLoader gameLoader = new GameLoader();
+            assertTrue("Unable to load " + gameFile, gameLoader.createFromFile(gameFile));
+            RailsRoot root = gameLoader.getRoot();
+
+            for (PublicCompany company : root.getCompanyManager().getAllPublicCompanies()) {
+                if (company.isClosed() || company.getPortfolioModel().getTrainList().isEmpty()) continue;
+                for (Phase phase : root.getPhaseManager().getPhases()) {
+                    assertEquals(gameFile.getName() + ", " + company.getId() + ", phase " + phase.getId(),
+                            calculate(root, company, phase, false), calculate(root, company, phase, true));
+                    networks++;
+                }
+            }
+        }
+        assertTrue(networks > 0);
+    }
+
+}
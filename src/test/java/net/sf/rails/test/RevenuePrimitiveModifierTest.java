@@ -0,0 +1,181 @@
+package net.sf.rails.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.rails.algorithms.NetworkTrain;
+import net.sf.rails.algorithms.RevenueAdapter;
+import net.sf.rails.algorithms.RevenueManager;
+import net.sf.rails.algorithms.RevenuePrimitiveModifier;
+import net.sf.rails.algorithms.RevenueStatistics;
+import net.sf.rails.common.Config;
+import net.sf.rails.common.ConfigManager;
+import net.sf.rails.game.Phase;
+import net.sf.rails.game.PublicCompany;
+import net.sf.rails.game.RailsRoot;
+import net.sf.rails.game.specific._1825.DoubleHeadingModifier;
+import net.sf.rails.game.specific._1825.TerminateAtMajorModifier;
+import net.sf.rails.game.specific._1826.TGVModifier;
+import net.sf.rails.game.specific._1837.CoalTrainModifier;
+import net.sf.rails.game.specific._1837.StartAtCoalMineModifier;
+import net.sf.rails.util.GameLoader;
+
+/**
+ * Checks that the primitive calls of the dynamic modifiers find the same revenue as the list based calls,
+ * for the networks of all companies with trains of the test games.
+ * <p>
+ * The modifiers of games without test games are added to the networks of the test games,
+ * with the trains they require instead of the trains of the company.
+ */
+public class RevenuePrimitiveModifierTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RevenuePrimitiveModifierTest.class);
+
+    // primitive modifiers active on networks of the test games
+    private static final String[] TESTED_MODIFIERS = { "ExpressTrainModifier", "NamedTrainRevenueModifier",
+            "PullmanRevenueModifier", "StockMarketBonusModifier" };
+
+    /**
+     * Modifier added to the networks of the test games with the trains to run
+     */
+    private static final class AddedModifier {
+        private final RevenuePrimitiveModifier modifier;
+        private final List<String> trainNames;
+
+        private AddedModifier(RevenuePrimitiveModifier modifier, String... trainNames) {
+            this.modifier = modifier;
+            this.trainNames = Arrays.asList(trainNames);
+        }
+    }
+
+    private static List<AddedModifier> addedModifiers() {
+        return Arrays.asList(
+                new AddedModifier(new TerminateAtMajorModifier(), "2", "3"),
+                // the modifier adds a double heading train
+                new AddedModifier(new DoubleHeadingModifier(), "2", "2"),
+                new AddedModifier(new TGVModifier(), "TGV", "2"),
+                new AddedModifier(new CoalTrainModifier(), "2G", "2"),
+                new AddedModifier(new StartAtCoalMineModifier(), "2", "3"));
+    }
+
+    @BeforeClass
+    public static void setUpConfiguration() {
+        ConfigManager.initConfiguration(true);
+    }
+
+    @After
+    public void tearDown() {
+        Config.set(RevenueAdapter.CONFIG_PRIMITIVE_ENABLED, "yes");
+        Config.set(RevenueAdapter.CONFIG_CACHE_ENABLED, "yes");
+    }
+
+    /**
+     * @param trainNames trains that replace the trains of the company, null to keep them
+     */
+    private static RevenueStatistics calculate(RailsRoot root, PublicCompany company, Phase phase,
+                                               List<String> trainNames, boolean primitive) {
+        Config.set(RevenueAdapter.CONFIG_PRIMITIVE_ENABLED, primitive ? "yes" : "no");
+        RevenueAdapter revenueAdapter = RevenueAdapter.createRevenueAdapter(root, company, phase);
+        if (trainNames != null) {
+            revenueAdapter.getTrains().clear();
+        } else {
+            trainNames = Collections.emptyList();
+        }
+        for (String trainName : trainNames) {
+            // coal trains are named by the number of cities and a G
+            NetworkTrain train = NetworkTrain.createFromString(StringUtils.removeEnd(trainName, "G"));
+            train.setTrainName(trainName);
+            revenueAdapter.addTrain(train);
+        }
+        revenueAdapter.initRevenueCalculator(true);
+        revenueAdapter.calculateRevenue();
+        return revenueAdapter.getStatistics();
+    }
+
+    @Test
+    public void testPrimitiveModifiersKeepRevenue() {
+        // both calculations have to search the network
+        Config.set(RevenueAdapter.CONFIG_CACHE_ENABLED, "no");
+
+        List<File> gameFiles = TestGameBuilder.findGameFiles();
+        assertFalse(gameFiles.isEmpty());
+
+        Set<String> modifiers = new TreeSet<>();
+        int networks = 0;
+        for (File gameFile : gameFiles) {
+            GameLoader gameLoader = new GameLoader();
+            assertTrue("Unable to load " + gameFile, gameLoader.createFromFile(gameFile));
+            RailsRoot root = gameLoader.getRoot();
+
+            for (PublicCompany company : root.getCompanyManager().getAllPublicCompanies()) {
+                if (company.isClosed() || company.getPortfolioModel().getTrainList().isEmpty()) continue;
+                for (Phase phase : root.getPhaseManager().getPhases()) {
+                    RevenueStatistics primitive = calculate(root, company, phase, null, true);
+                    RevenueStatistics list = calculate(root, company, phase, null, false);
+                    assertEquals(gameFile.getName() + ", " + company.getId() + ", phase " + phase.getId()
+                                    + ", modifiers " + primitive.getModifiers(),
+                            list.getRevenue(), primitive.getRevenue());
+                    if (!primitive.getModifiers().isEmpty()) {
+                        modifiers.addAll(primitive.getModifiers());
+                        networks++;
+                    }
+                }
+            }
+        }
+        log.info("Compared {} networks with modifiers {}", networks, modifiers);
+        assertTrue(networks > 0);
+        assertTrue(modifiers.toString(), modifiers.containsAll(Arrays.asList(TESTED_MODIFIERS)));
+    }
+
+    @Test
+    public void testAddedModifiersKeepRevenue() {
+        Config.set(RevenueAdapter.CONFIG_CACHE_ENABLED, "no");
+
+        Set<String> modifiers = new TreeSet<>();
+        for (File gameFile : TestGameBuilder.findGameFiles()) {
+            GameLoader gameLoader = new GameLoader();
+            assertTrue("Unable to load " + gameFile, gameLoader.createFromFile(gameFile));
+            RailsRoot root = gameLoader.getRoot();
+            RevenueManager revenueManager = root.getRevenueManager();
+            // modifiers require a revenue manager, which is optional
+            if (revenueManager == null) continue;
+            Phase phase = root.getPhaseManager().getCurrentPhase();
+
+            for (AddedModifier added : addedModifiers()) {
+                revenueManager.addDynamicModifier(added.modifier);
+                try {
+                    for (PublicCompany company : root.getCompanyManager().getAllPublicCompanies()) {
+                        if (company.isClosed() || company.getPortfolioModel().getTrainList().isEmpty()) continue;
+                        RevenueStatistics primitive = calculate(root, company, phase, added.trainNames, true);
+                        RevenueStatistics list = calculate(root, company, phase, added.trainNames, false);
+                        assertEquals(gameFile.getName() + ", " + company.getId() + ", modifiers "
+                                + primitive.getModifiers(), list.getRevenue(), primitive.getRevenue());
+                        modifiers.addAll(primitive.getModifiers());
+                    }
+                } finally {
+                    revenueManager.removeDynamicModifier(added.modifier);
+                }
+            }
+        }
+        log.info("Compared added modifiers {}", modifiers);
+        for (AddedModifier added : addedModifiers()) {
+            assertTrue(modifiers.toString(), modifiers.contains(added.modifier.getClass().getSimpleName()));
+        }
+    }
+
+}
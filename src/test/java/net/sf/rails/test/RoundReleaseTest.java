@@ -0,0 +1,130 @@
+package net.sf.rails.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.sf.rails.common.Config;
+import net.sf.rails.common.ConfigManager;
+import net.sf.rails.game.GameManager;
+import net.sf.rails.game.RailsRoot;
+import net.sf.rails.game.round.RoundFacade;
+import net.sf.rails.game.state.ChangeStack;
+import net.sf.rails.util.GameLoader;
+
+/**
+ * Replays a long game and checks that finished rounds are removed from the root,
+ * thus the registries of items and states do not grow with the length of the game.
+ */
+public class RoundReleaseTest {
+
+    private static final String GAME_FILE = "real/1856_A.rails";
+
+    @BeforeClass
+    public static void setUpConfiguration() {
+        ConfigManager.initConfiguration(true);
+    }
+
+    @After
+    public void tearDown() {
+        Config.set(GameManager.UNDO_HISTORY_LIMIT, "");
+        Config.set(GameManager.UNDO_HISTORY_ARCHIVE, "yes");
+    }
+
+    private static void assertRegisteredRounds(RailsRoot root, Set<RoundFacade> rounds) {
+        GameManager gameManager = root.getGameManager();
+        for (RoundFacade round : rounds) {
+            boolean active = round == gameManager.getCurrentRound() || round == gameManager.getInterruptedRound();
+            assertEquals(round.getId(), active, root.locate(round.getFullURI()) == round);
+        }
+    }
+
+    @Test
+    public void testFinishedRoundsReleased() {
+        Set<RoundFacade> rounds = new LinkedHashSet<>();
+        GameLoader gameLoader = new GameLoader();
+        gameLoader.setReplayListener((action, round, nanos) -> {
+            if (round != null) {
+                rounds.add(round);
+            }
+        });
+        assertTrue(gameLoader.createFromFile(new File(Config.get("save.directory"), GAME_FILE)));
+        RailsRoot root = gameLoader.getRoot();
+        assertTrue(rounds.size() > 10);
+        assertRegisteredRounds(root, rounds);
+
+        // undo registers the first round again, the later rounds do not exist yet
+        ChangeStack changeStack = root.getStateManager().getChangeStack();
+        int maximumIndex = changeStack.getMaximumIndex();
+        changeStack.undo(changeStack.getMinimumIndex());
+        RoundFacade firstRound = rounds.iterator().next();
+        assertSame(firstRound, root.getGameManager().getCurrentRound());
+        for (RoundFacade round : rounds) {
+            assertEquals(round.getId(), round == firstRound, root.locate(round.getFullURI()) == round);
+        }
+
+        changeStack.redo(maximumIndex);
+        assertRegisteredRounds(root, rounds);
+    }
+
+    @Test
+    public void testFinishedRoundsCollected() throws InterruptedException {
+        // without a limit the ChangeSets of the undo history keep the finished rounds
+        Config.set(GameManager.UNDO_HISTORY_LIMIT, "20");
+        Config.set(GameManager.UNDO_HISTORY_ARCHIVE, "no");
+
+        List<WeakReference<RoundFacade>> rounds = new ArrayList<>();
+        GameLoader gameLoader = new GameLoader();
+        gameLoader.setReplayListener((action, round, nanos) -> {
+            if (round != null && (rounds.isEmpty() || rounds.get(rounds.size() - 1).get() != round)) {
+                rounds.add(new WeakReference<>(round));
+            }
+        });
+        assertTrue(gameLoader.createFromFile(new File(Config.get("save.directory"), GAME_FILE)));
+        RailsRoot root = gameLoader.getRoot();
+        assertTrue(rounds.size() > 10);
+
+        // the first rounds are released long before the last 20 actions
+        WeakReference<RoundFacade> firstRound = rounds.get(0);
+        WeakReference<RoundFacade> secondRound = rounds.get(1);
+        for (int i = 0; i < 50 && (firstRound.get() != null || secondRound.get() != null); i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(firstRound.get());
+        assertNull(secondRound.get());
+        assertTrue(root.getGameManager().getCurrentRound() != null);
+    }
+
+    @Test
+    public void testFinishedRoundsKeptByDefault() throws InterruptedException {
+        // releasing the memory of rounds is opt-in, the default undo history keeps all of them
+        List<WeakReference<RoundFacade>> rounds = new ArrayList<>();
+        GameLoader gameLoader = new GameLoader();
+        gameLoader.setReplayListener((action, round, nanos) -> {
+            if (round != null && rounds.isEmpty()) {
+                rounds.add(new WeakReference<>(round));
+            }
+        });
+        assertTrue(gameLoader.createFromFile(new File(Config.get("save.directory"), GAME_FILE)));
+        RailsRoot root = gameLoader.getRoot();
+
+        System.gc();
+        Thread.sleep(20);
+        assertTrue(rounds.get(0).get() != null);
+        assertTrue(root.getGameManager().getCurrentRound() != rounds.get(0).get());
+    }
+
+}
@@ -0,0 +1,92 @@
+package net.sf.rails.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.sf.rails.common.Config;
+import net.sf.rails.common.ConfigManager;
+import net.sf.rails.common.GameOption;
+import net.sf.rails.common.GameOptionsSet;
+import net.sf.rails.common.parser.ConfigurationException;
+import net.sf.rails.common.parser.GameInfoParser;
+import net.sf.rails.common.parser.Tag;
+import net.sf.rails.common.parser.TagCache;
+import net.sf.rails.util.GameLoader;
+
+/**
+ * Loads a game twice and checks that the second RailsRoot uses the cached game definitions only,
+ * and checks that the game options are applied to each copy of a cached file.
+ */
+public class TagCacheTest {
+
+    private static final String GAME_FILE = "real/1856_A.rails";
+
+    @BeforeClass
+    public static void setUpConfiguration() {
+        ConfigManager.initConfiguration(true);
+    }
+
+    private static final String MAP_DIRECTORY = GameInfoParser.DIRECTORY + "/1830";
+
+    private static GameOptionsSet variant(String value) {
+        GameOption.Builder builder = GameOption.builder(GameOption.VARIANT);
+        builder.setDefaultValue(value);
+        GameOption variant = builder.build();
+        variant.setSelectedValue(value);
+        return GameOptionsSet.builder().withNumberOfPlayers(4).withOption(variant).build();
+    }
+
+    /**
+     * @return the preprinted tile of hex D20, which depends on the variant
+     */
+    private static String findTileOfD20(Tag mapTag) throws ConfigurationException {
+        for (Tag hexTag : mapTag.getChildren("Hex")) {
+            if ("D20".equals(hexTag.getAttributeAsString("name"))) {
+                return hexTag.getAttributeAsString("tile");
+            }
+        }
+        return null;
+    }
+
+    private static List<String> loadReport() {
+        GameLoader gameLoader = new GameLoader();
+        assertTrue(gameLoader.createFromFile(new File(Config.get("save.directory"), GAME_FILE)));
+        return gameLoader.getRoot().getReportManager().getReportBuffer().getAsList();
+    }
+
+    @Test
+    public void testSecondRootCached() {
+        List<String> firstReport = loadReport();
+        long misses = TagCache.getMisses();
+        long hits = TagCache.getHits();
+
+        List<String> secondReport = loadReport();
+        assertEquals(misses, TagCache.getMisses());
+        assertTrue(TagCache.getHits() > hits);
+        assertTrue(TagCache.getSavedNanos() > 0);
+        assertEquals(firstReport, secondReport);
+    }
+
+    @Test
+    public void testOptionsAppliedToCopies() throws ConfigurationException {
+        Tag basegame = TagCache.findTopTagInFile("Map.xml", MAP_DIRECTORY, "Map", variant("Basegame"));
+        long misses = TagCache.getMisses();
+        Tag wabash = TagCache.findTopTagInFile("Map.xml", MAP_DIRECTORY, "Map", variant("Wabash"));
+        Tag basegameAgain = TagCache.findTopTagInFile("Map.xml", MAP_DIRECTORY, "Map", variant("Basegame"));
+        assertEquals(misses, TagCache.getMisses());
+
+        assertEquals("0", findTileOfD20(basegame));
+        assertEquals("-25007", findTileOfD20(wabash));
+        assertEquals("0", findTileOfD20(basegameAgain));
+        assertNotSame(basegame.getElement(), basegameAgain.getElement());
+        assertNotSame(basegame.getElement().getOwnerDocument(), basegameAgain.getElement().getOwnerDocument());
+    }
+
+}
@@ -3,6 +3,7 @@ package net.sf.rails.test;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -50,6 +51,42 @@ public final class TestGameBuilder extends TestCase {
     }
 
 
+    /**
+     * Finds the saved games below the main test directory, used by the tests and benchmarks
+     * that load all test games
+     * @param paths games or directories below the main test directory, all games if empty
+     * @return the game files, sorted
+     */
+    static List<File> findGameFiles(String... paths) {
+        String rootPath = Config.get("save.directory");
+        if (paths.length == 0) {
+            paths = new String[] { "" };
+        }
+        List<File> gameFiles = new ArrayList<>();
+        for (String path : paths) {
+            File file = new File(rootPath, path);
+            if (file.isFile()) {
+                gameFiles.add(file);
+            } else {
+                findGameFiles(file, gameFiles);
+            }
+        }
+        Collections.sort(gameFiles);
+        return gameFiles;
+    }
+
+    private static void findGameFiles(File directory, List<File> gameFiles) {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                findGameFiles(file, gameFiles);
+            } else if (file.getName().endsWith("." + Config.get("save.filename.extension"))) {
+                gameFiles.add(file);
+            }
+        }
+    }
+
     private static void prepareGameReport(File gameFile, String reportFilename) {
 
         RailsRoot root = null;
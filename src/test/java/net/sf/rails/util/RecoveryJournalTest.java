@@ -0,0 +1,130 @@
+package net.sf.rails.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sf.rails.common.Config;
+import net.sf.rails.common.ConfigManager;
+import net.sf.rails.game.RailsRoot;
+import rails.game.action.PossibleAction;
+
+/**
+ * Writes the actions of a test game to a RecoveryJournal and reads them back,
+ * from complete, truncated and corrupted journals.
+ */
+public class RecoveryJournalTest {
+
+    private static final String GAME_FILE = "test/1830_ShareSelling_Test.rails";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RailsRoot root;
+    private List<PossibleAction> actions;
+    private File journalFile;
+
+    @BeforeClass
+    public static void setUpConfiguration() {
+        ConfigManager.initConfiguration(true);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        GameLoader gameLoader = new GameLoader();
+        assertTrue(gameLoader.createFromFile(new File(Config.get("save.directory"), GAME_FILE)));
+        root = gameLoader.getRoot();
+        actions = gameLoader.getActions();
+        assertTrue(actions.size() > 2);
+        journalFile = folder.newFile("recovery.rails");
+    }
+
+    /**
+     * Writes all actions and returns the file length before the last action
+     */
+    private long writeJournal() throws IOException {
+        long lengthBeforeLast;
+        try (RecoveryJournal journal = RecoveryJournal.create(journalFile, root.getGameData())) {
+            journal.update(actions.subList(0, actions.size() - 1));
+            lengthBeforeLast = journalFile.length();
+            journal.update(actions);
+        }
+        return lengthBeforeLast;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        writeJournal();
+        assertTrue(RecoveryJournal.isJournal(journalFile));
+        RecoveryJournal.Content content = RecoveryJournal.read(journalFile);
+        assertNotNull(content.getHeader());
+        assertEquals(actions.size(), content.getActions().size());
+
+        // the journal replays to the same game
+        GameLoader gameLoader = new GameLoader();
+        assertTrue(gameLoader.createFromFile(journalFile));
+        assertEquals(root.getReportManager().getReportBuffer().getAsList(),
+                gameLoader.getRoot().getReportManager().getReportBuffer().getAsList());
+    }
+
+    @Test
+    public void testUndoTruncates() throws IOException {
+        try (RecoveryJournal journal = RecoveryJournal.create(journalFile, root.getGameData())) {
+            journal.update(actions);
+            journal.update(actions.subList(0, 2));
+        }
+        assertEquals(2, RecoveryJournal.read(journalFile).getActions().size());
+    }
+
+    @Test
+    public void testTruncatedTail() throws IOException {
+        long lengthBeforeLast = writeJournal();
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            // the checksum of the last record is incomplete
+            file.setLength(file.length() - 2);
+        }
+        assertEquals(actions.size() - 1, RecoveryJournal.read(journalFile).getActions().size());
+
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            // only the type of the last record is written
+            file.setLength(lengthBeforeLast + 1);
+        }
+        assertEquals(actions.size() - 1, RecoveryJournal.read(journalFile).getActions().size());
+    }
+
+    @Test
+    public void testCorruptLength() throws IOException {
+        long lengthBeforeLast = writeJournal();
+        long length = journalFile.length();
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            // the length of the last record exceeds the file by one byte
+            file.seek(lengthBeforeLast + 1);
+            file.writeInt((int) (length - lengthBeforeLast - 8));
+        }
+        assertEquals(actions.size() - 1, RecoveryJournal.read(journalFile).getActions().size());
+
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            file.seek(lengthBeforeLast + 1);
+            file.writeInt(Integer.MAX_VALUE);
+        }
+        assertEquals(actions.size() - 1, RecoveryJournal.read(journalFile).getActions().size());
+
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            file.seek(lengthBeforeLast + 1);
+            file.writeInt(-1);
+        }
+        assertEquals(actions.size() - 1, RecoveryJournal.read(journalFile).getActions().size());
+    }
+
+}